@@ -0,0 +1,193 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Created on 2026/10/17.
+ * Rows of a result set in the Arrow columnar format, one {@link Vector} for each column, in direct buffers.
+ * Buffers are little endian and padded to multiples of 8 bytes, so they can be handed to an Arrow implementation
+ * (for example wrapped as ArrowBuf) without copying. The receiver owns the batch and closes it to release the buffers.
+ */
+public class ArrowBatch implements MysqlImmediateCloseable {
+
+    @NotNull
+    final ResultHeader header;
+
+    @NotNull
+    final Vector[] vectors;
+
+    final int rowCount;
+
+    ArrowBatch(@NotNull ResultHeader header, @NotNull Vector[] vectors, int rowCount) {
+        super();
+        this.header = header;
+        this.vectors = vectors;
+        this.rowCount = rowCount;
+    }
+
+    @NotNull
+    public ResultHeader getHeader() {
+        return header;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @NotNull
+    public Vector getVector(@NotNull ResultColumn column) {
+        return vectors[column.index];
+    }
+
+    @Override
+    public void close() {
+        for (Vector vector : vectors) {
+            vector.release();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ArrowBatch[rowCount = %d, columnCount = %d]", rowCount, vectors.length);
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * Arrow logical types the columns map to
+     */
+    public interface Types {
+
+        /**
+         * All NULL, no buffers
+         */
+        int NULL = 0;
+
+        /**
+         * {@link Vector#bitWidth} 8, 16, 32 or 64, {@link Vector#signed}
+         */
+        int INT = 1;
+
+        /**
+         * {@link Vector#bitWidth} 32 or 64
+         */
+        int FLOATING_POINT = 2;
+
+        /**
+         * Offsets and data
+         */
+        int UTF8 = 3;
+
+        /**
+         * Offsets and data
+         */
+        int BINARY = 4;
+
+        /**
+         * Date(DAY), days since the epoch in 32 bits
+         */
+        int DATE_DAY = 5;
+
+        /**
+         * Timestamp(MICROSECOND) without time zone, microseconds since the epoch in 64 bits
+         */
+        int TIMESTAMP_MICROSECOND = 6;
+
+        /**
+         * Duration(MICROSECOND) in 64 bits
+         */
+        int DURATION_MICROSECOND = 7;
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * One column of a batch
+     */
+    public static class Vector {
+
+        /**
+         * {@link Types}
+         */
+        final int type;
+
+        final int bitWidth;
+
+        final boolean signed;
+
+        /**
+         * Bit i is set if value i is not NULL, least significant bit first
+         */
+        ByteBuf validity;
+
+        /**
+         * int32 for each value plus one, of {@link Types#UTF8} and {@link Types#BINARY} only
+         */
+        ByteBuf offsets;
+
+        /**
+         * Fixed width values, or bytes of variable width values
+         */
+        ByteBuf data;
+
+        int nullCount;
+
+        Vector(int type, int bitWidth, boolean signed) {
+            super();
+            this.type = type;
+            this.bitWidth = bitWidth;
+            this.signed = signed;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public int getBitWidth() {
+            return bitWidth;
+        }
+
+        public boolean isSigned() {
+            return signed;
+        }
+
+        public int getNullCount() {
+            return nullCount;
+        }
+
+        @Nullable
+        public ByteBuf getValidity() {
+            return validity;
+        }
+
+        @Nullable
+        public ByteBuf getOffsets() {
+            return offsets;
+        }
+
+        @Nullable
+        public ByteBuf getData() {
+            return data;
+        }
+
+        void release() {
+            if (validity != null) {
+                validity.release();
+                validity = null;
+            }
+            if (offsets != null) {
+                offsets.release();
+                offsets = null;
+            }
+            if (data != null) {
+                data.release();
+                data = null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Vector[type = %d, bitWidth = %d, signed = %b, nullCount = %d]", type, bitWidth, signed, nullCount);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Created on 2026/10/17.
+ * Writes the rows of one result set into {@link ArrowBatch} buffers as they arrive, a batch is handed to the listener
+ * once it has the maximum rows or bytes, counting validity, offsets and data buffers, and the rest at the end;
+ * an empty result set gives one batch without rows, which carries the schema. Columns map by {@link FieldTypes} and {@link ColumnFlags}:
+ * integers to signed or unsigned INT of the same width (INT24 to 32 bits), FLOAT and DOUBLE to FLOATING_POINT,
+ * DATE to DATE_DAY, DATETIME and TIMESTAMP to TIMESTAMP_MICROSECOND, TIME to DURATION_MICROSECOND,
+ * binary strings, blobs, BIT and GEOMETRY to BINARY, and other strings to UTF8.
+ * DECIMAL goes to UTF8 as sent, since DECIMAL(65) does not fit Decimal128; zero dates are NULL.
+ */
+public class ArrowBatchWriter implements PacketCollector.ResultContentConsumer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArrowBatchWriter.class);
+
+    private static final long MICROSECONDS_PER_SECOND = 1_000_000L;
+
+    private static final long MICROSECONDS_PER_DAY = 86_400L * MICROSECONDS_PER_SECOND;
+
+    /**
+     * Created on 2026/10/17.
+     */
+    public interface Listener {
+
+        /**
+         * The listener owns the batch and closes it
+         */
+        void batch(@NotNull ArrowBatch batch);
+
+        /**
+         * A result set or a statement without result set ended, more results follow if end has {@link ServerStatus#MORE_RESULTS_EXISTS}
+         */
+        void finish(@NotNull ResponsePacket.EOF end);
+
+        void error(@Nullable ResponsePacket.Error error);
+    }
+
+    /**
+     * For {@link MysqlConnection#query(PacketCollector.ResultHeaderConsumer, String)} and the like,
+     * each result set of the command is written by a new writer to the same listener
+     */
+    @NotNull
+    public static PacketCollector.ResultHeaderConsumer consumer(@NotNull ByteBufAllocator allocator, int maxRows, int maxBytes, @NotNull Listener listener) {
+        return new PacketCollector.ResultHeaderConsumer() {
+            @Override
+            public void error(@Nullable ResponsePacket.Error error) {
+                listener.error(error);
+            }
+
+            @Override
+            @NotNull
+            public PacketCollector.ResultContentConsumer accept(@NotNull ResultHeader header) {
+                return new ArrowBatchWriter(header, allocator, maxRows, maxBytes, listener);
+            }
+
+            @Override
+            public void finish(@NotNull ResponsePacket.EOF end) {
+                listener.finish(end);
+            }
+        };
+    }
+
+    @NotNull
+    final ResultHeader header;
+
+    @NotNull
+    final ByteBufAllocator allocator;
+
+    final int maxRows;
+
+    final int maxBytes;
+
+    @NotNull
+    final Listener listener;
+
+    /**
+     * Of the current batch
+     */
+    ArrowBatch.Vector[] vectors;
+
+    int rowCount;
+
+    /**
+     * Handed to the listener so far
+     */
+    int batchCount;
+
+    /**
+     * A row failed to convert, the listener got an error and the rest is dropped
+     */
+    boolean failed;
+
+    /**
+     * Reused for each row, in the event loop only
+     */
+    private final MysqlDateTime dateTime = new MysqlDateTime();
+
+    private final MysqlTime time = new MysqlTime();
+
+    public ArrowBatchWriter(@NotNull ResultHeader header, @NotNull ByteBufAllocator allocator, int maxRows, int maxBytes, @NotNull Listener listener) {
+        super();
+        this.header = header;
+        this.allocator = allocator;
+        this.maxRows = Math.max(1, maxRows);
+        this.maxBytes = maxBytes;
+        this.listener = listener;
+    }
+
+    @NotNull
+    static ArrowBatch.Vector vector(@NotNull ResultColumn column) {
+        final boolean signed = !column.hasFlag(ColumnFlags.UNSIGNED);
+        switch (column.type) {
+            case FieldTypes.TINY:
+                return new ArrowBatch.Vector(ArrowBatch.Types.INT, 8, signed);
+            case FieldTypes.SHORT:
+                return new ArrowBatch.Vector(ArrowBatch.Types.INT, 16, signed);
+            case FieldTypes.YEAR:
+                return new ArrowBatch.Vector(ArrowBatch.Types.INT, 16, false);
+            case FieldTypes.INT24:
+                return new ArrowBatch.Vector(ArrowBatch.Types.INT, 32, true); // unsigned fits too
+            case FieldTypes.LONG:
+                return new ArrowBatch.Vector(ArrowBatch.Types.INT, 32, signed);
+            case FieldTypes.LONG_LONG:
+                return new ArrowBatch.Vector(ArrowBatch.Types.INT, 64, signed);
+            case FieldTypes.FLOAT:
+                return new ArrowBatch.Vector(ArrowBatch.Types.FLOATING_POINT, 32, true);
+            case FieldTypes.DOUBLE:
+                return new ArrowBatch.Vector(ArrowBatch.Types.FLOATING_POINT, 64, true);
+            case FieldTypes.DATE:
+                return new ArrowBatch.Vector(ArrowBatch.Types.DATE_DAY, 32, true);
+            case FieldTypes.DATE_TIME:
+            case FieldTypes.TIMESTAMP:
+                return new ArrowBatch.Vector(ArrowBatch.Types.TIMESTAMP_MICROSECOND, 64, true);
+            case FieldTypes.TIME:
+                return new ArrowBatch.Vector(ArrowBatch.Types.DURATION_MICROSECOND, 64, true);
+            case FieldTypes.NULL:
+                return new ArrowBatch.Vector(ArrowBatch.Types.NULL, 0, false);
+            case FieldTypes.BIT:
+            case FieldTypes.GEOMETRY:
+                return new ArrowBatch.Vector(ArrowBatch.Types.BINARY, 0, false);
+            case FieldTypes.DECIMAL:
+            case FieldTypes.NEW_DECIMAL:
+            case FieldTypes.JSON:
+                return new ArrowBatch.Vector(ArrowBatch.Types.UTF8, 0, false);
+            default:
+                if (column.characterSet == CharacterSets.BINARY) {
+                    return new ArrowBatch.Vector(ArrowBatch.Types.BINARY, 0, false);
+                } else {
+                    return new ArrowBatch.Vector(ArrowBatch.Types.UTF8, 0, false);
+                }
+        }
+    }
+
+    private void start() {
+        final int columnCount = header.columnCount();
+        vectors = new ArrowBatch.Vector[columnCount];
+        for (int index = 0; index < columnCount; index++) {
+            final ArrowBatch.Vector vector = vector(header.getByIndex(index));
+            vectors[index] = vector;
+            if (vector.type == ArrowBatch.Types.NULL) {
+                continue;
+            }
+            vector.validity = allocator.directBuffer();
+            if (vector.bitWidth == 0) {
+                vector.offsets = allocator.directBuffer();
+                vector.offsets.writeIntLE(0);
+            }
+            vector.data = allocator.directBuffer();
+        }
+        rowCount = 0;
+    }
+
+    /**
+     * Days since 1970-01-01 of the proleptic Gregorian calendar, after Howard Hinnant's days_from_civil
+     */
+    static int epochDay(int year, int month, int date) {
+        if (month <= 2) {
+            year--;
+        }
+        final int era = (year >= 0 ? year : year - 399) / 400;
+        final int yearOfEra = year - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + date - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * @return false if NULL
+     */
+    private boolean write(@NotNull ArrowBatch.Vector vector, @NotNull ResultRow row, @NotNull ResultColumn column) throws MysqlException {
+        if (row.isNull(column)) {
+            return false;
+        }
+        final ByteBuf data = vector.data;
+        switch (vector.type) {
+            case ArrowBatch.Types.INT:
+                switch (vector.bitWidth) {
+                    case 8:
+                        data.writeByte(row.getInteger(column));
+                        break;
+                    case 16:
+                        data.writeShortLE(row.getInteger(column));
+                        break;
+                    case 32:
+                        data.writeIntLE(row.getInteger(column));
+                        break;
+                    default:
+                        data.writeLongLE(row.getLong(column));
+                        break;
+                }
+                return true;
+            case ArrowBatch.Types.FLOATING_POINT:
+                if (vector.bitWidth == 32) {
+                    data.writeFloatLE(row.getFloat(column));
+                } else {
+                    data.writeDoubleLE(row.getDouble(column));
+                }
+                return true;
+            case ArrowBatch.Types.DATE_DAY:
+            case ArrowBatch.Types.TIMESTAMP_MICROSECOND: {
+                row.getMysqlDateTime(column, dateTime);
+                if (dateTime.month == 0 || dateTime.date == 0) {
+                    return false; // zero date
+                }
+                final int epochDay = epochDay(dateTime.year, dateTime.month, dateTime.date);
+                if (vector.type == ArrowBatch.Types.DATE_DAY) {
+                    data.writeIntLE(epochDay);
+                } else {
+                    data.writeLongLE(epochDay * MICROSECONDS_PER_DAY
+                            + ((dateTime.hour * 60L + dateTime.minute) * 60L + dateTime.second) * MICROSECONDS_PER_SECOND
+                            + dateTime.microsecond);
+                }
+                return true;
+            }
+            case ArrowBatch.Types.DURATION_MICROSECOND: {
+                row.getMysqlTime(column, time);
+                final long microseconds = (((time.days * 24L + time.hour) * 60L + time.minute) * 60L + time.second) * MICROSECONDS_PER_SECOND
+                        + time.microsecond;
+                data.writeLongLE(time.isNegative ? -microseconds : microseconds);
+                return true;
+            }
+            default:
+                row.writeBytes(column, data);
+                vector.offsets.writeIntLE(data.writerIndex());
+                return true;
+        }
+    }
+
+    private void writeNull(@NotNull ArrowBatch.Vector vector) {
+        vector.nullCount++;
+        if (vector.bitWidth == 0) {
+            vector.offsets.writeIntLE(vector.data.writerIndex());
+        } else {
+            vector.data.writeZero(vector.bitWidth >>> 3);
+        }
+    }
+
+    @Override
+    public void next(@NotNull ResultRow row) {
+        try {
+            if (failed) {
+                return;
+            }
+            if (vectors == null) {
+                start();
+            }
+            final int byteIndex = rowCount >>> 3;
+            int bytes = 0;
+            for (int index = 0; index < vectors.length; index++) {
+                final ArrowBatch.Vector vector = vectors[index];
+                if (vector.type == ArrowBatch.Types.NULL) {
+                    vector.nullCount++;
+                    continue;
+                }
+                final ByteBuf validity = vector.validity;
+                if ((rowCount & 7) == 0) {
+                    validity.writeByte(0);
+                }
+                final int dataIndex = vector.data.writerIndex();
+                if (write(vector, row, header.getByIndex(index))) {
+                    validity.setByte(byteIndex, validity.getByte(byteIndex) | (1 << (rowCount & 7)));
+                } else {
+                    vector.data.writerIndex(dataIndex);
+                    writeNull(vector);
+                }
+                bytes += validity.writerIndex() + vector.data.writerIndex();
+                if (vector.offsets != null) {
+                    bytes += vector.offsets.writerIndex();
+                }
+            }
+            rowCount++;
+            if (rowCount >= maxRows || bytes >= maxBytes) {
+                emit();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("{} failed to write {}", this, row, e);
+            failed = true;
+            discard();
+            listener.error(null);
+        } finally {
+            ReferenceCountUtil.release(row);
+        }
+    }
+
+    /**
+     * Pads the buffers and hands the batch over
+     */
+    private void emit() {
+        for (ArrowBatch.Vector vector : vectors) {
+            if (vector.type == ArrowBatch.Types.NULL) {
+                continue;
+            }
+            pad(vector.validity);
+            if (vector.offsets != null) {
+                pad(vector.offsets);
+            }
+            pad(vector.data);
+        }
+        final ArrowBatch batch = new ArrowBatch(header, vectors, rowCount);
+        vectors = null;
+        rowCount = 0;
+        batchCount++;
+        listener.batch(batch);
+    }
+
+    private static void pad(@NotNull ByteBuf buf) {
+        buf.writeZero(-buf.writerIndex() & 7);
+    }
+
+    private void discard() {
+        if (vectors != null) {
+            for (ArrowBatch.Vector vector : vectors) {
+                vector.release();
+            }
+            vectors = null;
+        }
+    }
+
+    @Override
+    public void error(@Nullable ResponsePacket.Error error) {
+        if (failed) {
+            return;
+        }
+        discard();
+        listener.error(error);
+    }
+
+    @Override
+    public void finish(@NotNull ResponsePacket.EOF end) {
+        if (failed) {
+            return;
+        }
+        if (batchCount == 0 && vectors == null) {
+            start();
+        }
+        if (vectors != null && (rowCount > 0 || batchCount == 0)) {
+            emit();
+        }
+        discard();
+        listener.finish(end);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ArrowBatchWriter[header = %s, maxRows = %d, maxBytes = %d, rowCount = %d, batchCount = %d]",
+                header, maxRows, maxBytes, rowCount, batchCount);
+    }
+}
@@ -1,5 +1,10 @@
 package indi.qsq.mysql;
 
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Created on 2024/5/20.
  *
@@ -14,6 +19,13 @@ public interface CharacterSets {
 
     int LATIN1_BIN = 47;
 
+    /**
+     * Default for ASCII
+     */
+    int ASCII_GENERAL_CI = 11;
+
+    int ASCII_BIN = 65;
+
     /**
      * Default for UTF-8 max bytes 3
      */
@@ -58,4 +70,64 @@ public interface CharacterSets {
     int UTF32_BIN = 61;
 
     int UTF32_UNICODE_CI = 160;
+
+    /**
+     * Of binary strings and blobs, not text
+     */
+    int BINARY = 63;
+
+    /**
+     * The Java charset of a collation index. MySQL latin1 is windows-1252; the binary collation and unknown ones are decoded as UTF-8,
+     * as all strings were before.
+     */
+    @NotNull
+    static Charset toCharset(int characterSet) {
+        switch (characterSet) {
+            case 5: // latin1_german1_ci
+            case LATIN1_SWEDISH_CI:
+            case 15: // latin1_danish_ci
+            case 31: // latin1_german2_ci
+            case LATIN1_BIN:
+            case 48: // latin1_general_ci
+            case 49: // latin1_general_cs
+            case 94: // latin1_spanish_ci
+                return Charsets.WINDOWS_1252;
+            case ASCII_GENERAL_CI:
+            case ASCII_BIN:
+                return StandardCharsets.US_ASCII;
+            case UTF16_GENERAL_CI:
+            case UTF16_BIN:
+            case 35: // ucs2_general_ci
+            case 90: // ucs2_bin
+                return StandardCharsets.UTF_16BE;
+            case UTF16LE_GENERAL_CI:
+            case UTF16LE_BIN:
+                return StandardCharsets.UTF_16LE;
+            case UTF32_GENERAL_CI:
+            case UTF32_BIN:
+                return Charsets.UTF_32;
+            default:
+                if (101 <= characterSet && characterSet <= 124 || 128 <= characterSet && characterSet <= 151) {
+                    return StandardCharsets.UTF_16BE; // utf16 and ucs2 collations
+                } else if (UTF32_UNICODE_CI <= characterSet && characterSet <= 183) {
+                    return Charsets.UTF_32;
+                } else {
+                    return StandardCharsets.UTF_8;
+                }
+        }
+    }
+
+    /**
+     * Charsets without a {@link StandardCharsets} constant, looked up once
+     */
+    class Charsets {
+
+        static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+        static final Charset UTF_32 = Charset.forName("UTF-32");
+
+        private Charsets() {
+            super();
+        }
+    }
 }
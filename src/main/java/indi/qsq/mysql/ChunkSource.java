@@ -0,0 +1,364 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created on 2026/10/17.
+ * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_com_query_response_local_infile_request.html
+ * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_com_stmt_send_long_data.html
+ * Content streamed as a packet per chunk, never held in one buffer: the file of a LOAD DATA LOCAL INFILE statement,
+ * see {@link MysqlConnection#loadLocalInfile}, or a BLOB parameter value sent with COM_STMT_SEND_LONG_DATA before the execution.
+ * Read one chunk at a time off the event loop, by {@link #READER} unless configured, so a blocking read stalls no connection;
+ * the next chunk is read when the previous one is written and the channel is writable.
+ * Closed when the command completes or is not sent; a close while a chunk is being read is done by the reader when the read returns.
+ */
+public abstract class ChunkSource implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChunkSource.class);
+
+    /**
+     * Shared by all connections, threads are created as reads block and expire when idle
+     */
+    static final Executor READER = Executors.newCachedThreadPool(new DefaultThreadFactory("mysql-chunk-reader", true));
+
+    private static final int IDLE = 0;
+
+    private static final int READING = 1;
+
+    /**
+     * Closed while reading, closed by the reader
+     */
+    private static final int CLOSING = 2;
+
+    private static final int CLOSED = 3;
+
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+
+    /**
+     * Appends at most about maxLength bytes, blocking is fine
+     * @return bytes appended, maybe zero, or -1 at the end
+     */
+    abstract int read(@NotNull ByteBuf buf, int maxLength) throws IOException;
+
+    /**
+     * Called by the stream reader, one chunk at a time; closes the source if {@link #closeQuietly()} is called meanwhile
+     * @return as {@link #read}, -1 if closed
+     */
+    final int readChunk(@NotNull ByteBuf buf, int maxLength) throws IOException {
+        if (!state.compareAndSet(IDLE, READING)) {
+            return -1;
+        }
+        try {
+            return read(buf, maxLength);
+        } finally {
+            if (!state.compareAndSet(READING, IDLE)) {
+                state.set(CLOSED);
+                close0();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // pass
+    }
+
+    /**
+     * Closes once, from any thread; deferred to the reader if a chunk is being read
+     */
+    final void closeQuietly() {
+        while (true) {
+            final int current = state.get();
+            if (current == IDLE) {
+                if (state.compareAndSet(IDLE, CLOSED)) {
+                    close0();
+                    return;
+                }
+            } else if (current == READING) {
+                if (state.compareAndSet(READING, CLOSING)) {
+                    return;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void close0() {
+        try {
+            close();
+        } catch (IOException e) {
+            LOGGER.warn("close", e);
+        }
+    }
+
+    /**
+     * The file is opened when the server asks for it
+     */
+    @NotNull
+    public static ChunkSource of(@NotNull Path path) {
+        return new FileContent(path);
+    }
+
+    /**
+     * A read which gives nothing is done again at once, so the channel has to block
+     * @throws IllegalArgumentException if it is a non-blocking {@link SelectableChannel}, which would keep a reader thread spinning
+     */
+    @NotNull
+    public static ChunkSource of(@NotNull ReadableByteChannel channel) throws IllegalArgumentException {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalArgumentException("Non-blocking channel " + channel);
+        }
+        return new ChannelContent(channel);
+    }
+
+    @NotNull
+    public static ChunkSource of(@NotNull InputStream in) {
+        return new StreamContent(in);
+    }
+
+    /**
+     * Sliced into chunks, released when closed
+     */
+    @NotNull
+    public static ChunkSource of(@NotNull ByteBuf data) {
+        return new BufferContent(data);
+    }
+
+    /**
+     * Rows encoded in the default format of LOAD DATA: fields terminated by tab, lines by newline, escaped by backslash, null as \N.
+     * Values are written as UTF-8, so the statement has CHARACTER SET utf8mb4 unless the database default is.
+     */
+    @NotNull
+    public static ChunkSource ofRows(@NotNull Iterator<? extends Object[]> rows) {
+        return new RowContent(rows);
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * Positional reads into the packet buffer, the file position is not shared
+     */
+    static class FileContent extends ChunkSource {
+
+        @NotNull
+        final Path path;
+
+        FileChannel channel;
+
+        long position;
+
+        FileContent(@NotNull Path path) {
+            super();
+            this.path = path;
+        }
+
+        @Override
+        int read(@NotNull ByteBuf buf, int maxLength) throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            }
+            final int length = buf.writeBytes(channel, position, maxLength);
+            if (length > 0) {
+                position += length;
+            }
+            return length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     */
+    static class ChannelContent extends ChunkSource {
+
+        @NotNull
+        final ReadableByteChannel channel;
+
+        ChannelContent(@NotNull ReadableByteChannel channel) {
+            super();
+            this.channel = channel;
+        }
+
+        /**
+         * One read of the channel, whatever it gives
+         */
+        @Override
+        int read(@NotNull ByteBuf buf, int maxLength) throws IOException {
+            buf.ensureWritable(maxLength);
+            final int length = channel.read(buf.nioBuffer(buf.writerIndex(), maxLength));
+            if (length > 0) {
+                buf.writerIndex(buf.writerIndex() + length);
+            }
+            return length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     */
+    static class StreamContent extends ChunkSource {
+
+        @NotNull
+        final InputStream in;
+
+        StreamContent(@NotNull InputStream in) {
+            super();
+            this.in = in;
+        }
+
+        @Override
+        int read(@NotNull ByteBuf buf, int maxLength) throws IOException {
+            return buf.writeBytes(in, maxLength);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     */
+    static class BufferContent extends ChunkSource {
+
+        @NotNull
+        final ByteBuf data;
+
+        BufferContent(@NotNull ByteBuf data) {
+            super();
+            this.data = data;
+        }
+
+        @Override
+        int read(@NotNull ByteBuf buf, int maxLength) {
+            if (!data.isReadable()) {
+                return -1;
+            }
+            final int length = Math.min(maxLength, data.readableBytes());
+            buf.writeBytes(data, length);
+            return length;
+        }
+
+        @Override
+        public void close() {
+            data.release();
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * Whole rows are encoded until the chunk reaches maxLength, so a chunk may be a row longer than that
+     */
+    static class RowContent extends ChunkSource {
+
+        @NotNull
+        final Iterator<? extends Object[]> rows;
+
+        RowContent(@NotNull Iterator<? extends Object[]> rows) {
+            super();
+            this.rows = rows;
+        }
+
+        @Override
+        int read(@NotNull ByteBuf buf, int maxLength) {
+            if (!rows.hasNext()) {
+                return -1;
+            }
+            final int start = buf.writerIndex();
+            while (buf.writerIndex() - start < maxLength && rows.hasNext()) {
+                final Object[] row = rows.next();
+                for (int index = 0; index < row.length; index++) {
+                    if (index > 0) {
+                        buf.writeByte('\t');
+                    }
+                    writeValue(buf, row[index]);
+                }
+                buf.writeByte('\n');
+            }
+            return buf.writerIndex() - start;
+        }
+
+        static void writeValue(@NotNull ByteBuf buf, Object value) {
+            if (value == null) {
+                buf.writeByte('\\');
+                buf.writeByte('N');
+            } else if (value instanceof Boolean) {
+                buf.writeByte((Boolean) value ? '1' : '0');
+            } else if (value instanceof BigDecimal) {
+                buf.writeCharSequence(((BigDecimal) value).toPlainString(), StandardCharsets.US_ASCII);
+            } else if (value instanceof Number) {
+                buf.writeCharSequence(value.toString(), StandardCharsets.US_ASCII);
+            } else if (value instanceof byte[]) {
+                for (byte b : (byte[]) value) {
+                    writeEscaped(buf, b);
+                }
+            } else {
+                final byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                for (byte b : bytes) {
+                    writeEscaped(buf, b);
+                }
+            }
+        }
+
+        /**
+         * Terminators, the escape and NUL are escaped, multibyte UTF-8 units never match them
+         */
+        static void writeEscaped(@NotNull ByteBuf buf, byte b) {
+            switch (b) {
+                case '\t':
+                    buf.writeByte('\\');
+                    buf.writeByte('t');
+                    break;
+                case '\n':
+                    buf.writeByte('\\');
+                    buf.writeByte('n');
+                    break;
+                case '\r':
+                    buf.writeByte('\\');
+                    buf.writeByte('r');
+                    break;
+                case '\\':
+                    buf.writeByte('\\');
+                    buf.writeByte('\\');
+                    break;
+                case 0:
+                    buf.writeByte('\\');
+                    buf.writeByte('0');
+                    break;
+                default:
+                    buf.writeByte(b);
+            }
+        }
+    }
+}
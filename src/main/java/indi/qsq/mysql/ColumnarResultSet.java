@@ -0,0 +1,472 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Created on 2026/10/17.
+ * A result set stored column by column, in primitive arrays chosen by {@link ResultColumn#type},
+ * instead of one {@link ResultRow} for each row.
+ * Each row is copied into the vectors as it arrives and released, so only one row is alive at a time;
+ * with {@link PreferenceFlags#LAZY_DECODE_TEXT} or {@link PreferenceFlags#LAZY_DECODE_BINARY} nothing is decoded into objects.
+ */
+public class ColumnarResultSet {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    @NotNull
+    final ResultHeader header;
+
+    @NotNull
+    final ColumnVector[] vectors;
+
+    int rowCount;
+
+    int capacity = INITIAL_CAPACITY;
+
+    ResponsePacket.EOF end;
+
+    public ColumnarResultSet(@NotNull ResultHeader header) {
+        super();
+        this.header = header;
+        final int columnCount = header.columnCount();
+        vectors = new ColumnVector[columnCount];
+        for (int index = 0; index < columnCount; index++) {
+            vectors[index] = ColumnVector.of(header.getByIndex(index), INITIAL_CAPACITY);
+        }
+    }
+
+    /**
+     * Statement without result set
+     */
+    public ColumnarResultSet(@NotNull ResponsePacket.EOF end) {
+        this(ResultHeader.empty());
+        this.end = end;
+    }
+
+    /**
+     * Copies the values of the row, the row is not released here
+     */
+    public void append(@NotNull ResultRow row) throws MysqlException {
+        if (rowCount == capacity) {
+            capacity <<= 1;
+            for (ColumnVector vector : vectors) {
+                vector.grow(capacity);
+            }
+        }
+        for (int index = 0; index < vectors.length; index++) {
+            final ResultColumn column = header.getByIndex(index);
+            final ColumnVector vector = vectors[index];
+            if (row.isNull(column)) {
+                vector.nulls[rowCount >>> 6] |= 1L << rowCount;
+                vector.appendNull(rowCount);
+            } else {
+                vector.append(row, column, rowCount);
+            }
+        }
+        rowCount++;
+    }
+
+    /**
+     * Trims the vectors to the row count
+     */
+    public void finish(@NotNull ResponsePacket.EOF end) {
+        this.end = end;
+        capacity = rowCount;
+        for (ColumnVector vector : vectors) {
+            vector.trim(rowCount);
+        }
+    }
+
+    @NotNull
+    public ResultHeader getHeader() {
+        return header;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public ResponsePacket.EOF getEnd() {
+        return end;
+    }
+
+    @NotNull
+    public ColumnVector getVector(@NotNull ResultColumn column) {
+        return vectors[column.index];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ColumnarResultSet[header = %s, rowCount = %d, end = %s]", header, rowCount, end);
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * Values of one column, indexed by row; a NULL value is a zero or empty value marked in the null bitmap
+     */
+    public static abstract class ColumnVector {
+
+        /**
+         * Bit row of word row / 64 is set for NULL
+         */
+        long[] nulls;
+
+        ColumnVector(int capacity) {
+            super();
+            nulls = new long[(capacity + 63) >>> 6];
+        }
+
+        @NotNull
+        static ColumnVector of(@NotNull ResultColumn column, int capacity) {
+            switch (column.type) {
+                case FieldTypes.TINY:
+                case FieldTypes.SHORT:
+                case FieldTypes.INT24:
+                case FieldTypes.YEAR:
+                    return new IntVector(capacity);
+                case FieldTypes.LONG:
+                    if (column.hasFlag(ColumnFlags.UNSIGNED)) {
+                        return new LongVector(capacity);
+                    } else {
+                        return new IntVector(capacity);
+                    }
+                case FieldTypes.LONG_LONG:
+                    return new LongVector(capacity);
+                case FieldTypes.FLOAT:
+                case FieldTypes.DOUBLE:
+                    return new DoubleVector(capacity);
+                case FieldTypes.DATE:
+                case FieldTypes.DATE_TIME:
+                case FieldTypes.TIMESTAMP:
+                    return new DateTimeVector(capacity);
+                case FieldTypes.TIME:
+                    return new TimeVector(capacity);
+                default:
+                    return new BytesVector(capacity);
+            }
+        }
+
+        public boolean isNull(int row) {
+            return (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+
+        void grow(int capacity) {
+            nulls = Arrays.copyOf(nulls, (capacity + 63) >>> 6);
+        }
+
+        void trim(int rowCount) {
+            grow(rowCount);
+        }
+
+        abstract void append(@NotNull ResultRow row, @NotNull ResultColumn column, int index) throws MysqlException;
+
+        void appendNull(int index) {
+            // pass, primitive arrays are zero already
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * TINYINT, SMALLINT, MEDIUMINT, YEAR and signed INT
+     */
+    public static class IntVector extends ColumnVector {
+
+        int[] values;
+
+        IntVector(int capacity) {
+            super(capacity);
+            values = new int[capacity];
+        }
+
+        public int getInteger(int row) {
+            return values[row];
+        }
+
+        /**
+         * @return the backing array, as long as the row count once finished
+         */
+        @NotNull
+        public int[] values() {
+            return values;
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void append(@NotNull ResultRow row, @NotNull ResultColumn column, int index) throws MysqlException {
+            values[index] = row.getInteger(column);
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * BIGINT and unsigned INT; unsigned BIGINT has the same bits, like {@link Long#parseUnsignedLong}
+     */
+    public static class LongVector extends ColumnVector {
+
+        long[] values;
+
+        LongVector(int capacity) {
+            super(capacity);
+            values = new long[capacity];
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        /**
+         * @return the backing array, as long as the row count once finished
+         */
+        @NotNull
+        public long[] values() {
+            return values;
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void append(@NotNull ResultRow row, @NotNull ResultColumn column, int index) throws MysqlException {
+            values[index] = row.getLong(column);
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * FLOAT and DOUBLE
+     */
+    public static class DoubleVector extends ColumnVector {
+
+        double[] values;
+
+        DoubleVector(int capacity) {
+            super(capacity);
+            values = new double[capacity];
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        /**
+         * @return the backing array, as long as the row count once finished
+         */
+        @NotNull
+        public double[] values() {
+            return values;
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void append(@NotNull ResultRow row, @NotNull ResultColumn column, int index) throws MysqlException {
+            values[index] = row.getDouble(column);
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * DATE, DATETIME and TIMESTAMP packed into a long like MySQL does internally, so packed values compare in time order:
+     * ((((year * 13 + month) << 5 | date) << 17 | hour << 12 | minute << 6 | second) << 24) | microsecond
+     */
+    public static class DateTimeVector extends LongVector {
+
+        /**
+         * Reused by {@link #append}, which runs in the event loop only
+         */
+        private final MysqlDateTime scratch = new MysqlDateTime();
+
+        DateTimeVector(int capacity) {
+            super(capacity);
+        }
+
+        public static long pack(@NotNull MysqlDateTime value) {
+            final long ymd = ((long) value.year * 13 + value.month) << 5 | value.date;
+            final long hms = value.hour << 12 | value.minute << 6 | value.second;
+            return (ymd << 17 | hms) << 24 | value.microsecond;
+        }
+
+        public static void unpack(long packed, @NotNull MysqlDateTime value) {
+            value.microsecond = (int) (packed & 0xffffff);
+            final long ymdhms = packed >>> 24;
+            final int hms = (int) (ymdhms & 0x1ffff);
+            value.second = hms & 0x3f;
+            value.minute = (hms >>> 6) & 0x3f;
+            value.hour = hms >>> 12;
+            final long ymd = ymdhms >>> 17;
+            value.date = (int) (ymd & 0x1f);
+            final long ym = ymd >>> 5;
+            value.month = (int) (ym % 13);
+            value.year = (int) (ym / 13);
+        }
+
+        public void getMysqlDateTime(int row, @NotNull MysqlDateTime value) {
+            unpack(values[row], value);
+        }
+
+        @Override
+        void append(@NotNull ResultRow row, @NotNull ResultColumn column, int index) throws MysqlException {
+            row.getMysqlDateTime(column, scratch);
+            values[index] = pack(scratch);
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * TIME packed into a long like MySQL does internally, negated if negative:
+     * ((days * 24 + hour) << 12 | minute << 6 | second) << 24 | microsecond
+     */
+    public static class TimeVector extends LongVector {
+
+        /**
+         * Reused by {@link #append}, which runs in the event loop only
+         */
+        private final MysqlTime scratch = new MysqlTime();
+
+        TimeVector(int capacity) {
+            super(capacity);
+        }
+
+        public static long pack(@NotNull MysqlTime value) {
+            final long hours = (long) value.days * 24 + value.hour;
+            final long packed = (hours << 12 | value.minute << 6 | value.second) << 24 | value.microsecond;
+            return value.isNegative ? -packed : packed;
+        }
+
+        public static void unpack(long packed, @NotNull MysqlTime value) {
+            value.isNegative = packed < 0;
+            if (packed < 0) {
+                packed = -packed;
+            }
+            value.microsecond = (int) (packed & 0xffffff);
+            final long hms = packed >>> 24;
+            value.second = (int) (hms & 0x3f);
+            value.minute = (int) ((hms >>> 6) & 0x3f);
+            final long hours = hms >>> 12;
+            value.days = (int) (hours / 24);
+            value.hour = (int) (hours % 24);
+        }
+
+        public void getMysqlTime(int row, @NotNull MysqlTime value) {
+            unpack(values[row], value);
+        }
+
+        @Override
+        void append(@NotNull ResultRow row, @NotNull ResultColumn column, int index) throws MysqlException {
+            row.getMysqlTime(column, scratch);
+            values[index] = pack(scratch);
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * Strings, blobs, decimals and everything else as sent, back to back in one arena;
+     * value row spans offsets[row] to offsets[row + 1]
+     */
+    public static class BytesVector extends ColumnVector {
+
+        /**
+         * Heap buffer, trimmed when finished
+         */
+        final ByteBuf arena;
+
+        int[] offsets;
+
+        BytesVector(int capacity) {
+            super(capacity);
+            arena = Unpooled.buffer(capacity << 3);
+            offsets = new int[capacity + 1];
+        }
+
+        public int getLength(int row) {
+            return offsets[row + 1] - offsets[row];
+        }
+
+        /**
+         * @return null if NULL
+         */
+        public String getString(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return arena.toString(offsets[row], getLength(row), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return null if NULL
+         */
+        public byte[] getBytes(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return ByteBufUtil.getBytes(arena, offsets[row], getLength(row));
+        }
+
+        /**
+         * For DECIMAL
+         */
+        public double getDouble(int row) throws NumberFormatException, NullPointerException {
+            if (isNull(row)) {
+                throw new NullPointerException();
+            }
+            return NumberParser.parseDouble(arena, offsets[row], getLength(row));
+        }
+
+        /**
+         * @return the backing arena, see {@link #offsets()}
+         */
+        @NotNull
+        public byte[] arena() {
+            return arena.array();
+        }
+
+        /**
+         * @return the backing offsets, one more than the row count once finished
+         */
+        @NotNull
+        public int[] offsets() {
+            return offsets;
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+        }
+
+        @Override
+        void trim(int rowCount) {
+            super.trim(rowCount);
+            arena.capacity(arena.writerIndex());
+        }
+
+        @Override
+        void appendNull(int index) {
+            offsets[index + 1] = offsets[index];
+        }
+
+        @Override
+        void append(@NotNull ResultRow row, @NotNull ResultColumn column, int index) throws MysqlException {
+            row.writeBytes(column, arena);
+            offsets[index + 1] = arena.writerIndex();
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package indi.qsq.mysql;
+
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandler;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Created on 2026/10/17.
+ * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_basic_compression_packet.html
+ * Installed as {@link HandlerNames#COMPRESSION} between {@link HandlerNames#SSL} and {@link HandlerNames#CODEC} after authentication.
+ * Every compressed packet carries a 7 bytes header: compressed length, compressed sequence and uncompressed length,
+ * where uncompressed length 0 means the payload is stored as is.
+ */
+public abstract class CompressionCodec extends ByteToMessageDecoder implements ChannelOutboundHandler {
+
+    static final int HEADER_LENGTH = 7;
+
+    static final int MAX_PAYLOAD_LENGTH = 0xffffff;
+
+    /**
+     * Payloads shorter than this are not worth compressing, MySQL uses 50 (MIN_COMPRESS_LENGTH)
+     */
+    final int threshold;
+
+    /**
+     * Independent of the sequence of the packets inside, reset to 0 when a new command begins
+     */
+    private int sequence;
+
+    protected CompressionCodec(int threshold) {
+        super();
+        this.threshold = threshold;
+    }
+
+    /**
+     * Called by the codec before writing the first packet of a command
+     */
+    void resetSequence() {
+        sequence = 0;
+    }
+
+    /**
+     * @return empty buffer for the output of {@link #compress} and {@link #decompress}
+     */
+    @NotNull
+    protected ByteBuf allocate(@NotNull ByteBufAllocator allocator, int capacity) {
+        return allocator.buffer(capacity);
+    }
+
+    /**
+     * @param in whole source, not modified
+     * @param out compressed data appended
+     */
+    protected abstract void compress(@NotNull ByteBuf in, @NotNull ByteBuf out) throws Exception;
+
+    /**
+     * @param in whole source, not modified
+     * @param out exactly length bytes appended
+     */
+    protected abstract void decompress(@NotNull ByteBuf in, @NotNull ByteBuf out, int length) throws Exception;
+
+    @Override
+    protected void decode(@NotNull ChannelHandlerContext context, @NotNull ByteBuf in, @NotNull List<Object> out) throws Exception {
+        while (in.readableBytes() >= HEADER_LENGTH) {
+            final int index = in.readerIndex();
+            final int compressedLength = in.getUnsignedMediumLE(index);
+            if (in.readableBytes() < HEADER_LENGTH + compressedLength) {
+                break;
+            }
+            sequence = 0xff & (in.getUnsignedByte(index + 3) + 1);
+            final int length = in.getUnsignedMediumLE(index + 4);
+            in.skipBytes(HEADER_LENGTH);
+            if (length == 0) {
+                out.add(in.readRetainedSlice(compressedLength));
+                continue;
+            }
+            final ByteBuf payload = allocate(context.alloc(), length);
+            try {
+                decompress(in.slice(in.readerIndex(), compressedLength), payload, length);
+            } catch (Exception e) {
+                payload.release();
+                throw e;
+            }
+            in.skipBytes(compressedLength);
+            out.add(payload);
+        }
+    }
+
+    @Override
+    public void write(@NotNull ChannelHandlerContext context, Object message, @NotNull ChannelPromise promise) throws Exception {
+        if (message instanceof ByteBuf) {
+            final ByteBuf data = (ByteBuf) message;
+            try {
+                context.write(encode(context, data), promise);
+            } finally {
+                data.release();
+            }
+        } else {
+            context.write(message, promise);
+        }
+    }
+
+    /**
+     * Data longer than {@link #MAX_PAYLOAD_LENGTH} is sent as several compressed packets of consecutive sequence.
+     * A chunk which does not shrink is sent uncompressed.
+     */
+    @NotNull
+    private ByteBuf encode(@NotNull ChannelHandlerContext context, @NotNull ByteBuf data) throws Exception {
+        final CompositeByteBuf packets = context.alloc().compositeBuffer(Integer.MAX_VALUE); // never consolidate
+        try {
+            do {
+                final int length = Math.min(data.readableBytes(), MAX_PAYLOAD_LENGTH);
+                final ByteBuf chunk = data.readSlice(length);
+                ByteBuf compressed = null;
+                if (length >= threshold) {
+                    compressed = allocate(context.alloc(), length / 2 + 0x40);
+                    try {
+                        compress(chunk, compressed);
+                    } catch (Exception e) {
+                        compressed.release();
+                        throw e;
+                    }
+                    if (compressed.readableBytes() >= length) {
+                        compressed.release();
+                        compressed = null;
+                    }
+                }
+                final ByteBuf header = context.alloc().buffer(HEADER_LENGTH);
+                if (compressed != null) {
+                    header.writeMediumLE(compressed.readableBytes());
+                    header.writeByte(sequence);
+                    header.writeMediumLE(length);
+                } else {
+                    header.writeMediumLE(length);
+                    header.writeByte(sequence);
+                    header.writeMediumLE(0);
+                    compressed = chunk.retain();
+                }
+                packets.addComponent(true, header);
+                packets.addComponent(true, compressed);
+                sequence = 0xff & (sequence + 1);
+            } while (data.isReadable());
+            return packets;
+        } catch (Exception e) {
+            packets.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void bind(@NotNull ChannelHandlerContext context, SocketAddress localAddress, @NotNull ChannelPromise promise) {
+        context.bind(localAddress, promise);
+    }
+
+    @Override
+    public void connect(@NotNull ChannelHandlerContext context, SocketAddress remoteAddress, SocketAddress localAddress, @NotNull ChannelPromise promise) {
+        context.connect(remoteAddress, localAddress, promise);
+    }
+
+    @Override
+    public void disconnect(@NotNull ChannelHandlerContext context, @NotNull ChannelPromise promise) {
+        context.disconnect(promise);
+    }
+
+    @Override
+    public void close(@NotNull ChannelHandlerContext context, @NotNull ChannelPromise promise) {
+        context.close(promise);
+    }
+
+    @Override
+    public void deregister(@NotNull ChannelHandlerContext context, @NotNull ChannelPromise promise) {
+        context.deregister(promise);
+    }
+
+    @Override
+    public void read(@NotNull ChannelHandlerContext context) {
+        context.read();
+    }
+
+    @Override
+    public void flush(@NotNull ChannelHandlerContext context) {
+        context.flush();
+    }
+
+    /**
+     * CLIENT_COMPRESS, zlib stream per packet
+     */
+    public static class Deflate extends CompressionCodec {
+
+        private final Deflater deflater;
+
+        private final Inflater inflater = new Inflater();
+
+        public Deflate(int threshold, int level) {
+            super(threshold);
+            deflater = new Deflater(level);
+        }
+
+        @Override
+        protected void compress(@NotNull ByteBuf in, @NotNull ByteBuf out) {
+            deflater.reset();
+            deflater.setInput(in.nioBuffer());
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.ensureWritable(0x100 + (out.capacity() >> 1));
+                final ByteBuffer buffer = out.nioBuffer(out.writerIndex(), out.writableBytes());
+                out.writerIndex(out.writerIndex() + deflater.deflate(buffer));
+            }
+        }
+
+        @Override
+        protected void decompress(@NotNull ByteBuf in, @NotNull ByteBuf out, int length) throws DataFormatException {
+            inflater.reset();
+            inflater.setInput(in.nioBuffer());
+            out.ensureWritable(length);
+            final ByteBuffer buffer = out.nioBuffer(out.writerIndex(), length);
+            while (buffer.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(buffer) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+            }
+            if (buffer.hasRemaining()) {
+                throw new DataFormatException("Compressed packet does not inflate to " + length + " bytes");
+            }
+            out.writerIndex(out.writerIndex() + length);
+        }
+
+        @Override
+        protected void handlerRemoved0(@NotNull ChannelHandlerContext context) {
+            deflater.end();
+            inflater.end();
+        }
+    }
+
+    /**
+     * CLIENT_ZSTD_COMPRESSION_ALGORITHM, one zstd frame per packet.
+     * Requires the optional zstd-jni dependency, which works on direct memory only;
+     * output goes to pooled direct buffers and heap or composite input is copied into one first.
+     */
+    public static class Zstd extends CompressionCodec {
+
+        private final ZstdCompressCtx compressor = new ZstdCompressCtx();
+
+        private final ZstdDecompressCtx decompressor = new ZstdDecompressCtx();
+
+        public Zstd(int threshold, int level) {
+            super(threshold);
+            compressor.setLevel(level);
+        }
+
+        @NotNull
+        @Override
+        protected ByteBuf allocate(@NotNull ByteBufAllocator allocator, int capacity) {
+            return allocator.directBuffer(capacity);
+        }
+
+        @NotNull
+        private static ByteBuf direct(@NotNull ByteBuf in) {
+            if (in.isDirect() && in.nioBufferCount() == 1) {
+                return in.retainedSlice();
+            }
+            final ByteBuf copy = in.alloc().directBuffer(in.readableBytes());
+            copy.writeBytes(in, in.readerIndex(), in.readableBytes());
+            return copy;
+        }
+
+        @Override
+        protected void compress(@NotNull ByteBuf in, @NotNull ByteBuf out) {
+            final ByteBuf src = direct(in);
+            try {
+                out.ensureWritable((int) com.github.luben.zstd.Zstd.compressBound(src.readableBytes()));
+                final int length = compressor.compressDirectByteBuffer(
+                        out.nioBuffer(out.writerIndex(), out.writableBytes()), 0, out.writableBytes(),
+                        src.nioBuffer(), 0, src.readableBytes()
+                );
+                out.writerIndex(out.writerIndex() + length);
+            } finally {
+                src.release();
+            }
+        }
+
+        @Override
+        protected void decompress(@NotNull ByteBuf in, @NotNull ByteBuf out, int length) throws DataFormatException {
+            final ByteBuf src = direct(in);
+            try {
+                out.ensureWritable(length);
+                final int actual = decompressor.decompressDirectByteBuffer(
+                        out.nioBuffer(out.writerIndex(), length), 0, length,
+                        src.nioBuffer(), 0, src.readableBytes()
+                );
+                if (actual != length) {
+                    throw new DataFormatException("Compressed packet does not decompress to " + length + " bytes");
+                }
+                out.writerIndex(out.writerIndex() + length);
+            } finally {
+                src.release();
+            }
+        }
+
+        @Override
+        protected void handlerRemoved0(@NotNull ChannelHandlerContext context) {
+            compressor.close();
+            decompressor.close();
+        }
+    }
+}
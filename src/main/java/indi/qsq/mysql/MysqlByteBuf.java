@@ -7,6 +7,10 @@ import io.netty.buffer.DefaultByteBufHolder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.function.Predicate;
@@ -18,6 +22,13 @@ public class MysqlByteBuf extends DefaultByteBufHolder {
 
     static final int MAX_SIZE = 0x40000;
 
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The high bit of every byte in a long
+     */
+    private static final long NON_ASCII = 0x8080808080808080L;
+
     public MysqlByteBuf(ByteBuf data) {
         super(data);
     }
@@ -177,7 +188,78 @@ public class MysqlByteBuf extends DefaultByteBufHolder {
     }
 
     public String readFixedLengthString(int length) {
-        return content().readCharSequence(length, StandardCharsets.UTF_8).toString();
+        return readFixedLengthString(length, StandardCharsets.UTF_8);
+    }
+
+    public String readFixedLengthString(int length, @NotNull Charset charset) {
+        final ByteBuf data = content();
+        final int index = data.readerIndex();
+        final String string = decodeString(data, index, length, charset);
+        data.readerIndex(index + length);
+        return string;
+    }
+
+    /**
+     * Charsets that encode ASCII as itself, one byte per character
+     */
+    static boolean isAsciiCompatible(@NotNull Charset charset) {
+        return charset == StandardCharsets.UTF_8 || charset == StandardCharsets.US_ASCII
+                || charset == StandardCharsets.ISO_8859_1 || charset == CharacterSets.Charsets.WINDOWS_1252;
+    }
+
+    /**
+     * Checks eight bytes at a time
+     */
+    static boolean isAscii(@NotNull byte[] array, int index, int length) {
+        final int end = index + length;
+        for (; index + Long.BYTES <= end; index += Long.BYTES) {
+            if (((long) LONGS.get(array, index) & NON_ASCII) != 0) {
+                return false;
+            }
+        }
+        for (; index < end; index++) {
+            if (array[index] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isAscii(@NotNull ByteBuf data, int index, int length) {
+        if (data.hasArray()) {
+            return isAscii(data.array(), data.arrayOffset() + index, length);
+        }
+        final int end = index + length;
+        for (; index + Long.BYTES <= end; index += Long.BYTES) {
+            if ((data.getLong(index) & NON_ASCII) != 0) {
+                return false;
+            }
+        }
+        for (; index < end; index++) {
+            if (data.getByte(index) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pure ASCII in an ASCII compatible charset is copied into a compact latin1 String without a decoder
+     */
+    @NotNull
+    static String decodeString(@NotNull ByteBuf data, int index, int length, @NotNull Charset charset) {
+        if (length == 0) {
+            return "";
+        }
+        if (isAsciiCompatible(charset) && isAscii(data, index, length)) {
+            if (data.hasArray()) {
+                return new String(data.array(), data.arrayOffset() + index, length, StandardCharsets.ISO_8859_1);
+            }
+            final byte[] array = new byte[length];
+            data.getBytes(index, array);
+            return new String(array, StandardCharsets.ISO_8859_1);
+        }
+        return data.toString(index, length, charset);
     }
 
     public int writeFixedLengthString(@NotNull String string) {
@@ -228,13 +310,20 @@ public class MysqlByteBuf extends DefaultByteBufHolder {
         data.writeByte(0);
     }
 
-    @NotNull
-    public byte[] readLengthEncodedBytes() {
+    /**
+     * Length of a length encoded string, which can be as long as the rest of the packet
+     */
+    public int readLengthEncodedLength() {
         final long length = readLengthEncodedInteger();
-        if (!(0 <= length && length < MAX_SIZE)) {
+        if (!(0 <= length && length <= content().readableBytes())) {
             throw new RuntimeException();
         }
-        return readFixedLengthBytes((int) length);
+        return (int) length;
+    }
+
+    @NotNull
+    public byte[] readLengthEncodedBytes() {
+        return readFixedLengthBytes(readLengthEncodedLength());
     }
 
     public void writeLengthEncodedBytes(@Nullable byte[] bytes) {
@@ -257,11 +346,7 @@ public class MysqlByteBuf extends DefaultByteBufHolder {
 
     @NotNull
     public String readLengthEncodedHexDump() {
-        final long longLength = readLengthEncodedInteger();
-        if (!(0 <= longLength && longLength < MAX_SIZE)) {
-            throw new RuntimeException();
-        }
-        final int length = (int) longLength;
+        final int length = readLengthEncodedLength();
         final ByteBuf data = content();
         final int start = data.readerIndex();
         final String hexDump = ByteBufUtil.hexDump(data, start, length);
@@ -271,11 +356,12 @@ public class MysqlByteBuf extends DefaultByteBufHolder {
 
     @NotNull
     public String readLengthEncodedString() {
-        final long length = readLengthEncodedInteger();
-        if (!(0 <= length && length < MAX_SIZE)) {
-            throw new RuntimeException();
-        }
-        return readFixedLengthString((int) length);
+        return readFixedLengthString(readLengthEncodedLength());
+    }
+
+    @NotNull
+    public String readLengthEncodedString(@NotNull Charset charset) {
+        return readFixedLengthString(readLengthEncodedLength(), charset);
     }
 
     public void writeLengthEncodedString(String string) {
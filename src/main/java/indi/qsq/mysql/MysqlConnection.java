@@ -3,6 +3,8 @@ package indi.qsq.mysql;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.ByteToMessageDecoder;
@@ -22,8 +24,11 @@ import java.io.Serializable;
 import java.net.SocketAddress;
 import java.security.interfaces.RSAPublicKey;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
 
 /**
  * Created on 2024/5/17.
@@ -33,6 +38,8 @@ public class MysqlConnection {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MysqlConnection.class);
 
+    private static final int[] MARIADB_LAST_STATEMENT_VERSION = {10, 2};
+
     static class AfterConfig implements Cloneable, Serializable {
 
         private static final long serialVersionUID = 0x592D239BB348A508L;
@@ -72,8 +79,41 @@ public class MysqlConnection {
 
         int zstdCompressionLevel;
 
+        /**
+         * Payloads shorter than this are sent uncompressed
+         */
+        int compressionThreshold = 50;
+
+        int deflateCompressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+        /**
+         * Max commands written before the response of the first one completes, 1 means no pipelining
+         */
+        int pipelineDepth = 1;
+
+        /**
+         * Max statements in {@link PreparedStatementCache}, 0 means no cache
+         */
+        int preparedStatementCacheSize;
+
+        /**
+         * Max share of the global max_prepared_stmt_count taken by the cache of one connection
+         */
+        double preparedStatementCacheFraction = 0.1;
+
         int quitTimeout = 3000;
 
+        /**
+         * Payload length of the packets streaming LOCAL INFILE content or {@link ChunkSource} parameter values
+         */
+        int streamChunkSize = 1 << 20;
+
+        /**
+         * Reads chunks of {@link ChunkSource}, {@link ChunkSource#READER} if null
+         */
+        @Nullable
+        transient Executor streamReader;
+
         public AfterConfig() {
             super();
         }
@@ -89,30 +129,109 @@ public class MysqlConnection {
             this.password = that.password;
             this.defaultSchema = that.defaultSchema;
             this.zstdCompressionLevel = that.zstdCompressionLevel;
+            this.compressionThreshold = that.compressionThreshold;
+            this.deflateCompressionLevel = that.deflateCompressionLevel;
+            this.pipelineDepth = that.pipelineDepth;
+            this.preparedStatementCacheSize = that.preparedStatementCacheSize;
+            this.preparedStatementCacheFraction = that.preparedStatementCacheFraction;
             this.quitTimeout = that.quitTimeout;
+            this.streamChunkSize = that.streamChunkSize;
+            this.streamReader = that.streamReader;
         }
 
         public void enableSSL() throws SSLException {
             sslContext = SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE).build();
         }
 
-//        public void enableDeflateCompression() {
-//            capabilitiesFlags |= CapabilitiesFlags.COMPRESS;
-//        }
-//
-//        /**
-//         * If both CLIENT_COMPRESS and CLIENT_ZSTD_COMPRESSION_ALGORITHM are set then zlib is used.
-//         * @param level min = 0, max = 22
-//         */
-//        public void enableZstdCompression(int level) {
-//            if (0 <= level && level < 0x80) {
-//                capabilitiesFlags &= ~CapabilitiesFlags.COMPRESS;
-//                capabilitiesFlags |= CapabilitiesFlags.ZSTD_COMPRESSION_ALGORITHM;
-//                zstdCompressionLevel = level;
-//            } else {
-//                capabilitiesFlags &= ~CapabilitiesFlags.ZSTD_COMPRESSION_ALGORITHM;
-//            }
-//        }
+        public void enableDeflateCompression() {
+            capabilitiesFlags |= CapabilitiesFlags.COMPRESS;
+        }
+
+        /**
+         * @param level min = 1, max = 9, or -1 for zlib default
+         * @param threshold payloads shorter than this are sent uncompressed
+         */
+        public void enableDeflateCompression(int level, int threshold) {
+            enableDeflateCompression();
+            deflateCompressionLevel = level;
+            compressionThreshold = threshold;
+        }
+
+        /**
+         * Allows ';' separated statements in one query, and several result sets from one command, like CALL
+         */
+        public void enableMultiStatements() {
+            capabilitiesFlags |= CapabilitiesFlags.MULTI_STATEMENTS
+                    | CapabilitiesFlags.MULTI_RESULTS
+                    | CapabilitiesFlags.PS_MULTI_RESULTS;
+        }
+
+        /**
+         * The server answers commands strictly in order, so responses are matched to written commands FIFO.
+         * A failing command does not stop the commands written after it.
+         * @param depth max commands in flight
+         */
+        public void enablePipelining(int depth) {
+            pipelineDepth = Math.max(1, depth);
+        }
+
+        /**
+         * Prepares of the same SQL text share one server side statement, closing it releases the lease of a prepare,
+         * it is closed once evicted and released by all its prepares, executions and cursors.
+         * max_prepared_stmt_count is global, so the capacity is also capped to a fraction of it after open.
+         * @param size max statements cached
+         * @param fraction of max_prepared_stmt_count, 0 to skip querying it
+         */
+        public void enablePreparedStatementCache(int size, double fraction) {
+            preparedStatementCacheSize = Math.max(0, size);
+            preparedStatementCacheFraction = fraction;
+        }
+
+        /**
+         * LOAD DATA LOCAL INFILE by {@link MysqlConnection#loadLocalInfile}. Only the content given there is sent,
+         * whatever file the server asks for, and an empty file if none is given.
+         * Nothing is pipelined after a query then, since the server may ask for content.
+         */
+        public void enableLocalInfile() {
+            capabilitiesFlags |= CapabilitiesFlags.LOCAL_FILES;
+        }
+
+        /**
+         * @param chunkSize payload length of each content packet, up to one frame
+         */
+        public void enableLocalInfile(int chunkSize) {
+            enableLocalInfile();
+            setStreamChunkSize(chunkSize);
+        }
+
+        /**
+         * @param chunkSize payload length of each packet of LOCAL INFILE content or long data, up to one frame
+         */
+        public void setStreamChunkSize(int chunkSize) {
+            streamChunkSize = Math.max(1, Math.min(chunkSize, Codec.MAX_PAYLOAD_LENGTH - 16));
+        }
+
+        /**
+         * @param executor runs the reads of streamed content, which may block; never the event loop
+         */
+        public void setStreamReader(@NotNull Executor executor) {
+            streamReader = executor;
+        }
+
+        /**
+         * If both CLIENT_COMPRESS and CLIENT_ZSTD_COMPRESSION_ALGORITHM are set then zlib is used.
+         * Requires the optional zstd-jni dependency.
+         * @param level min = 0, max = 22
+         */
+        public void enableZstdCompression(int level) {
+            if (0 <= level && level < 0x80) {
+                capabilitiesFlags &= ~CapabilitiesFlags.COMPRESS;
+                capabilitiesFlags |= CapabilitiesFlags.ZSTD_COMPRESSION_ALGORITHM;
+                zstdCompressionLevel = level;
+            } else {
+                capabilitiesFlags &= ~CapabilitiesFlags.ZSTD_COMPRESSION_ALGORITHM;
+            }
+        }
 
         public void prepare() {
             capabilitiesFlags |= CapabilitiesFlags.LONG_PASSWORD
@@ -124,11 +243,6 @@ public class MysqlConnection {
                     | CapabilitiesFlags.CONNECT_ATTRS
                     | CapabilitiesFlags.PLUGIN_AUTH_LENENC_CLIENT_DATA
                     | CapabilitiesFlags.DEPRECATE_EOF;
-            capabilitiesFlags &= ~(
-                    CapabilitiesFlags.MULTI_STATEMENTS
-                    | CapabilitiesFlags.MULTI_RESULTS
-                    | CapabilitiesFlags.PS_MULTI_RESULTS
-            );
             if (sslContext != null) {
                 capabilitiesFlags |= CapabilitiesFlags.SSL;
             }
@@ -208,10 +322,12 @@ public class MysqlConnection {
 
     int[] serverVersion;
 
+    boolean mariadb;
+
     ResultHeader resultHeader;
 
-    @NotNull
-    final HashMap<Integer, PreparedStatement> preparedStatementMap = new HashMap<>();
+    @Nullable
+    final PreparedStatementCache statementCache;
 
     MysqlConnection(@NotNull AfterConfig config, @NotNull Channel channel) {
         super();
@@ -222,9 +338,46 @@ public class MysqlConnection {
         this.state = ProtocolStates.SYN;
         final ChannelPipeline pipeline = channel.pipeline();
         pipeline.addLast(HandlerNames.CODEC, new Codec());
+        if (config.preparedStatementCacheSize > 0) {
+            statementCache = new PreparedStatementCache(config.preparedStatementCacheSize);
+            if (config.preparedStatementCacheFraction > 0.0) {
+                openPromise.addListener(future -> {
+                    if (future.isSuccess()) {
+                        limitStatementCache();
+                    }
+                });
+            }
+        } else {
+            statementCache = null;
+        }
         channel.read();
     }
 
+    private void limitStatementCache() {
+        assert statementCache != null;
+        query("SELECT @@max_prepared_stmt_count").addListener((Future<ResultSet> future) -> {
+            if (!future.isSuccess()) {
+                LOGGER.warn("max_prepared_stmt_count", future.cause());
+                return;
+            }
+            final ResultSet resultSet = future.getNow();
+            try {
+                final long max = resultSet.rows.get(0).getLong(resultSet.header.getByIndex(0));
+                final int capacity = (int) Math.min(config.preparedStatementCacheSize, (long) (max * config.preparedStatementCacheFraction));
+                statementCache.setCapacity(capacity);
+            } catch (Exception e) {
+                LOGGER.warn("max_prepared_stmt_count", e);
+            } finally {
+                resultSet.close();
+            }
+        });
+    }
+
+    @Nullable
+    public PreparedStatementCache getStatementCache() {
+        return statementCache;
+    }
+
     public int getState() {
         return state;
     }
@@ -259,7 +412,7 @@ public class MysqlConnection {
     public ChannelFuture writeAndFlush(@NotNull RequestPacket packet, @NotNull Promise<?> promise) {
         return channel.writeAndFlush(packet).addListener(future -> {
             if (!future.isSuccess()) {
-                promise.setFailure(future.cause());
+                promise.tryFailure(future.cause());
             }
         });
     }
@@ -284,6 +437,27 @@ public class MysqlConnection {
         return promise;
     }
 
+    /**
+     * A LOAD DATA LOCAL INFILE statement, the content is streamed when the server asks for the file, see {@link AfterConfig#enableLocalInfile()}.
+     * No command is pipelined after it, since the server would take it as content.
+     * The future fails if the content can not be read; what was sent before is loaded, as the server can not tell.
+     */
+    @NotNull
+    public Future<ResponsePacket.OK> loadLocalInfile(@NotNull String sql, @NotNull ChunkSource content) {
+        final Promise<ResponsePacket.OK> promise = channel.eventLoop().newPromise();
+        promise.addListener(future -> content.closeQuietly()); // by the reader if a chunk is being read
+        if (!hasCapability(CapabilitiesFlags.LOCAL_FILES)) {
+            promise.setFailure(new MysqlException("LOCAL INFILE not enabled"));
+            return promise;
+        }
+        final RequestPacket.Query packet = new RequestPacket.Query();
+        packet.sql = sql;
+        packet.localInfile = content;
+        packet.responseHandler = new PacketCollector.OkCollector(promise);
+        writeAndFlush(packet, promise);
+        return promise;
+    }
+
     @NotNull
     public Future<ResultSet> query(@NotNull String sql) {
         final Promise<ResultSet> promise = channel.eventLoop().newPromise();
@@ -294,6 +468,36 @@ public class MysqlConnection {
         return promise;
     }
 
+    /**
+     * Rows go into column vectors instead of a list, see {@link ColumnarResultSet}
+     */
+    @NotNull
+    public Future<ColumnarResultSet> queryColumnar(@NotNull String sql) {
+        final Promise<ColumnarResultSet> promise = channel.eventLoop().newPromise();
+        final RequestPacket.Query packet = new RequestPacket.Query();
+        packet.sql = sql;
+        packet.responseHandler = new PacketCollector.ColumnarResultSetCollector(promise);
+        writeAndFlush(packet, promise);
+        return promise;
+    }
+
+    /**
+     * With {@link AfterConfig#enableMultiStatements()}, one result set for each statement;
+     * statements without result set have one with no columns, whose end is the OK packet
+     */
+    @NotNull
+    public Future<List<ResultSet>> queryMultiple(@NotNull String sql) {
+        final Promise<List<ResultSet>> promise = channel.eventLoop().newPromise();
+        final RequestPacket.Query packet = new RequestPacket.Query();
+        packet.sql = sql;
+        packet.responseHandler = new PacketCollector.MultipleResultSetCollector(promise);
+        writeAndFlush(packet, promise);
+        return promise;
+    }
+
+    /**
+     * The header consumer accepts every result set of the command, the last end has no {@link ServerStatus#MORE_RESULTS_EXISTS}
+     */
     public void query(@Nullable PacketCollector.ResultHeaderConsumer headerConsumer, @NotNull String sql) {
         final RequestPacket.Query packet = new RequestPacket.Query();
         packet.sql = sql;
@@ -308,29 +512,178 @@ public class MysqlConnection {
         }
     }
 
+    /**
+     * The query is sent when the publisher is subscribed, rows are read from the socket as requested
+     */
+    @NotNull
+    public ResultPublisher queryPublisher(@NotNull String sql) {
+        return new ResultPublisher(headerConsumer -> query(headerConsumer, sql));
+    }
+
+    /**
+     * Prepare, execute once and close, see {@link #prepareAndRun}
+     */
     @NotNull
     public Future<ResponsePacket.EOF> prepareAndExecute(@NotNull String sql, Object... parameterValues) {
-        return channel.eventLoop().newFailedFuture(new MysqlException());
+        final Promise<ResponsePacket.EOF> promise = channel.eventLoop().newPromise();
+        prepareAndRun(sql, parameterValues, new PacketCollector.EndCollector(promise));
+        return promise;
+    }
+
+    /**
+     * Prepare, query once and close, see {@link #prepareAndRun}
+     */
+    @NotNull
+    public Future<ResultSet> prepareAndQuery(@NotNull String sql, Object... parameterValues) {
+        final Promise<ResultSet> promise = channel.eventLoop().newPromise();
+        prepareAndRun(sql, parameterValues, new PacketCollector.ResultSetCollector(promise));
+        return promise;
+    }
+
+    /**
+     * Prepare, query once and close, see {@link #prepareAndRun}
+     */
+    public void prepareAndQuery(@Nullable PacketCollector.ResultHeaderConsumer headerConsumer, @NotNull String sql, Object... parameterValues) {
+        prepareAndRun(sql, parameterValues, new PacketCollector.ResultConsumerCollector(headerConsumer));
+    }
+
+    /**
+     * MariaDB 10.2 and later executes and closes the last prepared statement with id 0xffffffff,
+     * so COM_STMT_PREPARE, COM_STMT_EXECUTE and COM_STMT_CLOSE go out in one flush;
+     * a failed prepare leaves no last statement, the execution fails too and the close is ignored.
+     * Otherwise COM_STMT_EXECUTE and COM_STMT_CLOSE go out in one flush after the prepare response.
+     * With {@link AfterConfig#enablePreparedStatementCache} the statement is taken from the cache and not closed.
+     * @param collector notified of the execution, or cancelled by a failure before it
+     */
+    private void prepareAndRun(@NotNull String sql, @NotNull Object[] values, @NotNull PacketCollector collector) {
+        final Promise<Void> promise = channel.eventLoop().newPromise();
+        promise.addListener(future -> {
+            if (!future.isSuccess()) {
+                collector.cancel(future.cause());
+            }
+        });
+        if (statementCache == null && supportsLastStatementId()) {
+            final PreparedStatement statement = new PreparedStatement(this, ResultHeader.StatementPrepareOK.last(values.length));
+            final RequestPacket.StatementExecute execute = statement.newExecute(values, promise);
+            if (execute == null) {
+                return;
+            }
+            execute.responseHandler = collector;
+            final Promise<ResultHeader.StatementPrepareOK> preparePromise = channel.eventLoop().newPromise();
+            preparePromise.addListener(future -> {
+                if (!future.isSuccess()) {
+                    promise.tryFailure(future.cause());
+                }
+            });
+            final RequestPacket.StatementPrepare prepare = new RequestPacket.StatementPrepare();
+            prepare.sql = sql;
+            prepare.responseHandler = new PacketCollector.StatementPrepareCollector(preparePromise);
+            writeChain(promise, prepare, execute, statement.newClose());
+            return;
+        }
+        prepare(sql).addListener((Future<PreparedStatement> future) -> {
+            if (!future.isSuccess()) {
+                promise.tryFailure(future.cause());
+                return;
+            }
+            final PreparedStatement statement = future.getNow();
+            final RequestPacket.StatementExecute execute = statement.newExecute(values, promise);
+            if (execute == null) {
+                statement.close();
+                return;
+            }
+            execute.responseHandler = collector;
+            if (statement.cached) {
+                writeAndFlush(execute, promise);
+                statement.close(); // the execution holds its own lease
+            } else {
+                writeChain(promise, execute, statement.newClose());
+            }
+        });
+    }
+
+    private boolean supportsLastStatementId() {
+        return mariadb && Arrays.compare(serverVersion, MARIADB_LAST_STATEMENT_VERSION) >= 0;
     }
 
+    /**
+     * Written in one event loop task so that no other command comes in between, and flushed once
+     */
+    private void writeChain(@NotNull Promise<?> promise, @NotNull RequestPacket... packets) {
+        if (!channel.eventLoop().inEventLoop()) {
+            channel.eventLoop().execute(() -> writeChain(promise, packets));
+            return;
+        }
+        final int last = packets.length - 1;
+        for (int index = 0; index < last; index++) {
+            packets[index].chained = true;
+            channel.write(packets[index]).addListener(future -> {
+                if (!future.isSuccess()) {
+                    promise.tryFailure(future.cause());
+                }
+            });
+        }
+        writeAndFlush(packets[last], promise);
+    }
+
+    /**
+     * With {@link AfterConfig#enablePreparedStatementCache}, a cached statement is returned without round trip.
+     * Each prepare takes a lease of it, so close it once when done, an evicted statement is closed after the last lease.
+     */
     @NotNull
-    public Future<ResponsePacket.EOF> prepareAndQuery(@NotNull String sql, Object... parameterValues) {
-        return channel.eventLoop().newFailedFuture(new MysqlException());
+    public Future<PreparedStatement> prepare(@NotNull String sql) {
+        if (statementCache == null) {
+            return prepare(sql, false);
+        }
+        Future<PreparedStatement> future;
+        synchronized (statementCache) {
+            future = statementCache.get(sql);
+            if (future == null) {
+                final Future<PreparedStatement> prepared = future = prepare(sql, true);
+                statementCache.put(sql, prepared);
+                prepared.addListener(f -> {
+                    if (!prepared.isSuccess()) {
+                        statementCache.remove(sql, prepared);
+                    }
+                });
+            }
+        }
+        return lease(sql, future);
     }
 
+    /**
+     * A statement evicted and closed before it is leased is prepared again
+     */
     @NotNull
-    public Future<ResponsePacket.EOF> prepareAndQuery(@Nullable PacketCollector.ResultHeaderConsumer headerConsumer, @NotNull String sql, Object... parameterValues) {
-        return channel.eventLoop().newFailedFuture(new MysqlException());
+    private Future<PreparedStatement> lease(@NotNull String sql, @NotNull Future<PreparedStatement> future) {
+        final Promise<PreparedStatement> promise = channel.eventLoop().newPromise();
+        future.addListener(f -> {
+            if (!future.isSuccess()) {
+                promise.setFailure(future.cause());
+            } else if (future.getNow().acquire()) {
+                promise.setSuccess(future.getNow());
+            } else {
+                final Future<PreparedStatement> again = prepare(sql);
+                again.addListener(f2 -> {
+                    if (again.isSuccess()) {
+                        promise.setSuccess(again.getNow());
+                    } else {
+                        promise.setFailure(again.cause());
+                    }
+                });
+            }
+        });
+        return promise;
     }
 
     @NotNull
-    public Future<PreparedStatement> prepare(String sql) {
+    private Future<PreparedStatement> prepare(@NotNull String sql, boolean cached) {
         final Promise<PreparedStatement> promise1 = channel.eventLoop().newPromise();
         final Promise<ResultHeader.StatementPrepareOK> promise2 = channel.eventLoop().newPromise();
         promise2.addListener(future -> {
             if (promise2.isSuccess()) {
                 PreparedStatement preparedStatement = new PreparedStatement(this, promise2.get());
-                preparedStatementMap.put(preparedStatement.resolved.statementId, preparedStatement);
+                preparedStatement.cached = cached;
                 promise1.setSuccess(preparedStatement);
             } else {
                 promise1.setFailure(promise2.cause());
@@ -339,7 +692,7 @@ public class MysqlConnection {
         final RequestPacket.StatementPrepare packet = new RequestPacket.StatementPrepare();
         packet.sql = sql;
         packet.responseHandler = new PacketCollector.StatementPrepareCollector(promise2);
-        channel.writeAndFlush(packet);
+        writeAndFlush(packet, promise2);
         return promise1;
     }
 
@@ -365,14 +718,72 @@ public class MysqlConnection {
      */
     class Codec extends ByteToMessageDecoder implements ChannelOutboundHandler {
 
+        /**
+         * A frame of this length is followed by another frame of the same payload
+         */
+        static final int MAX_PAYLOAD_LENGTH = 0xffffff;
+
         private final ArrayDeque<RequestPacket> packetQueue = new ArrayDeque<>();
 
+        /**
+         * Commands written and waiting for response, in the order the server answers them.
+         * The first one is active when the state is not {@link ProtocolStates#IDLE}, its response handler is in the pipeline.
+         */
+        private final ArrayDeque<RequestPacket> inflightQueue = new ArrayDeque<>();
+
+        /**
+         * The last packet written is {@link RequestPacket#chained}
+         */
+        private boolean chainNext;
+
+        /**
+         * Frames of a payload which is longer than {@link #MAX_PAYLOAD_LENGTH}, collected until the shorter last frame arrives
+         */
+        private CompositeByteBuf continuation;
+
         /**
          * The sequence-id is incremented with each packet and may wrap around.
          * It starts at 0 and is reset to 0 when a new command begins in the Command Phase.
          */
         private int sequence;
 
+        /**
+         * Installed after authentication if compression is negotiated
+         */
+        private CompressionCodec compression;
+
+        /**
+         * The active response handler accepts a flyweight row, see {@link PacketCollector.ResultHeaderConsumer#acceptsFlyweightRow()};
+         * asked again for each packet, since a cancelled consumer takes flyweight rows from then on
+         */
+        private boolean flyweight;
+
+        @Nullable
+        private PacketCollector activeCollector;
+
+        /**
+         * With {@link #flyweight}, each payload is copied here, so the flyweight row needs neither a new buffer nor a retain.
+         * It stays valid until the next frame is decoded, after the row is fired.
+         */
+        private ByteBuf flyweightPayload;
+
+        private MysqlByteBuf flyweightBuf;
+
+        private ResultRow.RawText flyweightText;
+
+        private ResultRow.RawBinary flyweightBinary;
+
+        /**
+         * Content being sent for a {@link ResponsePacket.LocalInfileRequest}, resumed when the channel is writable
+         */
+        @Nullable
+        private ChunkSource localInfile;
+
+        /**
+         * A chunk of {@link #localInfile} is being read by the stream reader
+         */
+        private boolean localInfileReading;
+
         /**
          * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_basic_packets.html
          *
@@ -386,32 +797,128 @@ public class MysqlConnection {
          */
         @Override
         protected void decode(@NotNull ChannelHandlerContext context, @NotNull ByteBuf in, @NotNull List<Object> out) {
-            while (true) {
-                int readable = in.readableBytes();
-                if (readable < 4) {
-                    break;
-                }
-                int header = in.readIntLE();
-                int length = 0xffffff & header;
-                if (readable < 4 + length) {
-                    in.readerIndex(in.readerIndex() - 4);
-                    break;
+            // one frame per call, so that messages of one response are fired before the next response handler is activated
+            final int readable = in.readableBytes();
+            if (readable < 4) {
+                return;
+            }
+            final int header = in.getIntLE(in.readerIndex());
+            final int length = 0xffffff & header;
+            if (readable < 4 + length) {
+                return;
+            }
+            in.skipBytes(4);
+            sequence = 0xff & (header >> 24);
+            activate(context);
+            flyweight = activeCollector != null && activeCollector.acceptsFlyweightRow();
+            final ByteBuf payload;
+            if (length == MAX_PAYLOAD_LENGTH) {
+                if (continuation == null) {
+                    continuation = context.alloc().compositeBuffer(Integer.MAX_VALUE); // never consolidate
                 }
-                sequence = 0xff & (header >> 24);
-                ByteBuf payload = context.alloc().heapBuffer(length);
-                try {
-                    in.readBytes(payload, length);
+                continuation.addComponent(true, in.readRetainedSlice(length));
+                return;
+            } else if (continuation != null) {
+                continuation.addComponent(true, in.readRetainedSlice(length));
+                payload = continuation;
+                continuation = null;
+            } else if (flyweight) {
+                decodeFlyweight(context, in, length, out);
+                return;
+            } else {
+                payload = readPayload(context, in, length);
+            }
+            try {
+                if (flyweight) {
+                    decodeFlyweight(context, payload, payload.readableBytes(), out);
+                } else {
                     decode(context, new MysqlByteBuf(payload), out);
-                } catch (MysqlException e) {
-                    e.printStackTrace();
-                } finally {
-                    payload.release();
                 }
+            } catch (MysqlException e) {
+                decodeFailed(e);
+            } finally {
+                payload.release();
             }
         }
 
+        /**
+         * The packet is dropped, the command it answers fails and its later packets are still consumed
+         */
+        private void decodeFailed(@NotNull MysqlException e) {
+            LOGGER.error("decode", e);
+            if (activeCollector != null) {
+                activeCollector.cancel(e);
+            }
+        }
+
+        /**
+         * Copies the payload into {@link #flyweightPayload}, shrunk back once a long payload has passed
+         */
+        private void decodeFlyweight(@NotNull ChannelHandlerContext context, @NotNull ByteBuf in, int length, @NotNull List<Object> out) {
+            if (flyweightPayload == null || (flyweightPayload.capacity() > MysqlByteBuf.MAX_SIZE && length <= MysqlByteBuf.MAX_SIZE)) {
+                flyweightPayload = Unpooled.buffer(Math.max(length, 0x100));
+                flyweightBuf = new MysqlByteBuf(flyweightPayload);
+            }
+            flyweightPayload.clear();
+            in.readBytes(flyweightPayload, length);
+            try {
+                decode(context, flyweightBuf, out);
+            } catch (MysqlException e) {
+                decodeFailed(e);
+            }
+        }
+
+        @NotNull
+        private ResultRow newTextRow() {
+            if (flyweight) {
+                if (flyweightText == null) {
+                    flyweightText = new ResultRow.RawText();
+                    flyweightText.flyweight = true;
+                }
+                return flyweightText;
+            } else if (hasPreference(PreferenceFlags.LAZY_DECODE_TEXT)) {
+                return new ResultRow.RawText();
+            } else if (hasPreference(PreferenceFlags.SLOTTED_DECODE)) {
+                return new ResultRow.SlottedText();
+            } else {
+                return new ResultRow.DecodedText();
+            }
+        }
+
+        @NotNull
+        private ResultRow newBinaryRow() {
+            if (flyweight) {
+                if (flyweightBinary == null) {
+                    flyweightBinary = new ResultRow.RawBinary();
+                    flyweightBinary.flyweight = true;
+                }
+                return flyweightBinary;
+            } else if (hasPreference(PreferenceFlags.LAZY_DECODE_BINARY)) {
+                return new ResultRow.RawBinary();
+            } else if (hasPreference(PreferenceFlags.SLOTTED_DECODE)) {
+                return new ResultRow.SlottedBinary();
+            } else {
+                return new ResultRow.DecodedBinary();
+            }
+        }
+
+        /**
+         * With {@link PreferenceFlags#SLICE_PAYLOAD} the payload shares memory with the cumulation buffer, heap or direct.
+         * Both kinds are released by the caller, {@link ResultRow.Raw} retains what it keeps.
+         */
+        @NotNull
+        private ByteBuf readPayload(@NotNull ChannelHandlerContext context, @NotNull ByteBuf in, int length) {
+            if (hasPreference(PreferenceFlags.SLICE_PAYLOAD)) {
+                return in.readRetainedSlice(length);
+            }
+            final ByteBuf payload = context.alloc().heapBuffer(length);
+            in.readBytes(payload, length);
+            return payload;
+        }
+
         private void decode(@NotNull ChannelHandlerContext context, @NotNull MysqlByteBuf buf, @NotNull List<Object> out) throws MysqlException {
             ResponsePacket packet = null;
+            int moreState = ProtocolStates.IDLE; // state of the next result if the end packet has MORE_RESULTS_EXISTS
             switch (getState()) {
                 case ProtocolStates.SYN: {
                     int version = buf.getInt1();
@@ -430,8 +937,10 @@ public class MysqlConnection {
                         if (context.pipeline().get(HandlerNames.AUTH) != null) {
                             throw new MysqlException("Auth handler not self removed on finishing auth");
                         }
+                        compress(context);
                         idle(context);
-                        openPromise.setSuccess();
+                        // after this OK is fired, else a command written by a listener takes it as its response
+                        context.executor().execute(openPromise::setSuccess);
                     } else if (type == ResponsePacket.AuthMoreData.PACKET_HEADER) {
                         packet = new ResponsePacket.AuthMoreData();
                     } else if (type == ResponsePacket.AuthNextFactor.PACKET_HEADER) {
@@ -478,6 +987,7 @@ public class MysqlConnection {
                         setState(ProtocolStates.STATEMENT_PREPARE_COLUMNS);
                     } else {
                         packet = new ResponsePacket.Error();
+                        idle(context);
                     }
                     out.add(packet);
                     break;
@@ -506,7 +1016,7 @@ public class MysqlConnection {
                         out.add(resultHeader);
                     }
                     break;
-                // The query response packet is a meta packet which can be one of: ERR_Packet, OK_Packet, LOCAL INFILE Request (not supported), Text Resultset
+                // The query response packet is a meta packet which can be one of: ERR_Packet, OK_Packet, LOCAL INFILE Request, Text Resultset
                 case ProtocolStates.QUERY: {
                     int type = buf.getInt1();
                     if (type == ResponsePacket.Error.PACKET_HEADER) {
@@ -514,7 +1024,10 @@ public class MysqlConnection {
                         idle(context);
                     } else if (type == ResponsePacket.OK.PACKET_HEADER) {
                         packet = new ResponsePacket.OK();
-                        idle(context);
+                        moreState = ProtocolStates.QUERY;
+                    } else if (type == ResponsePacket.LocalInfileRequest.PACKET_HEADER) {
+                        packet = new ResponsePacket.LocalInfileRequest(); // answered below, then OK or ERR follows
+                        break;
                     } else {
                         packet = resultHeader = new ResultHeader.ResultTextHeader();
                         setState(ProtocolStates.QUERY_COLUMNS);
@@ -531,9 +1044,12 @@ public class MysqlConnection {
                         packet = resultHeader.next(MysqlConnection.this);
                     } else if (type == ResponsePacket.EOF.PACKET_HEADER) {
                         resultHeader.finish();
+                        if (resultHeader.pipeline()) {
+                            out.add(resultHeader);
+                        }
                         if (hasCapability(CapabilitiesFlags.DEPRECATE_EOF)) {
-                            packet = new ResponsePacket.OK();
-                            idle(context);
+                            packet = new ResponsePacket.OK(); // no rows
+                            moreState = ProtocolStates.QUERY;
                         } else {
                             packet = new ResponsePacket.EOF(true);
                             setState(ProtocolStates.QUERY_ROWS);
@@ -543,11 +1059,7 @@ public class MysqlConnection {
                         if (resultHeader.pipeline()) {
                             out.add(resultHeader);
                         }
-                        if (hasPreference(PreferenceFlags.LAZY_DECODE_TEXT)) {
-                            packet = new ResultRow.RawText();
-                        } else {
-                            packet = new ResultRow.DecodedText();
-                        }
+                        packet = newTextRow();
                         setState(ProtocolStates.QUERY_ROWS);
                     }
                     out.add(packet);
@@ -567,11 +1079,9 @@ public class MysqlConnection {
                         } else {
                             packet = new ResponsePacket.EOF(false);
                         }
-                        idle(context);
-                    } else if (hasPreference(PreferenceFlags.LAZY_DECODE_TEXT)) {
-                        packet = new ResultRow.RawText();
+                        moreState = ProtocolStates.QUERY;
                     } else {
-                        packet = new ResultRow.DecodedText();
+                        packet = newTextRow();
                     }
                     out.add(packet);
                     break;
@@ -584,7 +1094,7 @@ public class MysqlConnection {
                         idle(context);
                     } else if (type == ResponsePacket.OK.PACKET_HEADER) {
                         packet = new ResponsePacket.OK();
-                        idle(context);
+                        moreState = ProtocolStates.STATEMENT_EXECUTE;
                     } else {
                         packet = resultHeader = new ResultHeader.ResultBinaryHeader();
                         setState(ProtocolStates.STATEMENT_EXECUTE_COLUMNS);
@@ -592,40 +1102,69 @@ public class MysqlConnection {
                     out.add(packet);
                     break;
                 }
-                case ProtocolStates.STATEMENT_EXECUTE_COLUMNS:
-                    if (buf.getInt1() == ResponsePacket.Error.PACKET_HEADER) {
+                case ProtocolStates.STATEMENT_EXECUTE_COLUMNS: {
+                    int type = buf.getInt1();
+                    if (type == ResponsePacket.Error.PACKET_HEADER) {
                         packet = new ResponsePacket.Error();
                         idle(context);
-                    } else {
+                    } else if (resultHeader.hasNext()) {
                         packet = resultHeader.next(MysqlConnection.this);
-                        if (!resultHeader.hasNext()) {
+                        if (!resultHeader.hasNext() && hasCapability(CapabilitiesFlags.DEPRECATE_EOF)) {
                             resultHeader.finish();
                             setState(ProtocolStates.STATEMENT_EXECUTE_ROWS);
                         }
+                    } else if (type == ResponsePacket.EOF.PACKET_HEADER) {
+                        resultHeader.finish();
+                        if (cursorExists(buf)) { // no rows follow, they are fetched by COM_STMT_FETCH
+                            packet = new ResponsePacket.EOF(false);
+                            idle(context);
+                        } else {
+                            packet = new ResponsePacket.EOF(true);
+                            setState(ProtocolStates.STATEMENT_EXECUTE_ROWS);
+                        }
+                    } else {
+                        throw new MysqlException("Column definitions not terminated");
                     }
                     out.add(packet);
+                    if (resultHeader.pipeline()) {
+                        out.add(resultHeader);
+                    }
                     break;
+                }
+                // Binary rows start with 0x00, the rows are terminated by EOF, or OK with EOF header if EOF is deprecated
                 case ProtocolStates.STATEMENT_EXECUTE_ROWS: {
                     int type = buf.getInt1();
                     if (type == ResponsePacket.Error.PACKET_HEADER) {
                         packet = new ResponsePacket.Error();
                         idle(context);
-                    } else if (type == ResponsePacket.OK.PACKET_HEADER) {
-                        if (!hasCapability(CapabilitiesFlags.DEPRECATE_EOF)) {
-                            throw new MysqlException("EOF not deprecated statement execute");
+                    } else if (type == ResponsePacket.EOF.PACKET_HEADER) {
+                        if (hasCapability(CapabilitiesFlags.DEPRECATE_EOF)) {
+                            packet = new ResponsePacket.OK();
+                        } else {
+                            packet = new ResponsePacket.EOF(false);
                         }
-                        packet = new ResponsePacket.OK();
+                        moreState = ProtocolStates.STATEMENT_EXECUTE;
+                    } else {
+                        packet = newBinaryRow();
+                    }
+                    out.add(packet);
+                    break;
+                }
+                // Binary rows of the open cursor with the header of its execution, the end has LAST_ROW_SENT if the cursor is exhausted
+                case ProtocolStates.STMT_FETCH: {
+                    int type = buf.getInt1();
+                    if (type == ResponsePacket.Error.PACKET_HEADER) {
+                        packet = new ResponsePacket.Error();
                         idle(context);
                     } else if (type == ResponsePacket.EOF.PACKET_HEADER) {
                         if (hasCapability(CapabilitiesFlags.DEPRECATE_EOF)) {
-                            throw new MysqlException("EOF deprecated statement execute");
+                            packet = new ResponsePacket.OK();
+                        } else {
+                            packet = new ResponsePacket.EOF(false);
                         }
-                        packet = new ResponsePacket.EOF(false);
                         idle(context);
-                    } else if (hasPreference(PreferenceFlags.LAZY_DECODE_BINARY)) {
-                        packet = new ResultRow.RawBinary();
                     } else {
-                        packet = new ResultRow.DecodedBinary();
+                        packet = newBinaryRow();
                     }
                     out.add(packet);
                     break;
@@ -633,7 +1172,20 @@ public class MysqlConnection {
             }
             if (packet != null) {
                 packet.read(buf, MysqlConnection.this);
-                LOGGER.info("decode {} {}", packet, sequence);
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("decode {} {}", packet, sequence);
+                }
+                if (packet instanceof ResultHeader.StatementPrepareOK && !resultHeader.hasNext()) {
+                    resultHeader.finish(); // neither parameters nor columns follow
+                    idle(context);
+                }
+                if (moreState != ProtocolStates.IDLE) {
+                    if (((ResponsePacket.EOF) packet).hasStatus(ServerStatus.MORE_RESULTS_EXISTS)) {
+                        setState(moreState);
+                    } else {
+                        idle(context);
+                    }
+                }
             } else {
                 LOGGER.info("decode null {}", ByteBufUtil.prettyHexDump(buf.content()));
                 throw new MysqlException("Fail to decode packet at state " + getState());
@@ -644,10 +1196,119 @@ public class MysqlConnection {
             if (packet instanceof AuthPlugin.NameHolder) {
                 auth(context, ((AuthPlugin.NameHolder) packet).getAuthPluginName());
             }
+            if (packet instanceof ResponsePacket.LocalInfileRequest) {
+                localInfile(context, (ResponsePacket.LocalInfileRequest) packet);
+            }
+        }
+
+        /**
+         * Only the content attached to the active query is sent, an empty file otherwise
+         */
+        private void localInfile(@NotNull ChannelHandlerContext context, @NotNull ResponsePacket.LocalInfileRequest request) {
+            final RequestPacket packet = inflightQueue.peekFirst();
+            if (packet instanceof RequestPacket.Query && ((RequestPacket.Query) packet).localInfile != null) {
+                localInfile = ((RequestPacket.Query) packet).localInfile;
+                writeLocalInfile(context);
+            } else {
+                LOGGER.warn("No content for {}, sending an empty file", request);
+                writeLocalInfileChunk(context, context.alloc().buffer(4).writerIndex(4));
+            }
+        }
+
+        @NotNull
+        private Executor streamReader() {
+            return config.streamReader != null ? config.streamReader : ChunkSource.READER;
+        }
+
+        /**
+         * Reads the next chunk off the event loop, if none is being read and the channel is writable
+         */
+        private void writeLocalInfile(@NotNull ChannelHandlerContext context) {
+            final ChunkSource source = localInfile;
+            if (source == null || localInfileReading || !context.channel().isWritable()) {
+                return;
+            }
+            localInfileReading = true;
+            final ByteBuf data = context.alloc().buffer();
+            data.writerIndex(4);
+            final int chunkSize = config.streamChunkSize;
+            streamReader().execute(() -> {
+                int length;
+                Exception cause = null;
+                try {
+                    length = source.readChunk(data, chunkSize);
+                } catch (Exception e) {
+                    length = -1;
+                    cause = e;
+                }
+                final int result = length;
+                final Exception failure = cause;
+                context.executor().execute(() -> localInfileRead(context, source, data, result, failure));
+            });
+        }
+
+        /**
+         * In event loop, writes the chunk read and reads on, or writes the empty packet after the last one
+         */
+        private void localInfileRead(@NotNull ChannelHandlerContext context, @NotNull ChunkSource source, @NotNull ByteBuf data,
+                                     int length, @Nullable Exception cause) {
+            localInfileReading = false;
+            if (localInfile != source) {
+                data.release(); // channel inactive
+                return;
+            }
+            if (cause != null) {
+                LOGGER.error("localInfileRead", cause);
+                if (activeCollector != null) {
+                    activeCollector.cancel(new MysqlException(cause)); // the server still answers the content sent
+                }
+                data.writerIndex(4);
+            }
+            if (length < 0) {
+                localInfile = null;
+                writeLocalInfileChunk(context, data);
+                return;
+            }
+            if (length > 0) {
+                writeLocalInfileChunk(context, data);
+            } else {
+                data.release();
+            }
+            writeLocalInfile(context);
+        }
+
+        private void writeLocalInfileChunk(@NotNull ChannelHandlerContext context, @NotNull ByteBuf data) {
+            sequence++;
+            try {
+                context.writeAndFlush(frame(context, data));
+            } finally {
+                data.release();
+            }
+        }
+
+        @Override
+        public void channelWritabilityChanged(@NotNull ChannelHandlerContext context) {
+            if (context.channel().isWritable()) {
+                if (localInfile != null) {
+                    writeLocalInfile(context);
+                } else if (packetQueue.peekFirst() instanceof RequestPacket.StatementSendLongData) {
+                    flush(context);
+                }
+            }
+            context.fireChannelWritabilityChanged();
+        }
+
+        /**
+         * The EOF packet to decode has {@link ServerStatus#CURSOR_EXISTS}, sent after the column definitions when a cursor is opened
+         */
+        private boolean cursorExists(@NotNull MysqlByteBuf buf) {
+            final ByteBuf data = buf.content();
+            return hasCapability(CapabilitiesFlags.PROTOCOL_41) && (data.getUnsignedShortLE(data.readerIndex() + 3) & ServerStatus.CURSOR_EXISTS) != 0;
         }
 
         private void handshake(@NotNull ChannelHandlerContext context, @NotNull ResponsePacket.HandshakeV10 handshakeRequest) {
             serverVersion = handshakeRequest.parseVersion();
+            mariadb = handshakeRequest.isMariaDB();
             config.capabilitiesFlags &= handshakeRequest.serverCapabilitiesFlags;
             if (hasCapability(CapabilitiesFlags.SSL)) {
                 LOGGER.info("handshake SSL");
@@ -674,22 +1335,106 @@ public class MysqlConnection {
             context.pipeline().addAfter(context.name(), HandlerNames.AUTH, AuthPlugin.forName(MysqlConnection.this, pluginName));
         }
 
+        /**
+         * The OK packet that finishes authentication is the last one sent uncompressed
+         */
+        private void compress(@NotNull ChannelHandlerContext context) {
+            if (hasCapability(CapabilitiesFlags.COMPRESS)) {
+                compression = new CompressionCodec.Deflate(config.compressionThreshold, config.deflateCompressionLevel);
+            } else if (hasCapability(CapabilitiesFlags.ZSTD_COMPRESSION_ALGORITHM)) {
+                compression = new CompressionCodec.Zstd(config.compressionThreshold, config.zstdCompressionLevel);
+            } else {
+                return;
+            }
+            context.pipeline().addBefore(context.name(), HandlerNames.COMPRESSION, compression);
+        }
+
+        /**
+         * The response of the active command is complete
+         */
         private void idle(@NotNull ChannelHandlerContext context) {
+            if (getState() >= 0) {
+                final RequestPacket packet = inflightQueue.pollFirst();
+                if (packet != null) {
+                    packet.done();
+                }
+            }
             setState(ProtocolStates.IDLE);
             context.executor().execute(() -> flush(context));
         }
 
+        /**
+         * Make the first command in flight active, if the previous response is complete.
+         * A previous response handler which is not removed by itself is removed here.
+         */
+        private void activate(@NotNull ChannelHandlerContext context) {
+            final RequestPacket packet = inflightQueue.peekFirst();
+            if (packet == null || getState() != ProtocolStates.IDLE) {
+                return;
+            }
+            final ChannelPipeline pipeline = context.pipeline();
+            if (pipeline.get(HandlerNames.COLLECTOR) != null) {
+                pipeline.remove(HandlerNames.COLLECTOR);
+            }
+            if (packet.responseHandler != null) {
+                pipeline.addLast(HandlerNames.COLLECTOR, packet.responseHandler);
+            }
+            activeCollector = packet.responseHandler instanceof PacketCollector ? (PacketCollector) packet.responseHandler : null;
+            if (packet instanceof RequestPacket.StatementFetch) {
+                resultHeader = ((RequestPacket.StatementFetch) packet).header; // rows are decoded with the columns of the execution
+            }
+            setState(packet.getCommand());
+        }
+
+        /**
+         * Reads on while the response handler has demand, see {@link PacketCollector#wantsRead()}
+         */
         @Override
         public void channelReadComplete(@NotNull ChannelHandlerContext context) {
-            context.read();
+            final ChannelHandler collector = context.pipeline().get(HandlerNames.COLLECTOR);
+            if (hasPreference(PreferenceFlags.AUTO_READ) || !(collector instanceof PacketCollector) || ((PacketCollector) collector).wantsRead()) {
+                context.read();
+            }
         }
 
         @Override
         public void channelInactive(@NotNull ChannelHandlerContext context) {
-            openPromise.tryFailure(new MysqlException("Channel inactive"));
+            final MysqlException cause = new MysqlException("Channel inactive");
+            openPromise.tryFailure(cause);
+            localInfile = null;
+            for (RequestPacket packet : packetQueue) {
+                packet.tryFailure(cause);
+                cancel(packet, cause);
+                if (packet instanceof RequestPacket.StatementExecute) {
+                    RequestPacket.StatementExecute.closeLongData(((RequestPacket.StatementExecute) packet).values);
+                } else if (packet instanceof RequestPacket.StatementSendLongData) {
+                    ((RequestPacket.StatementSendLongData) packet).releaseChunk();
+                }
+            }
+            packetQueue.clear();
+            if (getState() >= 0) {
+                final RequestPacket packet = inflightQueue.pollFirst(); // active, its response handler is notified by the pipeline
+                if (packet != null) {
+                    packet.done();
+                }
+            }
+            for (RequestPacket packet : inflightQueue) {
+                cancel(packet, cause);
+            }
+            inflightQueue.clear();
             context.fireChannelInactive();
         }
 
+        /**
+         * The response handler of the packet will never be added to the pipeline
+         */
+        private void cancel(@NotNull RequestPacket packet, @NotNull Throwable cause) {
+            if (packet.responseHandler instanceof PacketCollector) {
+                ((PacketCollector) packet.responseHandler).cancel(cause);
+            }
+            packet.done();
+        }
+
         @Override
         public void userEventTriggered(@NotNull ChannelHandlerContext context, Object event) {
             if (event instanceof SslHandshakeCompletionEvent) {
@@ -742,7 +1487,9 @@ public class MysqlConnection {
                 RequestPacket packet = (RequestPacket) message;
                 packet.writePromise = promise;
                 packetQueue.addLast(packet);
-                flush(context);
+                if (!packet.chained) {
+                    flush(context);
+                }
             } else {
                 context.write(message, promise);
             }
@@ -750,29 +1497,172 @@ public class MysqlConnection {
 
         @Override
         public void flush(@NotNull ChannelHandlerContext context) {
-            if (getState() >= 0) {
-                return;
-            }
+            boolean written = false;
             while (!packetQueue.isEmpty()) {
-                RequestPacket packet = packetQueue.removeFirst();
-                packet = normalize(packet);
-                if (packet != null) {
-                    int command = packet.getCommand();
-                    if (command >= 0) {
-                        sequence = 0;
-                    } else {
-                        sequence++;
+                if (inflightQueue.isEmpty() ? getState() >= 0 : !canPipeline()) {
+                    break;
+                }
+                RequestPacket packet = normalize(packetQueue.removeFirst());
+                if (packet == null) {
+                    continue;
+                }
+                if (packet instanceof RequestPacket.StatementExecute) {
+                    final RequestPacket.StatementExecute execute = (RequestPacket.StatementExecute) packet;
+                    if (execute.longDataCause != null) {
+                        packetQueue.addFirst(reset(execute));
+                        continue;
+                    }
+                    if (!execute.longDataQueued && execute.queueLongData(packetQueue)) {
+                        continue;
+                    }
+                }
+                if (packet instanceof RequestPacket.StatementSendLongData) {
+                    final RequestPacket.StatementSendLongData longData = (RequestPacket.StatementSendLongData) packet;
+                    if (longData.execute.longDataCause != null) {
+                        longData.releaseChunk();
+                        longData.data.closeQuietly();
+                        continue;
                     }
+                    if (longData.chunk != null) {
+                        if (!context.channel().isWritable()) {
+                            packetQueue.addFirst(packet);
+                            break; // resumed by channelWritabilityChanged
+                        }
+                        writeLongData(context, longData);
+                        written = true;
+                    }
+                    if (longData.ended) {
+                        longData.data.closeQuietly();
+                        continue;
+                    }
+                    if (!longData.reading) {
+                        readLongData(context, longData);
+                    }
+                    packetQueue.addFirst(packet);
+                    break; // resumed when the chunk is read
+                }
+                int command = packet.getCommand();
+                if (command >= 0) {
+                    sequence = 0;
+                    if (compression != null) {
+                        compression.resetSequence();
+                    }
+                } else {
+                    sequence++;
+                }
+                write(context, packet);
+                written = true;
+                chainNext = packet.chained;
+                if (packet.writePromise.cause() != null) {
+                    cancel(packet, packet.writePromise.cause());
+                    continue;
+                }
+                if (command < 0) {
+                    // connection phase, never pipelined
                     if (packet.responseHandler != null) {
                         context.pipeline().addLast(HandlerNames.COLLECTOR, packet.responseHandler);
                     }
-                    writeAndFlush(context, packet);
                     setState(command);
                     break;
                 }
+                if (packet.hasResponse()) {
+                    inflightQueue.addLast(packet);
+                    activate(context);
+                }
+            }
+            if (written) {
+                context.flush();
+            }
+        }
+
+        /**
+         * Reads the next chunk off the event loop into a packet after the header
+         */
+        private void readLongData(@NotNull ChannelHandlerContext context, @NotNull RequestPacket.StatementSendLongData packet) {
+            packet.reading = true;
+            final ByteBuf data = context.alloc().buffer();
+            data.writerIndex(4);
+            packet.write(new MysqlByteBuf(data), MysqlConnection.this);
+            final int chunkSize = config.streamChunkSize;
+            streamReader().execute(() -> {
+                int length;
+                Exception cause = null;
+                try {
+                    length = packet.data.readChunk(data, chunkSize);
+                } catch (Exception e) {
+                    length = -1;
+                    cause = e;
+                }
+                final int result = length;
+                final Exception failure = cause;
+                context.executor().execute(() -> longDataRead(context, packet, data, result, failure));
+            });
+        }
+
+        /**
+         * In event loop, keeps the chunk read for {@link #flush}; the first packet is sent even if the data is empty
+         */
+        private void longDataRead(@NotNull ChannelHandlerContext context, @NotNull RequestPacket.StatementSendLongData packet, @NotNull ByteBuf data,
+                                  int length, @Nullable Exception cause) {
+            packet.reading = false;
+            if (!context.channel().isActive()) {
+                data.release(); // dropped from the queue
+                packet.data.closeQuietly();
+                return;
+            }
+            if (cause != null) {
+                LOGGER.error("longDataRead {}", packet, cause);
+                packet.execute.longDataCause = cause;
+                data.release();
+            } else if (length > 0 || length < 0 && packet.chunkCount == 0) {
+                packet.chunk = data;
+            } else {
+                data.release();
+            }
+            packet.ended = length < 0;
+            flush(context);
+        }
+
+        /**
+         * Writes the chunk read as a packet of its own, every chunk is a command
+         */
+        private void writeLongData(@NotNull ChannelHandlerContext context, @NotNull RequestPacket.StatementSendLongData packet) {
+            final ByteBuf data = packet.chunk;
+            packet.chunk = null;
+            try {
+                packet.chunkCount++;
+                sequence = 0;
+                if (compression != null) {
+                    compression.resetSequence();
+                }
+                context.write(frame(context, data));
+            } finally {
+                data.release();
             }
         }
 
+        /**
+         * Replaces an execution whose long data failed, the server drops the chunks received
+         */
+        @NotNull
+        private RequestPacket.StatementReset reset(@NotNull RequestPacket.StatementExecute execute) {
+            RequestPacket.StatementExecute.closeLongData(execute.values);
+            final MysqlException cause = new MysqlException(execute.longDataCause);
+            execute.tryFailure(cause);
+            cancel(execute, cause);
+            final RequestPacket.StatementReset reset = new RequestPacket.StatementReset();
+            reset.statementId = execute.statementId;
+            return reset;
+        }
+
+        private boolean canPipeline() {
+            final RequestPacket last = inflightQueue.peekLast();
+            if (last instanceof RequestPacket.Query && hasCapability(CapabilitiesFlags.LOCAL_FILES)) {
+                return false; // any query may be LOAD DATA LOCAL, the server would take the next command as content
+            }
+            return (chainNext || inflightQueue.size() < config.pipelineDepth) && openPromise.isSuccess() && packetQueue.peekFirst().getCommand() >= 0;
+        }
+
         private RequestPacket normalize(RequestPacket packet) {
             if (packet instanceof RequestPacket.AuthNextFactor) {
                 RequestPacket.AuthNextFactor authNextFactor = (RequestPacket.AuthNextFactor) packet;
@@ -803,13 +1693,19 @@ public class MysqlConnection {
         }
 
         private ChannelPromise writeAndFlush(@NotNull ChannelHandlerContext context, @NotNull RequestPacket packet) {
+            final ChannelPromise promise = write(context, packet);
+            context.flush();
+            return promise;
+        }
+
+        private ChannelPromise write(@NotNull ChannelHandlerContext context, @NotNull RequestPacket packet) {
             if (packet.writePromise == null) {
                 packet.writePromise = context.newPromise();
             }
             try {
-                context.writeAndFlush(encode(context, packet), packet.writePromise);
+                context.write(encode(context, packet), packet.writePromise);
             } catch (Exception e) {
-                LOGGER.error("writeAndFlush", e);
+                LOGGER.error("write", e);
                 packet.writePromise.setFailure(e);
             }
             return packet.writePromise;
@@ -822,12 +1718,56 @@ public class MysqlConnection {
             try {
                 data.writerIndex(4);
                 packet.write(new MysqlByteBuf(data), MysqlConnection.this);
-                data.setIntLE(0, data.writerIndex() - 4);
-                data.setByte(3, sequence);
-                return data.retain();
+                return frame(context, data);
             } finally {
                 data.release();
             }
         }
+
+        /**
+         * @param data payload after 4 bytes reserved for the header, not released
+         * @return retained frames with the current sequence
+         */
+        @NotNull
+        private ByteBuf frame(@NotNull ChannelHandlerContext context, @NotNull ByteBuf data) {
+            if (data.writerIndex() - 4 >= MAX_PAYLOAD_LENGTH) {
+                return split(context, data);
+            }
+            data.setIntLE(0, data.writerIndex() - 4);
+            data.setByte(3, sequence);
+            return data.retain();
+        }
+
+        /**
+         * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_basic_packets.html#sect_protocol_basic_packets_sending_mt_16mb
+         * The payload is sent as frames of {@link #MAX_PAYLOAD_LENGTH} bytes, terminated by a shorter frame which may be empty.
+         * Every frame takes the next sequence, frames are slices of the encoded data.
+         */
+        @NotNull
+        private ByteBuf split(@NotNull ChannelHandlerContext context, @NotNull ByteBuf data) {
+            final CompositeByteBuf frames = context.alloc().compositeBuffer(Integer.MAX_VALUE); // never consolidate
+            int index = 4;
+            while (true) {
+                int length = Math.min(data.writerIndex() - index, MAX_PAYLOAD_LENGTH);
+                ByteBuf header = context.alloc().buffer(4);
+                header.writeMediumLE(length);
+                header.writeByte(sequence);
+                frames.addComponent(true, header);
+                frames.addComponent(true, data.retainedSlice(index, length));
+                index += length;
+                if (length < MAX_PAYLOAD_LENGTH) {
+                    return frames;
+                }
+                sequence++;
+            }
+        }
+
+        @Override
+        protected void handlerRemoved0(@NotNull ChannelHandlerContext context) {
+            if (continuation != null) {
+                continuation.release();
+                continuation = null;
+            }
+        }
     }
 }
@@ -1,5 +1,6 @@
 package indi.qsq.mysql;
 
+import io.netty.buffer.ByteBuf;
 import org.jetbrains.annotations.NotNull;
 
 import java.time.LocalDate;
@@ -7,8 +8,6 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Created on 2024/5/28.
@@ -111,34 +110,96 @@ public class MysqlDateTime extends PacketObject {
         microsecond = 1000 * calendar.get(Calendar.MILLISECOND); // 1000 us = 1 ms
     }
 
-    private static final Pattern PATTERN = Pattern.compile("^\\s*(\\d+)-(\\d+)-(\\d+)( (\\d+):(\\d+):(\\d+)(\\.\\d+)?)?\\s*$");
-
     /**
+     * Accepts "yyyy-MM-dd" and "yyyy-MM-dd HH:mm:ss[.ffffff]" with any number of digits in each field,
+     * and whitespace around; digits of the fraction after microseconds are truncated
      * @param string do not mark it @NotNull, expect it to throw NullPointerException
      */
     public void parse(CharSequence string) throws NullPointerException, NumberFormatException {
-        final Matcher matcher = PATTERN.matcher(string);
-        if (matcher.matches()) {
-            year = Integer.parseInt(matcher.group(1));
-            month = Integer.parseInt(matcher.group(2));
-            date = Integer.parseInt(matcher.group(3));
-            if (matcher.start(4) != matcher.end(4)) {
-                hour = Integer.parseInt(matcher.group(5));
-                minute = Integer.parseInt(matcher.group(6));
-                second = Integer.parseInt(matcher.group(7));
-                if (matcher.start(8) != matcher.end(8)) {
-                    microsecond = ResultRow.parseMantissaInt(string, matcher.start(8) + 1, matcher.end(8), 6); // 10^6 us = 1 s
-                } else {
-                    microsecond = 0;
+        parse(NumberParser.array(string), 0, string.length());
+    }
+
+    /**
+     * Parses a value of {@link ResultRow.RawText} in place
+     */
+    void parse(@NotNull ByteBuf data, int index, int length) throws NumberFormatException {
+        parse(NumberParser.array(data, index, length), NumberParser.offset(data, index), length);
+    }
+
+    /**
+     * The fields are not changed if invalid
+     */
+    private void parse(@NotNull byte[] data, int start, int length) throws NumberFormatException {
+        int index = start;
+        int end = start + length;
+        while (index < end && NumberParser.isWhitespace(data[index])) {
+            index++;
+        }
+        while (index < end && NumberParser.isWhitespace(data[end - 1])) {
+            end--;
+        }
+        int next = NumberParser.digitsEnd(data, index, end);
+        final int year = NumberParser.parseDigits(data, index, next);
+        if (year < 0 || next == end || data[next] != '-') {
+            throw NumberParser.invalid(data, start, length);
+        }
+        index = next + 1;
+        next = NumberParser.digitsEnd(data, index, end);
+        final int month = NumberParser.parseDigits(data, index, next);
+        if (month < 0 || next == end || data[next] != '-') {
+            throw NumberParser.invalid(data, start, length);
+        }
+        index = next + 1;
+        next = NumberParser.digitsEnd(data, index, end);
+        final int date = NumberParser.parseDigits(data, index, next);
+        if (date < 0) {
+            throw NumberParser.invalid(data, start, length);
+        }
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int microsecond = 0;
+        if (next != end) {
+            if (data[next] != ' ') {
+                throw NumberParser.invalid(data, start, length);
+            }
+            index = next + 1;
+            next = NumberParser.digitsEnd(data, index, end);
+            hour = NumberParser.parseDigits(data, index, next);
+            if (hour < 0 || next == end || data[next] != ':') {
+                throw NumberParser.invalid(data, start, length);
+            }
+            index = next + 1;
+            next = NumberParser.digitsEnd(data, index, end);
+            minute = NumberParser.parseDigits(data, index, next);
+            if (minute < 0 || next == end || data[next] != ':') {
+                throw NumberParser.invalid(data, start, length);
+            }
+            index = next + 1;
+            next = NumberParser.digitsEnd(data, index, end);
+            second = NumberParser.parseDigits(data, index, next);
+            if (second < 0) {
+                throw NumberParser.invalid(data, start, length);
+            }
+            if (next != end) {
+                if (data[next] != '.') {
+                    throw NumberParser.invalid(data, start, length);
+                }
+                index = next + 1;
+                next = NumberParser.digitsEnd(data, index, end);
+                microsecond = NumberParser.parseFraction(data, index, next, 6); // 10^6 us = 1 s
+                if (microsecond < 0 || next != end) {
+                    throw NumberParser.invalid(data, start, length);
                 }
-            } else {
-                hour = 0;
-                minute = 0;
-                second = 0;
             }
-        } else {
-            throw new NumberFormatException();
         }
+        this.year = year;
+        this.month = month;
+        this.date = date;
+        this.hour = hour;
+        this.minute = minute;
+        this.second = second;
+        this.microsecond = microsecond;
     }
 
     /**
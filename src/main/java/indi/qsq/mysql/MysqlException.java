@@ -16,4 +16,8 @@ public class MysqlException extends RuntimeException {
     public MysqlException(@NotNull String message) {
         super(message);
     }
+
+    public MysqlException(@NotNull Throwable cause) {
+        super(cause);
+    }
 }
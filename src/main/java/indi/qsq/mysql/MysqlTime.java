@@ -1,10 +1,8 @@
 package indi.qsq.mysql;
 
+import io.netty.buffer.ByteBuf;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Created on 2024/5/28.
  */
@@ -27,6 +25,7 @@ public class MysqlTime extends PacketObject {
     }
 
     public void set(@NotNull MysqlTime that) {
+        this.isNegative = that.isNegative;
         this.days = that.days;
         this.hour = that.hour;
         this.minute = that.minute;
@@ -34,25 +33,67 @@ public class MysqlTime extends PacketObject {
         this.microsecond = that.microsecond;
     }
 
-    private static final Pattern PATTERN = Pattern.compile("^(\\d+):(\\d+):(\\d+)(\\.\\d+)?$");
-
     /**
+     * Accepts "[-]HH:mm:ss[.ffffff]" with any number of digits in each field; hours of a day or more are split into days,
+     * like the binary protocol; digits of the fraction after microseconds are truncated
      * @param string do not mark it @NotNull, expect it to throw NullPointerException
      */
     public void parse(CharSequence string) throws NullPointerException, NumberFormatException {
-        final Matcher matcher = PATTERN.matcher(string);
-        if (matcher.matches()) {
-            hour = Integer.parseInt(matcher.group(1));
-            minute = Integer.parseInt(matcher.group(2));
-            second = Integer.parseInt(matcher.group(3));
-            if (matcher.start(4) != matcher.end(4)) {
-                microsecond = ResultRow.parseMantissaInt(string, matcher.start(4) + 1, matcher.end(4), 6); // 10^6 us = 1 s
-            } else {
-                microsecond = 0;
+        parse(NumberParser.array(string), 0, string.length());
+    }
+
+    /**
+     * Parses a value of {@link ResultRow.RawText} in place
+     */
+    void parse(@NotNull ByteBuf data, int index, int length) throws NumberFormatException {
+        parse(NumberParser.array(data, index, length), NumberParser.offset(data, index), length);
+    }
+
+    /**
+     * The fields are not changed if invalid
+     */
+    private void parse(@NotNull byte[] data, int start, int length) throws NumberFormatException {
+        int index = start;
+        final int end = start + length;
+        final boolean isNegative = index < end && data[index] == '-';
+        if (isNegative) {
+            index++;
+        }
+        int next = NumberParser.digitsEnd(data, index, end);
+        final int hours = NumberParser.parseDigits(data, index, next);
+        if (hours < 0 || next == end || data[next] != ':') {
+            throw NumberParser.invalid(data, start, length);
+        }
+        index = next + 1;
+        next = NumberParser.digitsEnd(data, index, end);
+        final int minute = NumberParser.parseDigits(data, index, next);
+        if (minute < 0 || next == end || data[next] != ':') {
+            throw NumberParser.invalid(data, start, length);
+        }
+        index = next + 1;
+        next = NumberParser.digitsEnd(data, index, end);
+        final int second = NumberParser.parseDigits(data, index, next);
+        if (second < 0) {
+            throw NumberParser.invalid(data, start, length);
+        }
+        int microsecond = 0;
+        if (next != end) {
+            if (data[next] != '.') {
+                throw NumberParser.invalid(data, start, length);
+            }
+            index = next + 1;
+            next = NumberParser.digitsEnd(data, index, end);
+            microsecond = NumberParser.parseFraction(data, index, next, 6); // 10^6 us = 1 s
+            if (microsecond < 0 || next != end) {
+                throw NumberParser.invalid(data, start, length);
             }
-        } else {
-            throw new NumberFormatException();
         }
+        this.isNegative = isNegative;
+        this.days = hours / 24;
+        this.hour = hours % 24;
+        this.minute = minute;
+        this.second = second;
+        this.microsecond = microsecond;
     }
 
     /**
@@ -124,7 +165,7 @@ public class MysqlTime extends PacketObject {
             buf.writeInt1(hour);
             buf.writeInt1(minute);
             buf.writeInt1(second);
-            buf.writeInt1(microsecond);
+            buf.writeInt4(microsecond);
         }
     }
 }
@@ -0,0 +1,486 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Created on 2026/10/17.
+ * Parses numbers of the text protocol straight from the bytes of a value, without building a String.
+ * Accepts what {@link Long#parseLong} and {@link Double#parseDouble} accept for the digits MySQL sends,
+ * and throws {@link NumberFormatException} likewise.
+ */
+final class NumberParser {
+
+    /**
+     * (2 ^ 64 - 1) / 10, the last digit of 2 ^ 64 - 1 is 5
+     */
+    private static final long UNSIGNED_LONG_LIMIT = 1844674407370955161L;
+
+    /**
+     * Exactly representable powers of ten
+     */
+    private static final double[] DOUBLE_POWERS = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] FLOAT_POWERS = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /**
+     * Significant digits kept in a long mantissa without overflow
+     */
+    private static final int MAX_MANTISSA_DIGITS = 19;
+
+    /**
+     * Longer than DECIMAL(65, 30) with sign and point
+     */
+    private static final int SCRATCH_LENGTH = 0x80;
+
+    /**
+     * Values of a direct buffer are copied here first, so that each byte is read without the checks of {@link ByteBuf#getByte}
+     */
+    private static final FastThreadLocal<byte[]> SCRATCH = new FastThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[SCRATCH_LENGTH];
+        }
+    };
+
+    private NumberParser() {
+        super();
+    }
+
+    @NotNull
+    static NumberFormatException invalid(@NotNull byte[] data, int index, int length) {
+        return new NumberFormatException("For input string: \"" + new String(data, index, length, StandardCharsets.UTF_8) + "\"");
+    }
+
+    /**
+     * @return the backing array, a thread local copy, or a new copy if too long; the value starts at {@link #offset}
+     */
+    @NotNull
+    static byte[] array(@NotNull ByteBuf data, int index, int length) {
+        if (data.hasArray()) {
+            if (index < 0 || length < 0 || index + length > data.capacity()) {
+                throw new IndexOutOfBoundsException("index " + index + " length " + length + " capacity " + data.capacity());
+            }
+            return data.array();
+        }
+        final byte[] array = length <= SCRATCH_LENGTH ? SCRATCH.get() : new byte[length];
+        data.getBytes(index, array, 0, length);
+        return array;
+    }
+
+    static int offset(@NotNull ByteBuf data, int index) {
+        return data.hasArray() ? data.arrayOffset() + index : 0;
+    }
+
+    /**
+     * @param data do not mark it @NotNull, expect it to throw NullPointerException
+     * @return a thread local copy, or a new copy if too long, starting at 0; chars out of ASCII become 0, which no scanner accepts
+     */
+    @NotNull
+    static byte[] array(CharSequence data) throws NullPointerException {
+        final int length = data.length();
+        final byte[] array = length <= SCRATCH_LENGTH ? SCRATCH.get() : new byte[length];
+        for (int index = 0; index < length; index++) {
+            final char ch = data.charAt(index);
+            array[index] = ch < 0x80 ? (byte) ch : 0;
+        }
+        return array;
+    }
+
+    /**
+     * Whitespace of {@code \s} in {@link java.util.regex.Pattern}
+     */
+    static boolean isWhitespace(byte ch) {
+        return ch == ' ' || ('\t' <= ch && ch <= '\r');
+    }
+
+    /**
+     * @return the index after the run of digits from index
+     */
+    static int digitsEnd(@NotNull byte[] data, int index, int end) {
+        while (index < end && '0' <= data[index] && data[index] <= '9') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @param end after the digits, from {@link #digitsEnd}
+     * @return -1 if no digits or over {@link Integer#MAX_VALUE}
+     */
+    static int parseDigits(@NotNull byte[] data, int index, int end) {
+        if (index == end) {
+            return -1;
+        }
+        long value = 0;
+        for (; index < end; index++) {
+            value = value * 10 + (data[index] - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * Digits after the point, scaled to magnitude digits; further digits are truncated
+     * @param end after the digits, from {@link #digitsEnd}
+     * @return -1 if no digits
+     */
+    static int parseFraction(@NotNull byte[] data, int index, int end, int magnitude) {
+        if (index == end) {
+            return -1;
+        }
+        int value = 0;
+        for (int count = 0; count < magnitude; count++) {
+            value *= 10;
+            if (index < end) {
+                value += data[index++] - '0';
+            }
+        }
+        return value;
+    }
+
+    static long parseLong(@NotNull ByteBuf data, int index, int length, boolean unsigned) throws NumberFormatException {
+        return parseLong(array(data, index, length), offset(data, index), length, unsigned);
+    }
+
+    static int parseInt(@NotNull ByteBuf data, int index, int length, boolean unsigned) throws NumberFormatException {
+        return parseInt(array(data, index, length), offset(data, index), length, unsigned);
+    }
+
+    static double parseDouble(@NotNull ByteBuf data, int index, int length) throws NumberFormatException {
+        return parseDecimal(array(data, index, length), offset(data, index), length, false);
+    }
+
+    static float parseFloat(@NotNull ByteBuf data, int index, int length) throws NumberFormatException {
+        return (float) parseDecimal(array(data, index, length), offset(data, index), length, true);
+    }
+
+    static double parseDouble(@NotNull byte[] data, int index, int length) throws NumberFormatException {
+        return parseDecimal(data, index, length, false);
+    }
+
+    static double parseDouble(@NotNull CharSequence data) throws NumberFormatException {
+        return parseDecimal(data, false);
+    }
+
+    static float parseFloat(@NotNull CharSequence data) throws NumberFormatException {
+        return (float) parseDecimal(data, true);
+    }
+
+    /**
+     * @param unsigned full range of unsigned 64 bits, the result has the same bits, like {@link Long#parseUnsignedLong}
+     */
+    static long parseLong(@NotNull byte[] data, int index, int length, boolean unsigned) throws NumberFormatException {
+        final int start = index;
+        final int end = index + length;
+        boolean negative = false;
+        if (index < end) {
+            final byte first = data[index];
+            if (first == '-') {
+                negative = true;
+                index++;
+            } else if (first == '+') {
+                index++;
+            }
+        }
+        if (index == end || negative && unsigned) {
+            throw invalid(data, start, length);
+        }
+        long value = 0;
+        if (unsigned) {
+            for (; index < end; index++) {
+                final int digit = data[index] - '0';
+                if (digit < 0 || digit > 9 || Long.compareUnsigned(value, UNSIGNED_LONG_LIMIT) > 0 || value == UNSIGNED_LONG_LIMIT && digit > 5) {
+                    throw invalid(data, start, length);
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+        // accumulated negatively, since the magnitude of Long.MIN_VALUE is one more than Long.MAX_VALUE
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multiplyLimit = limit / 10;
+        for (; index < end; index++) {
+            final int digit = data[index] - '0';
+            if (digit < 0 || digit > 9 || value < multiplyLimit) {
+                throw invalid(data, start, length);
+            }
+            value *= 10;
+            if (value < limit + digit) {
+                throw invalid(data, start, length);
+            }
+            value -= digit;
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * @param unsigned 0 to 2 ^ 32 - 1, the result has the same bits, like {@link Integer#parseUnsignedInt}; no '-', not even "-0"
+     */
+    static int parseInt(@NotNull byte[] data, int index, int length, boolean unsigned) throws NumberFormatException {
+        final long value = parseLong(data, index, length, unsigned);
+        if (unsigned ? (value >>> Integer.SIZE) != 0 : value != (int) value) {
+            throw invalid(data, index, length);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Scans the decimal, see {@link #toDecimal}
+     * @param single the result is an exact float
+     * @return NaN if undecided, for the JDK parser
+     */
+    private static double scanDecimal(@NotNull byte[] data, int index, int length, boolean single) {
+        final int end = index + length;
+        boolean negative = false;
+        if (index < end) {
+            final byte first = data[index];
+            if (first == '-') {
+                negative = true;
+                index++;
+            } else if (first == '+') {
+                index++;
+            }
+        }
+        long mantissa = 0;
+        int digits = 0; // significant
+        int exponent = 0;
+        boolean hasDigit = false;
+        boolean truncated = false;
+        boolean point = false;
+        for (; index < end; index++) {
+            final byte ch = data[index];
+            if ('0' <= ch && ch <= '9') {
+                hasDigit = true;
+                if (mantissa == 0 && ch == '0') {
+                    if (point) {
+                        exponent--;
+                    }
+                } else if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (ch - '0');
+                    digits++;
+                    if (point) {
+                        exponent--;
+                    }
+                } else {
+                    truncated |= ch != '0';
+                    if (!point) {
+                        exponent++;
+                    }
+                }
+            } else if (ch == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (index < end && hasDigit && (data[index] | 0x20) == 'e') {
+            int exponentIndex = index + 1;
+            boolean exponentNegative = false;
+            if (exponentIndex < end) {
+                final byte sign = data[exponentIndex];
+                if (sign == '-') {
+                    exponentNegative = true;
+                    exponentIndex++;
+                } else if (sign == '+') {
+                    exponentIndex++;
+                }
+            }
+            int value = 0;
+            boolean hasExponentDigit = false;
+            for (; exponentIndex < end; exponentIndex++) {
+                final int digit = data[exponentIndex] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                hasExponentDigit = true;
+                if (value < 100000) {
+                    value = value * 10 + digit; // larger is infinity or zero anyway
+                }
+            }
+            if (hasExponentDigit) {
+                exponent += exponentNegative ? -value : value;
+                index = exponentIndex;
+            }
+        }
+        if (hasDigit && index == end) {
+            final double value = toDecimal(mantissa, exponent, truncated, single);
+            return negative ? -value : value;
+        }
+        return Double.NaN;
+    }
+
+    private static double parseDecimal(@NotNull byte[] data, int index, int length, boolean single) throws NumberFormatException {
+        final double value = scanDecimal(data, index, length, single);
+        if (value == value) {
+            return value;
+        }
+        final String string = new String(data, index, length, StandardCharsets.US_ASCII);
+        return single ? Float.parseFloat(string) : Double.parseDouble(string);
+    }
+
+    /**
+     * For {@link ResultRow.DecodedText}, scans the chars as bytes; the JDK parser gets the original chars
+     */
+    private static double parseDecimal(@NotNull CharSequence data, boolean single) throws NumberFormatException {
+        final double value = scanDecimal(array(data), 0, data.length(), single);
+        if (value == value) {
+            return value;
+        }
+        final String string = data.toString();
+        return single ? Float.parseFloat(string) : Double.parseDouble(string);
+    }
+
+    /**
+     * mantissa * 10 ^ exponent, correctly rounded; by one exact multiplication or division (Clinger fast path) when
+     * both operands are exactly representable, else by Eisel-Lemire. A truncated mantissa is also tried plus one,
+     * the result holds if both round the same.
+     * @return NaN if undecided, for the JDK parser; positive
+     */
+    private static double toDecimal(long mantissa, int exponent, boolean truncated, boolean single) {
+        if (mantissa == 0) {
+            return 0.0;
+        }
+        if (!truncated) {
+            if (single) {
+                if (0 < mantissa && mantissa <= (1L << 24) && -10 <= exponent && exponent <= 10) {
+                    float value = mantissa;
+                    if (exponent < 0) {
+                        value /= FLOAT_POWERS[-exponent];
+                    } else {
+                        value *= FLOAT_POWERS[exponent];
+                    }
+                    return value;
+                }
+            } else {
+                if (0 < mantissa && mantissa <= (1L << 53) && -22 <= exponent && exponent <= 22) {
+                    double value = mantissa;
+                    if (exponent < 0) {
+                        value /= DOUBLE_POWERS[-exponent];
+                    } else {
+                        value *= DOUBLE_POWERS[exponent];
+                    }
+                    return value;
+                }
+            }
+            return eiselLemire(mantissa, exponent, single);
+        }
+        final double value = eiselLemire(mantissa, exponent, single);
+        if (value == eiselLemire(mantissa + 1, exponent, single)) {
+            return value;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Daniel Lemire, Number Parsing at a Gigabyte per Second (2021), after fast_float;
+     * the 64 bits mantissa times a 128 bits truncated power of five is enough, except for some halfway cases.
+     * Subnormal and infinite results are left to the JDK parser.
+     * @return NaN if undecided
+     */
+    private static double eiselLemire(long mantissa, int exponent, boolean single) {
+        final int explicitBits = single ? 23 : 52;
+        if (exponent < (single ? -64 : PowersOfFive.MIN_EXPONENT) || exponent > (single ? 38 : PowersOfFive.MAX_EXPONENT)) {
+            return Double.NaN;
+        }
+        final int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        final long normalized = mantissa << leadingZeros;
+        final int tableIndex = (exponent - PowersOfFive.MIN_EXPONENT) << 1;
+        final long[] table = PowersOfFive.TABLE;
+        final int shift = 64 - explicitBits - 3;
+        long low = normalized * table[tableIndex];
+        long high = unsignedMultiplyHigh(normalized, table[tableIndex]);
+        final long precisionMask = -1L >>> (explicitBits + 3);
+        if ((high & precisionMask) == precisionMask) {
+            // the lower half of the power of five may carry into the bits kept
+            final long secondHigh = unsignedMultiplyHigh(normalized, table[tableIndex + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(low, secondHigh) < 0) {
+                high++;
+            }
+            if (low == -1L && (exponent < -27 || exponent > 55)) {
+                return Double.NaN;
+            }
+        }
+        final int upperBit = (int) (high >>> 63);
+        long bits = high >>> (upperBit + shift);
+        int power2 = (int) (((152170L + 65536L) * exponent) >> 16) + 63 + upperBit - leadingZeros + (single ? 127 : 1023);
+        if (power2 <= 0) {
+            return Double.NaN; // subnormal
+        }
+        // exactly halfway between, rounds to even instead of up
+        if (Long.compareUnsigned(low, 1) <= 0 && (single ? -17 <= exponent && exponent <= 10 : -4 <= exponent && exponent <= 23)
+                && (bits & 3) == 1 && (bits << (upperBit + shift)) == high) {
+            bits &= ~1L;
+        }
+        bits += bits & 1;
+        bits >>>= 1;
+        if (bits >= (2L << explicitBits)) {
+            bits = 1L << explicitBits;
+            power2++;
+        }
+        bits &= ~(1L << explicitBits);
+        if (power2 >= (single ? 0xff : 0x7ff)) {
+            return Double.NaN; // infinity
+        }
+        if (single) {
+            return Float.intBitsToFloat((int) (bits | (long) power2 << explicitBits));
+        } else {
+            return Double.longBitsToDouble(bits | (long) power2 << explicitBits);
+        }
+    }
+
+    /**
+     * High 64 bits of the unsigned 128 bits product
+     */
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * 5 ^ q for q in [-342, 308] as 128 bits, most significant bit set, high then low; computed on first use.
+     * Positive powers are truncated, negative powers are reciprocals rounded up, like the tables of fast_float.
+     */
+    private static final class PowersOfFive {
+
+        static final int MIN_EXPONENT = -342;
+
+        static final int MAX_EXPONENT = 308;
+
+        static final long[] TABLE = new long[(MAX_EXPONENT - MIN_EXPONENT + 1) << 1];
+
+        static {
+            final BigInteger five = BigInteger.valueOf(5);
+            for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+                BigInteger value;
+                if (q < 0) {
+                    final BigInteger power = five.pow(-q);
+                    final int z = power.bitLength();
+                    if (q >= -27) {
+                        value = BigInteger.ONE.shiftLeft(z + 127).divide(power).add(BigInteger.ONE);
+                    } else {
+                        value = BigInteger.ONE.shiftLeft(2 * z + 128).divide(power).add(BigInteger.ONE);
+                    }
+                } else {
+                    value = five.pow(q);
+                }
+                final int excess = value.bitLength() - 128;
+                value = excess >= 0 ? value.shiftRight(excess) : value.shiftLeft(-excess);
+                final int index = (q - MIN_EXPONENT) << 1;
+                TABLE[index] = value.shiftRight(64).longValue();
+                TABLE[index + 1] = value.longValue();
+            }
+        }
+    }
+}
@@ -2,12 +2,18 @@ package indi.qsq.mysql;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.Promise;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Created on 2024/6/16.
  * Add consume control
@@ -25,8 +31,10 @@ public abstract class PacketCollector extends ChannelInboundHandlerAdapter {
         final Promise<?> promise = getPromise();
         if (promise != null) {
             promise.addListener(future -> {
-                context.pipeline().remove(this);
-                LOGGER.info("{} removed", this);
+                if (!context.isRemoved()) {
+                    context.pipeline().remove(this);
+                    LOGGER.info("{} removed", this);
+                }
             });
         }
     }
@@ -48,6 +56,31 @@ public abstract class PacketCollector extends ChannelInboundHandlerAdapter {
         context.fireChannelInactive();
     }
 
+    /**
+     * Rows of the response are one reused {@link ResultRow.Raw}, see {@link ResultHeaderConsumer#acceptsFlyweightRow()}
+     */
+    boolean acceptsFlyweightRow() {
+        return false;
+    }
+
+    /**
+     * The codec reads from the socket again after a read completes only if the collector wants it,
+     * see {@link ResultHeaderConsumer#subscribe(RowDemand)}
+     */
+    boolean wantsRead() {
+        return true;
+    }
+
+    /**
+     * The response will never arrive, called instead of adding to the pipeline
+     */
+    void cancel(@NotNull Throwable cause) {
+        final Promise<?> promise = getPromise();
+        if (promise != null) {
+            promise.tryFailure(cause);
+        }
+    }
+
     /**
      * Created on 2024/6/16.
      */
@@ -106,7 +139,7 @@ public abstract class PacketCollector extends ChannelInboundHandlerAdapter {
         public void channelRead(@NotNull ChannelHandlerContext context, Object message) {
             if (message instanceof ResponsePacket.EOF) {
                 ResponsePacket.EOF end = (ResponsePacket.EOF) message;
-                if (!end.isSegment()) {
+                if (!end.isSegment() && !end.hasStatus(ServerStatus.MORE_RESULTS_EXISTS)) {
                     promise.setSuccess(end);
                 }
             } else if (message instanceof ResponsePacket.Error) {
@@ -143,7 +176,10 @@ public abstract class PacketCollector extends ChannelInboundHandlerAdapter {
         @Override
         public void channelRead(@NotNull ChannelHandlerContext context, Object message) {
             if (message instanceof ResultHeader.StatementPrepareOK) {
-                promise.setSuccess((ResultHeader.StatementPrepareOK) message);
+                final ResultHeader.StatementPrepareOK header = (ResultHeader.StatementPrepareOK) message;
+                if (!header.hasNext()) { // pipelined again after the definitions
+                    promise.trySuccess(header);
+                }
             } else if (message instanceof ResponsePacket.Error) {
                 promise.setFailure(new MysqlProtocolException((ResponsePacket.Error) message));
             } else {
@@ -167,6 +203,14 @@ public abstract class PacketCollector extends ChannelInboundHandlerAdapter {
             this.promise = promise;
         }
 
+        /**
+         * Rows without a header, as the response of COM_STMT_FETCH, go into the given result set
+         */
+        public ResultSetCollector(@NotNull Promise<ResultSet> promise, @NotNull ResultSet resultSet) {
+            this(promise);
+            this.resultSet = resultSet;
+        }
+
         @Override
         @NotNull
         public Promise<ResultSet> getPromise() {
@@ -186,7 +230,11 @@ public abstract class PacketCollector extends ChannelInboundHandlerAdapter {
                 } else if (message instanceof ResponsePacket.Error) {
                     promise.setFailure(new MysqlException(((ResponsePacket.Error) message).errorMessage));
                 } else if (message instanceof ResponsePacket.EOF) {
-                    resultSet.end = (ResponsePacket.EOF) message;
+                    if (resultSet == null) {
+                        resultSet = new ResultSet((ResponsePacket.EOF) message);
+                    } else {
+                        resultSet.end = (ResponsePacket.EOF) message;
+                    }
                     promise.setSuccess(resultSet);
                 }
             } else {
@@ -201,6 +249,142 @@ public abstract class PacketCollector extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * Created on 2026/10/17.
+     * Rows are copied into the column vectors and released as they arrive
+     */
+    public static class ColumnarResultSetCollector extends PacketCollector {
+
+        @NotNull
+        final Promise<ColumnarResultSet> promise;
+
+        ColumnarResultSet resultSet;
+
+        public ColumnarResultSetCollector(@NotNull Promise<ColumnarResultSet> promise) {
+            super();
+            this.promise = promise;
+        }
+
+        @Override
+        @NotNull
+        public Promise<ColumnarResultSet> getPromise() {
+            return promise;
+        }
+
+        @Override
+        public void channelRead(@NotNull ChannelHandlerContext context, Object message) {
+            if (message instanceof ResponsePacket) {
+                if (((ResponsePacket) message).isSegment()) {
+                    return;
+                }
+                if (message instanceof ResultRow) {
+                    try {
+                        if (!promise.isDone()) {
+                            resultSet.append((ResultRow) message);
+                        }
+                    } catch (RuntimeException e) {
+                        promise.tryFailure(e);
+                    } finally {
+                        ReferenceCountUtil.release(message);
+                    }
+                } else if (message instanceof ResultHeader) {
+                    resultSet = new ColumnarResultSet((ResultHeader) message);
+                } else if (message instanceof ResponsePacket.Error) {
+                    promise.tryFailure(new MysqlProtocolException((ResponsePacket.Error) message));
+                } else if (message instanceof ResponsePacket.EOF) {
+                    if (resultSet == null) {
+                        resultSet = new ColumnarResultSet((ResponsePacket.EOF) message);
+                    } else {
+                        resultSet.finish((ResponsePacket.EOF) message);
+                    }
+                    promise.trySuccess(resultSet);
+                }
+            } else {
+                context.fireChannelRead(message);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ColumnarResultSetCollector[id = @%08x, promise = %s, resultSet = %s]",
+                    System.identityHashCode(this), promise, resultSet);
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * One result set for each result of the command, the promise fails on the first error
+     */
+    public static class MultipleResultSetCollector extends PacketCollector {
+
+        @NotNull
+        final Promise<List<ResultSet>> promise;
+
+        final ArrayList<ResultSet> resultSets = new ArrayList<>();
+
+        ResultSet resultSet;
+
+        public MultipleResultSetCollector(@NotNull Promise<List<ResultSet>> promise) {
+            super();
+            this.promise = promise;
+        }
+
+        @Override
+        @NotNull
+        public Promise<List<ResultSet>> getPromise() {
+            return promise;
+        }
+
+        @Override
+        public void handlerRemoved(@NotNull ChannelHandlerContext context) {
+            super.handlerRemoved(context);
+            if (!promise.isSuccess()) {
+                for (ResultSet resultSet : resultSets) {
+                    resultSet.close();
+                }
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+            }
+        }
+
+        @Override
+        public void channelRead(@NotNull ChannelHandlerContext context, Object message) {
+            if (message instanceof ResponsePacket) {
+                if (((ResponsePacket) message).isSegment()) {
+                    return;
+                }
+                if (message instanceof ResultRow) {
+                    resultSet.rows.add((ResultRow) message);
+                } else if (message instanceof ResultHeader) {
+                    resultSet = new ResultSet((ResultHeader) message);
+                } else if (message instanceof ResponsePacket.Error) {
+                    promise.setFailure(new MysqlProtocolException((ResponsePacket.Error) message));
+                } else if (message instanceof ResponsePacket.EOF) {
+                    final ResponsePacket.EOF end = (ResponsePacket.EOF) message;
+                    if (resultSet == null) {
+                        resultSets.add(new ResultSet(end));
+                    } else {
+                        resultSet.end = end;
+                        resultSets.add(resultSet);
+                        resultSet = null;
+                    }
+                    if (!end.hasStatus(ServerStatus.MORE_RESULTS_EXISTS)) {
+                        promise.setSuccess(resultSets);
+                    }
+                }
+            } else {
+                context.fireChannelRead(message);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MultipleResultSetCollector[id = @%08x, promise = %s, resultSets.length = %d]",
+                    System.identityHashCode(this), promise, resultSets.size());
+        }
+    }
+
     /**
      * Created on 2024/6/16.
      */
@@ -210,6 +394,52 @@ public abstract class PacketCollector extends ChannelInboundHandlerAdapter {
 
         @Nullable
         ResultContentConsumer accept(@NotNull ResultHeader header);
+
+        /**
+         * A statement without result set, more results follow if it has {@link ServerStatus#MORE_RESULTS_EXISTS}
+         */
+        default void finish(@NotNull ResponsePacket.EOF end) {
+            // pass
+        }
+
+        /**
+         * If true, every row passed to {@link ResultContentConsumer#next} is the same {@link ResultRow.Raw},
+         * repositioned over each packet without allocation, whatever the lazy decode preferences.
+         * It is valid only during the call; {@link ResultRow.Raw#copy()} it to keep, retaining it throws, releasing it does nothing.
+         */
+        default boolean acceptsFlyweightRow() {
+            return false;
+        }
+
+        /**
+         * Called once, when the consumer is passed to a query. A consumer that keeps the demand is flow controlled:
+         * a row is delivered only when requested, and the headers and ends after it wait in order.
+         * While nothing is requested the connection stops reading from the socket, unless {@link PreferenceFlags#AUTO_READ},
+         * so at most the rows of one socket read are held, however large the result.
+         * @return true to be flow controlled
+         */
+        default boolean subscribe(@NotNull RowDemand demand) {
+            return false;
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * Rows requested by a flow controlled consumer
+     */
+    public interface RowDemand {
+
+        /**
+         * Adds to the outstanding demand, from any thread; Long.MAX_VALUE is unbounded
+         * @throws IllegalArgumentException if not positive
+         */
+        void request(long count) throws IllegalArgumentException;
+
+        /**
+         * Stops delivering, from any thread. The rest of the result is still read, to keep the connection usable,
+         * but dropped as it is framed into a flyweight row, without allocation; pending rows are released.
+         */
+        void cancel();
     }
 
     /**
@@ -221,27 +451,173 @@ public abstract class PacketCollector extends ChannelInboundHandlerAdapter {
 
         void next(@NotNull ResultRow row);
 
+        /**
+         * More results follow if end has {@link ServerStatus#MORE_RESULTS_EXISTS}, accepted by the same header consumer
+         */
         void finish(@NotNull ResponsePacket.EOF end);
     }
 
-    public static class ResultConsumerCollector extends PacketCollector {
+    public static class ResultConsumerCollector extends PacketCollector implements RowDemand {
 
+        /**
+         * Kept until the last result ends
+         */
         ResultHeaderConsumer headerConsumer;
 
+        /**
+         * Of the current result set
+         */
         ResultContentConsumer contentConsumer;
 
+        /**
+         * Between a header and its end, the content consumer may be null if the header is not accepted
+         */
+        boolean inResultSet;
+
+        /**
+         * Asked once, before the header consumer is dropped
+         */
+        final boolean flyweight;
+
+        final boolean flowControlled;
+
+        /**
+         * Outstanding demand, added from any thread, taken in the event loop
+         */
+        private final AtomicLong requested = new AtomicLong();
+
+        /**
+         * Messages received beyond the demand, in order
+         */
+        private ArrayDeque<Object> pending;
+
+        /**
+         * The last end or error is received, delivered or pending
+         */
+        private boolean complete;
+
+        private volatile ChannelHandlerContext context;
+
+        /**
+         * By {@link RowDemand#cancel()}
+         */
+        private volatile boolean cancelled;
+
         public ResultConsumerCollector(ResultHeaderConsumer headerConsumer) {
             super();
             this.headerConsumer = headerConsumer;
+            this.flyweight = headerConsumer != null && headerConsumer.acceptsFlyweightRow();
+            this.flowControlled = headerConsumer != null && headerConsumer.subscribe(this);
+        }
+
+        @Override
+        boolean acceptsFlyweightRow() {
+            return flyweight || cancelled;
+        }
+
+        @Override
+        boolean wantsRead() {
+            return !flowControlled || complete || requested.get() > 0;
+        }
+
+        @Override
+        public void request(long count) throws IllegalArgumentException {
+            if (count <= 0) {
+                throw new IllegalArgumentException("Non-positive request " + count);
+            }
+            requested.accumulateAndGet(count, (value, increment) -> value + increment < 0 ? Long.MAX_VALUE : value + increment);
+            final ChannelHandlerContext context = this.context;
+            if (context == null) {
+                return; // taken when the response arrives
+            }
+            if (context.executor().inEventLoop()) {
+                drain(context);
+            } else {
+                context.executor().execute(() -> drain(context));
+            }
         }
 
+        @Override
+        public void cancel() {
+            cancelled = true;
+            requested.set(Long.MAX_VALUE);
+            final ChannelHandlerContext context = this.context;
+            if (context == null) {
+                return; // dropped when the response arrives
+            }
+            if (context.executor().inEventLoop()) {
+                drain(context);
+            } else {
+                context.executor().execute(() -> drain(context));
+            }
+        }
+
+        /**
+         * Takes one from the demand
+         */
+        private boolean take() {
+            while (true) {
+                final long value = requested.get();
+                if (value == 0) {
+                    return false;
+                }
+                if (value == Long.MAX_VALUE || requested.compareAndSet(value, value - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void drain(@NotNull ChannelHandlerContext context) {
+            if (pending != null) {
+                while (!pending.isEmpty()) {
+                    final Object message = pending.peekFirst();
+                    if (message instanceof ResultRow && !take()) {
+                        return;
+                    }
+                    pending.pollFirst();
+                    deliver(message);
+                }
+            }
+            if (!complete && requested.get() > 0) {
+                context.channel().read(); // resumes, a pending read makes it a no-op
+            }
+        }
+
+        @Override
+        public void handlerAdded(@NotNull ChannelHandlerContext context) {
+            super.handlerAdded(context);
+            this.context = context;
+        }
+
+        /**
+         * A complete result still pending is delivered on request, after the next command took the pipeline
+         */
         @Override
         public void handlerRemoved(@NotNull ChannelHandlerContext context) {
-            if (headerConsumer != null) {
-                headerConsumer.error(null);
-            } else if (contentConsumer != null) {
-                contentConsumer.error(null);
+            if (!complete) {
+                cancel(new MysqlException("Handler removed"));
+            }
+        }
+
+        @Override
+        void cancel(@NotNull Throwable cause) {
+            if (pending != null) {
+                for (Object message : pending) {
+                    ReferenceCountUtil.release(message);
+                }
+                pending = null;
+            }
+            error(null);
+        }
+
+        private void error(@Nullable ResponsePacket.Error error) {
+            if (contentConsumer != null) {
+                contentConsumer.error(error);
+            } else if (headerConsumer != null) {
+                headerConsumer.error(error);
             }
+            headerConsumer = null;
+            contentConsumer = null;
         }
 
         @Override
@@ -256,29 +632,57 @@ public abstract class PacketCollector extends ChannelInboundHandlerAdapter {
                 if (((ResponsePacket) message).isSegment()) {
                     return;
                 }
-                if (message instanceof ResultRow) {
-                    if (contentConsumer != null) {
-                        contentConsumer.next((ResultRow) message);
-                    }
-                } else if (message instanceof ResultHeader) {
-                    if (headerConsumer != null) {
-                        contentConsumer = headerConsumer.accept((ResultHeader) message);
-                        headerConsumer = null;
+                if (message instanceof ResponsePacket.Error
+                        || message instanceof ResponsePacket.EOF && !((ResponsePacket.EOF) message).hasStatus(ServerStatus.MORE_RESULTS_EXISTS)) {
+                    complete = true;
+                }
+                if (flowControlled && (pending != null && !pending.isEmpty() || message instanceof ResultRow && !take())) {
+                    if (pending == null) {
+                        pending = new ArrayDeque<>();
                     }
-                } else if (message instanceof ResponsePacket.Error) {
-                    if (headerConsumer != null) {
-                        headerConsumer.error((ResponsePacket.Error) message);
-                    } else if (contentConsumer != null) {
-                        contentConsumer.error((ResponsePacket.Error) message);
-                    }
-                } else if (message instanceof ResponsePacket.EOF) {
-                    if (contentConsumer != null) {
-                        contentConsumer.finish((ResponsePacket.EOF) message);
+                    if (message instanceof ResultRow.Raw && ((ResultRow.Raw) message).isFlyweight()) {
+                        message = ((ResultRow.Raw) message).copy(); // the flyweight is overwritten by the next row
                     }
+                    pending.addLast(message);
+                    return;
                 }
+                deliver(message);
             } else {
                 context.fireChannelRead(message);
             }
         }
+
+        private void deliver(@NotNull Object message) {
+            if (cancelled) {
+                headerConsumer = null;
+                contentConsumer = null;
+            }
+            if (message instanceof ResultRow) {
+                if (contentConsumer != null) {
+                    contentConsumer.next((ResultRow) message);
+                } else {
+                    ReferenceCountUtil.release(message);
+                }
+            } else if (message instanceof ResultHeader) {
+                inResultSet = true;
+                if (headerConsumer != null) {
+                    contentConsumer = headerConsumer.accept((ResultHeader) message);
+                }
+            } else if (message instanceof ResponsePacket.Error) {
+                error((ResponsePacket.Error) message);
+            } else if (message instanceof ResponsePacket.EOF) {
+                final ResponsePacket.EOF end = (ResponsePacket.EOF) message;
+                if (contentConsumer != null) {
+                    contentConsumer.finish(end);
+                    contentConsumer = null;
+                } else if (headerConsumer != null && !inResultSet) {
+                    headerConsumer.finish(end);
+                }
+                inResultSet = false;
+                if (!end.hasStatus(ServerStatus.MORE_RESULTS_EXISTS)) {
+                    headerConsumer = null;
+                }
+            }
+        }
     }
 }
@@ -11,6 +11,9 @@ public interface PreferenceFlags {
 
     int ALLOW_INFINITY = 1 << 1;
 
+    /**
+     * Keep reading from the socket even while a flow controlled consumer requests nothing
+     */
     int AUTO_READ = 1 << 16;
 
     int FAST_READ = 1 << 17;
@@ -22,4 +25,21 @@ public interface PreferenceFlags {
     int LAZY_DECODE_TEXT = 1 << 20;
 
     int LAZY_DECODE_BINARY = 1 << 21;
+
+    /**
+     * Frame each packet as a retained slice of the cumulation buffer instead of copying it into a new buffer.
+     * A {@link ResultRow.Raw} kept alive pins the whole cumulation buffer it was sliced from until it is released.
+     */
+    int SLICE_PAYLOAD = 1 << 22;
+
+    /**
+     * Without lazy decoding, decode rows into {@link ResultRow.Slotted}, numbers in a long[] instead of boxed in an Object[].
+     * Rows are not {@link java.util.List}s then.
+     */
+    int SLOTTED_DECODE = 1 << 23;
+
+    /**
+     * Give ENUM, SET and short VARCHAR columns a {@link StringDictionary}, so that repeated values are decoded once
+     */
+    int DICTIONARY_ENCODE = 1 << 24;
 }
@@ -1,9 +1,16 @@
 package indi.qsq.mysql;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created on 2024/5/22.
@@ -36,14 +43,85 @@ public class PreparedStatement implements MysqlImmediateCloseable {
             this.index = index;
         }
 
+        /**
+         * Infer the type from the Java class of the value. Null keeps the previous type so no rebinding is needed.
+         * @return true if the type changes
+         */
+        boolean bind(@Nullable Object value) throws MysqlException {
+            final int oldType = type;
+            final int oldFlags = flags;
+            if (value == null) {
+                return false;
+            } else if (value instanceof Integer) {
+                type = FieldTypes.LONG;
+                flags = 0;
+            } else if (value instanceof Long) {
+                type = FieldTypes.LONG_LONG;
+                flags = 0;
+            } else if (value instanceof String) {
+                type = FieldTypes.VAR_STRING;
+                flags = 0;
+            } else if (value instanceof Double) {
+                type = FieldTypes.DOUBLE;
+                flags = 0;
+            } else if (value instanceof Float) {
+                type = FieldTypes.FLOAT;
+                flags = 0;
+            } else if (value instanceof Short) {
+                type = FieldTypes.SHORT;
+                flags = 0;
+            } else if (value instanceof Byte || value instanceof Boolean) {
+                type = FieldTypes.TINY;
+                flags = 0;
+            } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+                type = FieldTypes.NEW_DECIMAL;
+                flags = 0;
+            } else if (value instanceof CharSequence) {
+                type = FieldTypes.VAR_STRING;
+                flags = 0;
+            } else if (value instanceof byte[] || value instanceof ByteBuf || value instanceof ChunkSource) {
+                type = FieldTypes.BLOB;
+                flags = 0;
+            } else if (value instanceof MysqlDateTime) {
+                type = FieldTypes.DATE_TIME;
+                flags = 0;
+            } else if (value instanceof MysqlTime) {
+                type = FieldTypes.TIME;
+                flags = 0;
+            } else {
+                throw new MysqlException("Unsupported parameter type " + value.getClass().getName());
+            }
+            return type != oldType || flags != oldFlags;
+        }
+
+        /**
+         * Type in the parameter block of COM_STMT_EXECUTE, sent when new-params-bound-flag is set
+         */
+        public void writeType(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+            buf.writeInt1(type);
+            buf.writeInt1((flags & ColumnFlags.UNSIGNED) != 0 ? 0x80 : 0x00);
+            if (context.hasCapability(CapabilitiesFlags.QUERY_ATTRIBUTES)) {
+                buf.writeLengthEncodedString(name != null ? name : "");
+            }
+        }
+
         @Override
         public void write(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
-            buf.writeInt1(type);
-            buf.writeInt1(flags);
-            buf.writeLengthEncodedString(name);
+            writeType(buf, context);
+            writeValue(buf, context);
+        }
+
+        /**
+         * Value of a non-null parameter, a {@link ByteBuf} value is not released
+         */
+        public void writeValue(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
             switch (type) {
                 case FieldTypes.TINY:
-                    buf.writeInt1(((Number) value).intValue());
+                    if (value instanceof Boolean) {
+                        buf.writeInt1((Boolean) value ? 1 : 0);
+                    } else {
+                        buf.writeInt1(((Number) value).intValue());
+                    }
                     break;
                 case FieldTypes.SHORT:
                 case FieldTypes.YEAR:
@@ -62,15 +140,22 @@ public class PreparedStatement implements MysqlImmediateCloseable {
                 case FieldTypes.DOUBLE:
                     buf.writeInt8(Double.doubleToRawLongBits(((Number) value).doubleValue()));
                     break;
+                case FieldTypes.DECIMAL:
+                case FieldTypes.NEW_DECIMAL:
+                    if (value instanceof BigDecimal) {
+                        buf.writeLengthEncodedString(((BigDecimal) value).toPlainString());
+                    } else {
+                        buf.writeLengthEncodedString(value.toString());
+                    }
+                    break;
                 case FieldTypes.VAR_CHAR:
                 case FieldTypes.VAR_STRING:
                 case FieldTypes.STRING:
                 case FieldTypes.ENUM:
                 case FieldTypes.SET:
                 case FieldTypes.GEOMETRY:
+                case FieldTypes.JSON:
                 case FieldTypes.BIT:
-                case FieldTypes.DECIMAL:
-                case FieldTypes.NEW_DECIMAL:
                     buf.writeLengthEncodedString(value.toString());
                     break;
                 case FieldTypes.TINY_BLOB:
@@ -101,29 +186,282 @@ public class PreparedStatement implements MysqlImmediateCloseable {
     @NotNull
     final ResultHeader.StatementPrepareOK resolved;
 
+    /**
+     * Types last sent to the server, only accessed in event loop when encoding
+     */
     @NotNull
     final Parameter[] parameters;
 
+    /**
+     * False until types are sent, the server keeps them for later executions.
+     * Set when the execution which sent them is written, cleared if it fails to encode or write, so that the next one sends them again.
+     */
+    boolean parametersBound;
+
     final AtomicBoolean closed = new AtomicBoolean(false);
 
+    /**
+     * Owned by {@link PreparedStatementCache} of the connection, closed once evicted and no longer leased; set before the statement is handed out
+     */
+    boolean cached;
+
+    /**
+     * Holders of the statement: each prepare of a cached statement until its close, each execution until its response is read,
+     * each cursor until closed or exhausted. -1 once an evicted statement is closed.
+     */
+    final AtomicInteger leases = new AtomicInteger();
+
+    /**
+     * Dropped from the cache, COM_STMT_CLOSE waits for the last lease
+     */
+    volatile boolean evicted;
+
     public PreparedStatement(@NotNull MysqlConnection connection, @NotNull ResultHeader.StatementPrepareOK resolved) {
         super();
         this.connection = connection;
         this.resolved = resolved;
-        this.parameters = new Parameter[resolved.parameters.length];
+        final int parameterCount = resolved.parameters.length;
+        this.parameters = new Parameter[parameterCount];
+        for (int index = 0; index < parameterCount; index++) {
+            Parameter parameter = new Parameter(index);
+            parameter.type = FieldTypes.NULL;
+            parameters[index] = parameter;
+        }
+    }
+
+    public int parameterCount() {
+        return parameters.length;
+    }
+
+    @NotNull
+    public ResultHeader.StatementPrepareOK getResolved() {
+        return resolved;
+    }
+
+    /**
+     * Called in event loop when encoding, values are bound to the parameters for writing
+     * @return true if types have to be sent
+     */
+    boolean bind(@NotNull Object[] values) throws MysqlException {
+        boolean changed = !parametersBound;
+        final int length = parameters.length;
+        for (int index = 0; index < length; index++) {
+            Parameter parameter = parameters[index];
+            parameter.value = values[index];
+            changed |= parameter.bind(values[index]);
+        }
+        return changed;
+    }
+
+    /**
+     * Called in event loop after encoding, so that values are not kept alive
+     */
+    void unbind() {
+        for (Parameter parameter : parameters) {
+            parameter.value = null;
+        }
+    }
+
+    @Nullable
+    RequestPacket.StatementExecute newExecute(@NotNull Object[] values, @NotNull Promise<?> promise) {
+        if (values.length != parameters.length) {
+            promise.setFailure(new MysqlException("Expected " + parameters.length + " parameters, got " + values.length));
+            RequestPacket.StatementExecute.closeLongData(values);
+            return null;
+        }
+        if (!acquire()) {
+            promise.setFailure(new MysqlException("Statement closed"));
+            RequestPacket.StatementExecute.closeLongData(values);
+            return null;
+        }
+        final RequestPacket.StatementExecute packet = new RequestPacket.StatementExecute();
+        packet.statementId = resolved.statementId;
+        packet.statement = this;
+        packet.values = values;
+        return packet;
+    }
+
+    @NotNull
+    public Future<ResponsePacket.EOF> execute(@NotNull Object... values) {
+        final Promise<ResponsePacket.EOF> promise = connection.channel.eventLoop().newPromise();
+        final RequestPacket.StatementExecute packet = newExecute(values, promise);
+        if (packet != null) {
+            packet.responseHandler = new PacketCollector.EndCollector(promise);
+            connection.writeAndFlush(packet, promise);
+        }
+        return promise;
     }
 
+    @NotNull
+    public Future<ResultSet> query(@NotNull Object... values) {
+        final Promise<ResultSet> promise = connection.channel.eventLoop().newPromise();
+        final RequestPacket.StatementExecute packet = newExecute(values, promise);
+        if (packet != null) {
+            packet.responseHandler = new PacketCollector.ResultSetCollector(promise);
+            connection.writeAndFlush(packet, promise);
+        }
+        return promise;
+    }
+
+    /**
+     * Rows go into column vectors instead of a list, see {@link ColumnarResultSet}
+     */
+    @NotNull
+    public Future<ColumnarResultSet> queryColumnar(@NotNull Object... values) {
+        final Promise<ColumnarResultSet> promise = connection.channel.eventLoop().newPromise();
+        final RequestPacket.StatementExecute packet = newExecute(values, promise);
+        if (packet != null) {
+            packet.responseHandler = new PacketCollector.ColumnarResultSetCollector(promise);
+            connection.writeAndFlush(packet, promise);
+        }
+        return promise;
+    }
+
+    /**
+     * Rows are {@link ResultRow.RawBinary} with {@link PreferenceFlags#LAZY_DECODE_BINARY}, else {@link ResultRow.DecodedBinary}
+     */
+    public void query(@Nullable PacketCollector.ResultHeaderConsumer headerConsumer, @NotNull Object... values) {
+        final Promise<Void> promise = connection.channel.eventLoop().newPromise();
+        final RequestPacket.StatementExecute packet = newExecute(values, promise);
+        if (packet == null) {
+            if (headerConsumer != null) {
+                headerConsumer.error(null);
+            }
+            return;
+        }
+        packet.responseHandler = new PacketCollector.ResultConsumerCollector(headerConsumer);
+        final ChannelFuture future1 = connection.channel.writeAndFlush(packet);
+        if (headerConsumer != null) {
+            future1.addListener(future2 -> {
+                if (!future1.isSuccess()) {
+                    headerConsumer.error(null);
+                }
+            });
+        }
+    }
+
+    /**
+     * Executes with a read-only cursor, rows stay on the server until {@link StatementCursor#next()} fetches them, fetchSize at a time.
+     * A statement without result set gives a cursor with a single batch.
+     * @throws IllegalArgumentException if fetchSize is not positive
+     */
+    @NotNull
+    public Future<StatementCursor> openCursor(int fetchSize, @NotNull Object... values) throws IllegalArgumentException {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Non-positive fetch size " + fetchSize);
+        }
+        final Promise<StatementCursor> promise = connection.channel.eventLoop().newPromise();
+        final RequestPacket.StatementExecute packet = newExecute(values, promise);
+        if (packet != null) {
+            final boolean leased = acquire(); // by the cursor, the execution holds its own lease until answered
+            final Promise<ResultSet> execution = connection.channel.eventLoop().newPromise();
+            execution.addListener(future -> {
+                if (future.isSuccess()) {
+                    promise.setSuccess(new StatementCursor(this, execution.getNow(), fetchSize, leased));
+                } else {
+                    if (leased) {
+                        release();
+                    }
+                    promise.setFailure(future.cause());
+                }
+            });
+            packet.cursorType = RequestPacket.StatementExecute.CURSOR_TYPE_READ_ONLY;
+            packet.responseHandler = new PacketCollector.ResultSetCollector(execution);
+            connection.writeAndFlush(packet, execution);
+        }
+        return promise;
+    }
+
+    /**
+     * The statement is executed when the publisher is subscribed, rows are read from the socket as requested
+     */
+    @NotNull
+    public ResultPublisher queryPublisher(@NotNull Object... values) {
+        return new ResultPublisher(headerConsumer -> query(headerConsumer, values));
+    }
+
+    /**
+     * A cached statement is only released, once for each prepare which returned it, and stays prepared for later prepares of the same SQL.
+     * It is closed when evicted and no longer leased.
+     */
     @Override
     public void close() throws MysqlException {
+        if (cached) {
+            release();
+        } else {
+            writeClose();
+        }
+    }
+
+    /**
+     * @return false if closed, the statement must not be used
+     */
+    boolean acquire() {
+        while (true) {
+            final int count = leases.get();
+            if (count < 0 || closed.get()) {
+                return false;
+            }
+            if (leases.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Closes an evicted statement with the last lease, a release without lease is ignored
+     */
+    void release() {
+        while (true) {
+            final int count = leases.get();
+            if (count <= 0) {
+                return;
+            }
+            if (leases.compareAndSet(count, count - 1)) {
+                if (count == 1 && evicted && leases.compareAndSet(0, -1)) {
+                    writeClose();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Called by {@link PreparedStatementCache}, the statement is closed now if not leased, else with the last lease
+     */
+    void evict() {
+        evicted = true;
+        if (leases.compareAndSet(0, -1)) {
+            writeClose();
+        }
+    }
+
+    /**
+     * Executions written before are still answered, since COM_STMT_CLOSE is queued after them
+     */
+    private void writeClose() {
+        final RequestPacket.StatementClose request = newClose();
+        if (request != null) {
+            connection.channel.writeAndFlush(request);
+        }
+    }
+
+    /**
+     * @return null if already closed
+     */
+    @Nullable
+    RequestPacket.StatementClose newClose() {
         if (closed.compareAndSet(false, true)) {
-            RequestPacket.StatementClose request = new RequestPacket.StatementClose();
+            final RequestPacket.StatementClose request = new RequestPacket.StatementClose();
             request.statementId = resolved.statementId;
-            connection.channel.writeAndFlush(request);
+            return request;
         }
+        return null;
     }
 
     @Override
     public String toString() {
-        return "";
+        return String.format("PreparedStatement[statementId = %d, parameterCount = %d, cached = %b, leases = %d, closed = %b]",
+                resolved.statementId, parameters.length, cached, leases.get(), closed.get());
     }
 }
@@ -0,0 +1,111 @@
+package indi.qsq.mysql;
+
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created on 2026/10/17.
+ * Prepared statements of one connection keyed by SQL text, the least recently used are evicted when over capacity
+ * and closed once no longer leased, see {@link PreparedStatement#evict()}.
+ * Pending prepares are cached too, so prepares of the same SQL share one COM_STMT_PREPARE.
+ */
+public class PreparedStatementCache {
+
+    /**
+     * Access ordered, eldest first
+     */
+    private final LinkedHashMap<String, Future<PreparedStatement>> map = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int capacity;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    public PreparedStatementCache(int capacity) {
+        super();
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Counts a hit or a miss
+     * @return null if not cached
+     */
+    @Nullable
+    synchronized Future<PreparedStatement> get(@NotNull String sql) {
+        final Future<PreparedStatement> future = map.get(sql);
+        if (future != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return future;
+    }
+
+    synchronized void put(@NotNull String sql, @NotNull Future<PreparedStatement> future) {
+        map.put(sql, future);
+        trim();
+    }
+
+    /**
+     * Failed prepares are not cached
+     */
+    synchronized void remove(@NotNull String sql, @NotNull Future<PreparedStatement> future) {
+        map.remove(sql, future);
+    }
+
+    /**
+     * Capped by max_prepared_stmt_count of the server after open
+     */
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        trim();
+    }
+
+    private void trim() {
+        final Iterator<Map.Entry<String, Future<PreparedStatement>>> iterator = map.entrySet().iterator();
+        while (map.size() > capacity && iterator.hasNext()) {
+            final Future<PreparedStatement> future = iterator.next().getValue();
+            iterator.remove();
+            evictionCount++;
+            future.addListener(f -> {
+                if (future.isSuccess()) {
+                    future.getNow().evict();
+                }
+            });
+        }
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("PreparedStatementCache[size = %d, capacity = %d, hit = %d, miss = %d, eviction = %d]",
+                map.size(), capacity, hitCount, missCount, evictionCount);
+    }
+}
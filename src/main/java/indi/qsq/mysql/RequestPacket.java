@@ -1,9 +1,11 @@
 package indi.qsq.mysql;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelPromise;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,6 +20,11 @@ public abstract class RequestPacket extends Packet {
     /** Added when this packet is ready to send */
     ChannelHandler responseHandler;
 
+    /**
+     * The next packet is written in the same flush without waiting for the response of this one, whatever the pipeline depth
+     */
+    boolean chained;
+
     protected boolean trySuccess() {
         return writePromise != null && writePromise.trySuccess();
     }
@@ -34,6 +41,19 @@ public abstract class RequestPacket extends Packet {
         return false;
     }
 
+    /**
+     * @return false if the server sends nothing back, the command is not waited for
+     */
+    public boolean hasResponse() {
+        return true;
+    }
+
+    /**
+     * Called in event loop once, when the response is read or the packet is dropped
+     */
+    void done() {
+    }
+
     /**
      * Created on 2024/5/18.
      * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_connection_phase_packets_protocol_ssl_request.html
@@ -368,6 +388,11 @@ public abstract class RequestPacket extends Packet {
 
         String sql;
 
+        /**
+         * Sent if the server answers with a {@link ResponsePacket.LocalInfileRequest}, whatever the file name
+         */
+        ChunkSource localInfile;
+
         @Override
         public int getCommand() {
             return COMMAND;
@@ -449,11 +474,73 @@ public abstract class RequestPacket extends Packet {
 
         int cursorType;
 
+        /**
+         * Types are sent with the first execution and when they change
+         */
+        PreparedStatement statement;
+
+        /**
+         * One for each parameter, null values are marked in the null bitmap
+         */
+        Object[] values;
+
+        /**
+         * The {@link StatementSendLongData} of its values are queued before it
+         */
+        boolean longDataQueued;
+
+        /**
+         * A long data value failed to be read, the execution is replaced by a reset
+         */
+        Throwable longDataCause;
+
         @Override
         public int getCommand() {
             return COMMAND;
         }
 
+        /**
+         * Puts it back first in the queue, after a {@link StatementSendLongData} for each long data value
+         * @return false if it has no long data value
+         */
+        boolean queueLongData(@NotNull ArrayDeque<RequestPacket> queue) {
+            longDataQueued = true;
+            boolean queued = false;
+            for (int index = values.length - 1; index >= 0; index--) {
+                if (values[index] instanceof ChunkSource) {
+                    if (!queued) {
+                        queue.addFirst(this);
+                        queued = true;
+                    }
+                    final StatementSendLongData packet = new StatementSendLongData();
+                    packet.statementId = statementId;
+                    packet.parameterId = index;
+                    packet.data = (ChunkSource) values[index];
+                    packet.execute = this;
+                    queue.addFirst(packet);
+                }
+            }
+            return queued;
+        }
+
+        /**
+         * Releases the lease taken by {@link PreparedStatement#newExecute}
+         */
+        @Override
+        void done() {
+            if (statement != null) {
+                statement.release();
+            }
+        }
+
+        static void closeLongData(@NotNull Object[] values) {
+            for (Object value : values) {
+                if (value instanceof ChunkSource) {
+                    ((ChunkSource) value).closeQuietly();
+                }
+            }
+        }
+
         @Override
         public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
             buf.assertEquals(COMMAND, buf.readInt1());
@@ -468,6 +555,172 @@ public abstract class RequestPacket extends Packet {
             buf.writeInt4(statementId);
             buf.writeInt1(cursorType);
             buf.writeInt4(1); // iteration count
+            if (statement == null || values.length == 0) {
+                return;
+            }
+            final int length = values.length;
+            final byte[] nullBitmap = new byte[(length + 7) / Byte.SIZE];
+            for (int index = 0; index < length; index++) {
+                if (values[index] == null) {
+                    nullBitmap[index / Byte.SIZE] |= 1 << (index % Byte.SIZE);
+                }
+            }
+            buf.writeFixedLengthBytes(nullBitmap);
+            final PreparedStatement statement = this.statement;
+            try {
+                final PreparedStatement.Parameter[] parameters = statement.parameters;
+                final boolean newParamsBound = statement.bind(values);
+                buf.writeInt1(newParamsBound ? 1 : 0);
+                if (newParamsBound) {
+                    for (PreparedStatement.Parameter parameter : parameters) {
+                        parameter.writeType(buf, context);
+                    }
+                }
+                for (PreparedStatement.Parameter parameter : parameters) {
+                    if (parameter.value != null && !(parameter.value instanceof ChunkSource)) {
+                        parameter.writeValue(buf, context); // long data is sent ahead
+                    }
+                }
+            } catch (RuntimeException e) {
+                statement.parametersBound = false; // types bound and not sent
+                throw e;
+            } finally {
+                statement.unbind();
+            }
+            if (writePromise == null || writePromise.isVoid()) {
+                statement.parametersBound = true;
+            } else {
+                writePromise.addListener(future -> statement.parametersBound = future.isSuccess());
+            }
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_com_stmt_fetch.html
+     *
+     * Binary rows of the cursor opened by the last execution, terminated like the rows of COM_STMT_EXECUTE
+     */
+    public static class StatementFetch extends RequestPacket {
+
+        static final int COMMAND = ServerCommands.STMT_FETCH;
+
+        int statementId;
+
+        int rowCount;
+
+        /**
+         * Of the execution which opened the cursor, not sent, the response has no column definitions
+         */
+        ResultHeader header;
+
+        @Override
+        public int getCommand() {
+            return COMMAND;
+        }
+
+        @Override
+        public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+            buf.assertEquals(COMMAND, buf.readInt1());
+            statementId = buf.readInt4();
+            rowCount = buf.readInt4();
+        }
+
+        @Override
+        public void write(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+            buf.writeInt1(COMMAND);
+            buf.writeInt4(statementId);
+            buf.writeInt4(rowCount);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "StatementFetch[statementId = %d, rowCount = %d]", statementId, rowCount
+            );
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_com_stmt_send_long_data.html
+     *
+     * Stays first in the queue while its data has chunks, each one written as a packet of its own
+     */
+    public static class StatementSendLongData extends RequestPacket {
+
+        static final int COMMAND = ServerCommands.STATEMENT_SEND_LONG_DATA;
+
+        int statementId;
+
+        int parameterId;
+
+        /**
+         * Chunks appended by the codec after the header written here
+         */
+        ChunkSource data;
+
+        /**
+         * Read and not written yet, until the channel is writable
+         */
+        ByteBuf chunk;
+
+        /**
+         * A chunk is being read by the stream reader
+         */
+        boolean reading;
+
+        /**
+         * The data has no more chunks after {@link #chunk}
+         */
+        boolean ended;
+
+        /**
+         * Followed by it in the queue
+         */
+        StatementExecute execute;
+
+        /**
+         * The first packet is sent even if the data is empty, so that the server takes the parameter as long data
+         */
+        int chunkCount;
+
+        @Override
+        public int getCommand() {
+            return COMMAND;
+        }
+
+        @Override
+        public boolean hasResponse() {
+            return false;
+        }
+
+        void releaseChunk() {
+            if (chunk != null) {
+                chunk.release();
+                chunk = null;
+            }
+        }
+
+        @Override
+        public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+            buf.assertEquals(COMMAND, buf.readInt1());
+            statementId = buf.readInt4();
+            parameterId = buf.readInt2();
+        }
+
+        @Override
+        public void write(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+            buf.writeInt1(COMMAND);
+            buf.writeInt4(statementId);
+            buf.writeInt2(parameterId);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "StatementSendLongData[statementId = %d, parameterId = %d, chunkCount = %d]", statementId, parameterId, chunkCount
+            );
         }
     }
 
@@ -486,6 +739,11 @@ public abstract class RequestPacket extends Packet {
             return COMMAND;
         }
 
+        @Override
+        public boolean hasResponse() {
+            return false;
+        }
+
         @Override
         public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
             buf.assertEquals(COMMAND, buf.readInt1());
@@ -20,21 +20,41 @@ public abstract class ResponsePacket extends Packet {
      */
     public static abstract class AbstractHandshake extends ResponsePacket implements AuthPlugin.DataHolder {
 
+        static final String MARIADB_PREFIX = "5.5.5-";
+
         String serverVersion;
 
         int threadId;
 
         byte[] scramble;
 
+        /**
+         * Leading numbers only, like 8.0.36 of 8.0.36-log;
+         * MariaDB 10 and later reports 5.5.5-10.6.12-MariaDB to old replication clients, the prefix is skipped
+         */
         @NotNull
         public int[] parseVersion() {
-            final String[] segments = serverVersion.split("\\.");
-            final int length = segments.length;
-            final int[] values = new int[length];
-            for (int index = 0; index < length; index++) {
-                values[index] = Integer.parseInt(segments[index]);
+            String version = serverVersion;
+            if (version.startsWith(MARIADB_PREFIX)) {
+                version = version.substring(MARIADB_PREFIX.length());
+            }
+            int end = 0;
+            while (end < version.length() && (Character.isDigit(version.charAt(end)) || version.charAt(end) == '.')) {
+                end++;
+            }
+            final String[] segments = version.substring(0, end).split("\\.");
+            int length = 0;
+            final int[] values = new int[segments.length];
+            for (String segment : segments) {
+                if (!segment.isEmpty()) {
+                    values[length++] = Integer.parseInt(segment);
+                }
             }
-            return values;
+            return Arrays.copyOf(values, length);
+        }
+
+        public boolean isMariaDB() {
+            return serverVersion.contains("MariaDB");
         }
 
         @Override
@@ -190,6 +210,10 @@ public abstract class ResponsePacket extends Packet {
             return segment;
         }
 
+        public boolean hasStatus(int flag) {
+            return (statusFlags & flag) != 0;
+        }
+
         @Override
         public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
             buf.assertEquals(PACKET_HEADER, buf.readInt1());
@@ -238,10 +262,6 @@ public abstract class ResponsePacket extends Packet {
             super();
         }
 
-        public boolean hasStatus(int flag) {
-            return (statusFlags & flag) != 0;
-        }
-
         @Override
         public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
             buf.assertPredicate(value -> value == PACKET_HEADER || value == EOF.PACKET_HEADER, buf.readInt1()); // packet header
@@ -340,6 +360,37 @@ public abstract class ResponsePacket extends Packet {
         }
     }
 
+    /**
+     * Created on 2026/10/17.
+     * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_com_query_response_local_infile_request.html
+     * Next: the content of the file as packets, terminated by an empty packet; then OK or ERR
+     */
+    public static class LocalInfileRequest extends ResponsePacket {
+
+        static final int PACKET_HEADER = 0xfb;
+
+        String fileName;
+
+        @Override
+        public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+            buf.assertEquals(PACKET_HEADER, buf.readInt1());
+            fileName = buf.readRestOfPacketString();
+        }
+
+        @Override
+        public void write(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+            buf.writeInt1(PACKET_HEADER);
+            buf.writeFixedLengthString(fileName);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "LocalInfileRequest[fileName = %s]", fileName
+            );
+        }
+    }
+
     /**
      * Created on 2024/5/27.
      * https://dev.mysql.com/doc/dev/mysql-server/latest/page_protocol_connection_phase_packets_protocol_auth_switch_request.html
@@ -1,6 +1,11 @@
 package indi.qsq.mysql;
 
+import io.netty.buffer.ByteBuf;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Created on 2024/5/20.
@@ -51,6 +56,11 @@ public class ResultColumn extends ResponsePacket {
 
     int decimals;
 
+    /**
+     * With {@link PreferenceFlags#DICTIONARY_ENCODE}, for {@link StringDictionary#isCandidate} columns
+     */
+    StringDictionary dictionary;
+
     public ResultColumn(@NotNull MysqlConnection context, int index) {
         super();
         this.context = context;
@@ -61,6 +71,46 @@ public class ResultColumn extends ResponsePacket {
         return (this.flags & flag) != 0;
     }
 
+    /**
+     * Decoder of string values, see {@link CharacterSets#toCharset(int)}
+     */
+    @NotNull
+    public Charset charset() {
+        return CharacterSets.toCharset(characterSet);
+    }
+
+    @Nullable
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * A string value, the instance kept in the dictionary if any
+     */
+    @NotNull
+    String decodeValue(@NotNull ByteBuf data, int index, int length) {
+        if (dictionary != null) {
+            return dictionary.intern(data, index, length);
+        }
+        return MysqlByteBuf.decodeString(data, index, length, charset());
+    }
+
+    @NotNull
+    String readValue(@NotNull MysqlByteBuf buf) {
+        final int length = buf.readLengthEncodedLength();
+        final ByteBuf data = buf.content();
+        final int index = data.readerIndex();
+        data.readerIndex(index + length);
+        return decodeValue(data, index, length);
+    }
+
+    /**
+     * Values are sent as UTF-8 or are binary, so their bytes can be passed on as they are
+     */
+    boolean hasVerbatimBytes() {
+        return characterSet == CharacterSets.BINARY || charset() == StandardCharsets.UTF_8;
+    }
+
     @Override
     public boolean isSegment() {
         return true;
@@ -101,6 +151,9 @@ public class ResultColumn extends ResponsePacket {
             }
         }
         buf.assertEnd();
+        if (context.hasPreference(PreferenceFlags.DICTIONARY_ENCODE) && StringDictionary.isCandidate(this)) {
+            dictionary = new StringDictionary(charset());
+        }
     }
 
     @Override
@@ -118,6 +171,7 @@ public class ResultColumn extends ResponsePacket {
             buf.writeInt1(type);
             buf.writeInt2(flags);
             buf.writeInt1(decimals);
+            buf.writeInt2(0); // zero padding
         } else {
             buf.writeLengthEncodedString(virtualTable);
             buf.writeLengthEncodedString(virtualName);
@@ -24,6 +24,17 @@ public abstract class ResultHeader extends ResponsePacket {
         super();
     }
 
+    /**
+     * Header of a statement without result set
+     */
+    @NotNull
+    static ResultHeader empty() {
+        final ResultHeader header = new ResultTextHeader();
+        header.columns = new ResultColumn[0];
+        header.finish();
+        return header;
+    }
+
     public int columnCount() {
         return columns.length;
     }
@@ -120,6 +131,11 @@ public abstract class ResultHeader extends ResponsePacket {
 
         static final int PACKET_HEADER = OK.PACKET_HEADER;
 
+        /**
+         * MariaDB takes it as the statement last prepared on the connection
+         */
+        static final int LAST_STATEMENT_ID = 0xffffffff;
+
         ResultColumn[] parameters; // parameter definition block first, then column definition block
 
         int statementId;
@@ -132,6 +148,18 @@ public abstract class ResultHeader extends ResponsePacket {
             return parameters.length;
         }
 
+        /**
+         * For executing a statement whose prepare response has not arrived
+         */
+        @NotNull
+        static StatementPrepareOK last(int parameterCount) {
+            final StatementPrepareOK header = new StatementPrepareOK();
+            header.statementId = LAST_STATEMENT_ID;
+            header.parameters = new ResultColumn[parameterCount];
+            header.columns = new ResultColumn[0];
+            return header;
+        }
+
         public boolean hasNext() {
             return index < parameters.length + columns.length;
         }
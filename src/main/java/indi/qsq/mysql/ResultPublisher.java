@@ -0,0 +1,160 @@
+package indi.qsq.mysql;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Created on 2026/10/17.
+ * Rows of a query as a {@link Flow.Publisher}, over a flow controlled {@link PacketCollector.ResultHeaderConsumer}:
+ * {@link Flow.Subscription#request} adds to the demand which drives the socket reads, see {@link PacketCollector.RowDemand}.
+ * The query is sent when subscribed, so there is one subscriber at most.
+ * Rows of all result sets of the command are published, read them with the columns of {@link #getHeader()} inside onNext,
+ * or implement {@link HeaderSubscriber} to be told where each result set starts;
+ * a {@link ResultRow.Raw} is released by the subscriber, like by other consumers.
+ */
+public class ResultPublisher implements Flow.Publisher<ResultRow> {
+
+    @NotNull
+    private final Consumer<PacketCollector.ResultHeaderConsumer> query;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Created on 2026/10/17.
+     * A subscriber which keeps rows past onNext, or reads a multi-result command, gets the header of each result set
+     */
+    public interface HeaderSubscriber extends Flow.Subscriber<ResultRow> {
+
+        /**
+         * Called before the rows of each result set, in order with {@link #onNext}, also for a result set without rows
+         */
+        void onHeader(@NotNull ResultHeader header);
+    }
+
+    /**
+     * Of the result set being published, replaced when the next result set of the command starts
+     */
+    @Nullable
+    private volatile ResultHeader header;
+
+    ResultPublisher(@NotNull Consumer<PacketCollector.ResultHeaderConsumer> query) {
+        super();
+        this.query = query;
+    }
+
+    @Nullable
+    public ResultHeader getHeader() {
+        return header;
+    }
+
+    @Override
+    public void subscribe(@NotNull Flow.Subscriber<? super ResultRow> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long count) {
+                    // pass
+                }
+
+                @Override
+                public void cancel() {
+                    // pass
+                }
+            });
+            subscriber.onError(new IllegalStateException("Already subscribed, the query is sent once"));
+            return;
+        }
+        query.accept(new Subscription(subscriber));
+    }
+
+    class Subscription implements Flow.Subscription, PacketCollector.ResultHeaderConsumer, PacketCollector.ResultContentConsumer {
+
+        @NotNull
+        final Flow.Subscriber<? super ResultRow> subscriber;
+
+        private PacketCollector.RowDemand demand;
+
+        /**
+         * After onError, onComplete or cancel, nothing more is signalled
+         */
+        private volatile boolean done;
+
+        Subscription(@NotNull Flow.Subscriber<? super ResultRow> subscriber) {
+            super();
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public boolean subscribe(@NotNull PacketCollector.RowDemand demand) {
+            this.demand = demand;
+            subscriber.onSubscribe(this);
+            return true;
+        }
+
+        @Override
+        public void request(long count) {
+            if (done) {
+                return;
+            }
+            if (count <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Non-positive request " + count)); // rule 3.9
+                return;
+            }
+            demand.request(count);
+        }
+
+        @Override
+        public void cancel() {
+            if (!done) {
+                done = true;
+                demand.cancel();
+            }
+        }
+
+        @Override
+        public void error(@Nullable ResponsePacket.Error error) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (demand == null) {
+                subscriber.onSubscribe(this); // failed before the collector was created, onSubscribe goes first
+            }
+            if (error != null) {
+                subscriber.onError(new MysqlProtocolException(error));
+            } else {
+                subscriber.onError(new MysqlException("Query failed"));
+            }
+        }
+
+        @Override
+        public PacketCollector.ResultContentConsumer accept(@NotNull ResultHeader header) {
+            ResultPublisher.this.header = header;
+            if (!done && subscriber instanceof HeaderSubscriber) {
+                ((HeaderSubscriber) subscriber).onHeader(header);
+            }
+            return this;
+        }
+
+        @Override
+        public void next(@NotNull ResultRow row) {
+            if (done) {
+                return;
+            }
+            subscriber.onNext(row);
+        }
+
+        @Override
+        public void finish(@NotNull ResponsePacket.EOF end) {
+            if (!done && !end.hasStatus(ServerStatus.MORE_RESULTS_EXISTS)) {
+                done = true;
+                subscriber.onComplete();
+            }
+        }
+    }
+}
@@ -2,10 +2,13 @@ package indi.qsq.mysql;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.AsciiString;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Serializable;
 import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -65,6 +68,43 @@ public abstract class ResultRow extends ResponsePacket {
         }
     }
 
+    /**
+     * A view of the value; the lazy rows may share the payload instead of copying, then it is valid until the row is released
+     */
+    public CharSequence getCharSequence(@NotNull ResultColumn column) throws MysqlException {
+        return getString(column);
+    }
+
+    /**
+     * Code of the value in the {@link ResultColumn#getDictionary()} of the column.
+     * Rows which keep decoded values interned them from the raw bytes when read, so the kept instance is looked up, not encoded again.
+     * @return -1 if the column has no dictionary, or the value is not kept in it
+     * @throws NullPointerException if NULL
+     */
+    public int getDictionaryCode(@NotNull ResultColumn column) throws MysqlException, NullPointerException {
+        final StringDictionary dictionary = column.dictionary;
+        if (dictionary == null) {
+            return -1;
+        }
+        final String value = getString(column);
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        return dictionary.code(value);
+    }
+
+    /**
+     * Appends the value as sent, for strings, blobs and decimals, if it is UTF-8 or binary; otherwise the String is encoded with UTF-8
+     * @throws NullPointerException if NULL
+     */
+    void writeBytes(@NotNull ResultColumn column, @NotNull ByteBuf out) throws MysqlException, NullPointerException {
+        final String string = getString(column);
+        if (string == null) {
+            throw new NullPointerException();
+        }
+        out.writeCharSequence(string, StandardCharsets.UTF_8);
+    }
+
     public abstract void getMysqlDateTime(@NotNull ResultColumn column, @NotNull MysqlDateTime value) throws MysqlException, NullPointerException;
 
     public MysqlDateTime getMysqlDateTime(@NotNull ResultColumn column) throws MysqlException {
@@ -113,6 +153,16 @@ public abstract class ResultRow extends ResponsePacket {
             }
         }
 
+        @Override
+        void writeBytes(@NotNull ResultColumn column, @NotNull ByteBuf out) throws NullPointerException {
+            final Object value = values[column.index];
+            if (value instanceof byte[]) {
+                out.writeBytes((byte[]) value);
+            } else {
+                out.writeCharSequence(value.toString(), StandardCharsets.UTF_8); // throws NullPointerException
+            }
+        }
+
         @Override
         public int size() {
             return values.length;
@@ -348,14 +398,25 @@ public abstract class ResultRow extends ResponsePacket {
 
         protected MysqlByteBuf buf;
 
+        /**
+         * Reused by the codec for every row of a command whose consumer accepts it,
+         * see {@link PacketCollector.ResultHeaderConsumer#acceptsFlyweightRow()}.
+         * The content is not retained and is valid only during {@link PacketCollector.ResultContentConsumer#next}, copy it to keep.
+         */
+        boolean flyweight;
+
         @Override
         public boolean isMultithreadSafe() {
             return false;
         }
 
+        public boolean isFlyweight() {
+            return flyweight;
+        }
+
         @Override
         public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
-            this.buf = buf.retain();
+            this.buf = flyweight ? buf : buf.retain();
         }
 
         @Override
@@ -392,17 +453,19 @@ public abstract class ResultRow extends ResponsePacket {
 
         @Override
         public int refCnt() {
-            return buf.refCnt();
+            return flyweight ? 1 : buf.refCnt();
         }
 
         @Override
         public Raw retain() {
-            buf.retain();
-            return this;
+            return retain(1);
         }
 
         @Override
         public Raw retain(int increment) {
+            if (flyweight) {
+                throw new IllegalStateException("Flyweight row is valid only during the callback, copy it to keep");
+            }
             buf.retain(increment);
             return this;
         }
@@ -419,14 +482,17 @@ public abstract class ResultRow extends ResponsePacket {
             return this;
         }
 
+        /**
+         * Nothing to release for a flyweight row
+         */
         @Override
         public boolean release() {
-            return buf.release();
+            return release(1);
         }
 
         @Override
         public boolean release(int decrement) {
-            return buf.release(decrement);
+            return !flyweight && buf.release(decrement);
         }
     }
 
@@ -477,12 +543,12 @@ public abstract class ResultRow extends ResponsePacket {
 
         @Override
         public float getFloat(@NotNull ResultColumn column) throws NullPointerException {
-            return Float.parseFloat(values[column.index]); // throws NullPointerException internally
+            return NumberParser.parseFloat(values[column.index]); // throws NullPointerException internally
         }
 
         @Override
         public double getDouble(@NotNull ResultColumn column) throws NullPointerException {
-            return Double.parseDouble(values[column.index]); // throws NullPointerException internally
+            return NumberParser.parseDouble(values[column.index]); // throws NullPointerException internally
         }
 
         @Override
@@ -497,13 +563,14 @@ public abstract class ResultRow extends ResponsePacket {
 
         @Override
         public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
-            final int length = context.resultHeader.columns.length;
+            final ResultColumn[] columns = context.resultHeader.columns;
+            final int length = columns.length;
             values = new String[length];
             for (int index = 0; index < length; index++) {
                 if (buf.getInt1() == TEXT_NULL) {
                     buf.readInt1();
                 } else {
-                    values[index] = buf.readLengthEncodedString();
+                    values[index] = columns[index].readValue(buf);
                 }
             }
             buf.assertEnd();
@@ -534,6 +601,12 @@ public abstract class ResultRow extends ResponsePacket {
      */
     public static class RawText extends Raw {
 
+        /**
+         * Offset from the reader index and length of each value, two ints per column, offset -1 for NULL.
+         * Filled once in {@link #read}, so that every getter is O(1); shared by the replaced rows.
+         */
+        int[] bounds;
+
         RawText() {
             super();
         }
@@ -549,95 +622,126 @@ public abstract class ResultRow extends ResponsePacket {
         }
 
         @Override
-        public boolean isNull(@NotNull ResultColumn column) throws MysqlException {
-            final ByteBuf indirectContent = content();
-            final int start = indirectContent.readerIndex();
-            try {
-                for (int index = column.index; index > 0; index--) {
-                    if (buf.getInt1() == TEXT_NULL) {
-                        buf.readInt1();
-                    } else {
-                        buf.skipFixedLength(buf.readLengthEncodedInteger());
-                    }
-                }
-                return buf.getInt1() == TEXT_NULL;
-            } finally {
-                indirectContent.readerIndex(start);
-            }
+        public boolean isNull(@NotNull ResultColumn column) {
+            return bounds[column.index << 1] < 0;
         }
 
         @Override
-        public String getString(@NotNull ResultColumn column) throws MysqlException {
-            final ByteBuf indirectContent = content();
-            final int start = indirectContent.readerIndex();
-            try {
-                for (int index = column.index; index > 0; index--) {
-                    if (buf.getInt1() == TEXT_NULL) {
-                        buf.readInt1();
-                    } else {
-                        buf.skipFixedLength(buf.readLengthEncodedInteger());
-                    }
-                }
-                if (buf.getInt1() == TEXT_NULL) {
-                    return null;
-                } else {
-                    return buf.readLengthEncodedString();
-                }
-            } finally {
-                indirectContent.readerIndex(start);
+        public String getString(@NotNull ResultColumn column) {
+            final int offset = bounds[column.index << 1];
+            if (offset < 0) {
+                return null;
             }
+            final ByteBuf data = content();
+            return column.decodeValue(data, data.readerIndex() + offset, bounds[(column.index << 1) + 1]);
         }
 
+        /**
+         * ASCII in a heap buffer is wrapped as an {@link AsciiString} without copying, valid until the row is released
+         */
         @Override
-        public int getInteger(@NotNull ResultColumn column) throws NullPointerException {
-            final String string = getString(column);
-            if (string == null) {
-                throw new NullPointerException();
+        public CharSequence getCharSequence(@NotNull ResultColumn column) {
+            final int offset = bounds[column.index << 1];
+            if (offset < 0) {
+                return null;
             }
-            if (column.hasFlag(ColumnFlags.UNSIGNED)) {
-                return Integer.parseUnsignedInt(string); // throws NumberFormatException instead of NullPointerException internally
-            } else {
-                return Integer.parseInt(string); // throws NumberFormatException instead of NullPointerException internally
+            final ByteBuf data = content();
+            final int length = bounds[(column.index << 1) + 1];
+            final int index = data.readerIndex() + offset;
+            if (data.hasArray() && MysqlByteBuf.isAsciiCompatible(column.charset()) && MysqlByteBuf.isAscii(data, index, length)) {
+                return new AsciiString(data.array(), data.arrayOffset() + index, length, false);
             }
+            return column.decodeValue(data, index, length);
         }
 
-        @Override
-        public long getLong(@NotNull ResultColumn column) throws NullPointerException {
-            final String string = getString(column);
-            if (string == null) {
+        /**
+         * @return absolute index of the value
+         * @throws NullPointerException if NULL
+         */
+        private int valueIndex(@NotNull ResultColumn column) throws NullPointerException {
+            final int offset = bounds[column.index << 1];
+            if (offset < 0) {
                 throw new NullPointerException();
             }
-            if (column.hasFlag(ColumnFlags.UNSIGNED)) {
-                return Long.parseUnsignedLong(string); // throws NumberFormatException instead of NullPointerException internally
+            return content().readerIndex() + offset;
+        }
+
+        @Override
+        public int getDictionaryCode(@NotNull ResultColumn column) throws NullPointerException {
+            final int index = valueIndex(column);
+            if (column.dictionary == null) {
+                return -1;
+            }
+            return column.dictionary.code(content(), index, bounds[(column.index << 1) + 1]);
+        }
+
+        @Override
+        void writeBytes(@NotNull ResultColumn column, @NotNull ByteBuf out) throws NullPointerException {
+            if (column.hasVerbatimBytes()) {
+                out.writeBytes(content(), valueIndex(column), bounds[(column.index << 1) + 1]);
             } else {
-                return Long.parseLong(string); // throws NumberFormatException instead of NullPointerException internally
+                super.writeBytes(column, out); // transcoded to UTF-8
             }
         }
 
+        @Override
+        public int getInteger(@NotNull ResultColumn column) throws NullPointerException {
+            return NumberParser.parseInt(content(), valueIndex(column), bounds[(column.index << 1) + 1], column.hasFlag(ColumnFlags.UNSIGNED));
+        }
+
+        @Override
+        public long getLong(@NotNull ResultColumn column) throws NullPointerException {
+            return NumberParser.parseLong(content(), valueIndex(column), bounds[(column.index << 1) + 1], column.hasFlag(ColumnFlags.UNSIGNED));
+        }
+
         @Override
         public float getFloat(@NotNull ResultColumn column) throws NullPointerException {
-            return Float.parseFloat(getString(column)); // throws NullPointerException internally
+            return NumberParser.parseFloat(content(), valueIndex(column), bounds[(column.index << 1) + 1]);
         }
 
         @Override
         public double getDouble(@NotNull ResultColumn column) throws NullPointerException {
-            return Double.parseDouble(getString(column)); // throws NullPointerException internally
+            return NumberParser.parseDouble(content(), valueIndex(column), bounds[(column.index << 1) + 1]);
         }
 
         @Override
         public void getMysqlDateTime(@NotNull ResultColumn column, @NotNull MysqlDateTime value) throws NullPointerException {
-            value.parse(getString(column)); // throws NullPointerException
+            value.parse(content(), valueIndex(column), bounds[(column.index << 1) + 1]);
         }
 
         @Override
         public void getMysqlTime(@NotNull ResultColumn column, @NotNull MysqlTime value) throws NullPointerException {
-            value.parse(getString(column)); // throws NullPointerException
+            value.parse(content(), valueIndex(column), bounds[(column.index << 1) + 1]);
+        }
+
+        @Override
+        public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+            final ByteBuf data = buf.content();
+            final int start = data.readerIndex();
+            final int length = context.resultHeader.columns.length;
+            final int[] bounds = flyweight && this.bounds != null && this.bounds.length == length << 1 ? this.bounds : new int[length << 1];
+            for (int index = 0; index < length; index++) {
+                if (buf.getInt1() == TEXT_NULL) {
+                    buf.readInt1();
+                    bounds[index << 1] = -1;
+                } else {
+                    final int valueLength = buf.readLengthEncodedLength();
+                    bounds[index << 1] = data.readerIndex() - start;
+                    bounds[(index << 1) + 1] = valueLength;
+                    data.skipBytes(valueLength);
+                }
+            }
+            buf.assertEnd();
+            data.readerIndex(start);
+            this.bounds = bounds;
+            super.read(buf, context);
         }
 
         @Override
         public RawText replace(MysqlByteBuf directContent) {
             final RawText replaced = new RawText();
             replaced.buf = directContent;
+            replaced.bounds = flyweight ? bounds.clone() : bounds; // overwritten by the next row
             return replaced;
         }
     }
@@ -745,6 +849,7 @@ public abstract class ResultRow extends ResponsePacket {
             if (values == null || values.length != columnCount) {
                 values = new Object[columnCount];
             }
+            buf.assertEquals(0x00, buf.readInt1()); // packet header
             final ByteBuf data = buf.content();
             int byteIndex = data.readerIndex();
             int bitIndex = 2; // beginning two bits are reserved for future use
@@ -790,10 +895,11 @@ public abstract class ResultRow extends ResponsePacket {
                     case FieldTypes.ENUM:
                     case FieldTypes.SET:
                     case FieldTypes.GEOMETRY:
+                    case FieldTypes.JSON:
                     case FieldTypes.BIT:
                     case FieldTypes.DECIMAL:
                     case FieldTypes.NEW_DECIMAL:
-                        values[index] = buf.readLengthEncodedString();
+                        values[index] = column.readValue(buf);
                         break;
                     case FieldTypes.TINY_BLOB:
                     case FieldTypes.MEDIUM_BLOB:
@@ -831,6 +937,393 @@ public abstract class ResultRow extends ResponsePacket {
         }
     }
 
+    /**
+     * Created on 2026/10/17.
+     * Eagerly decoded row without boxed cells: integers and floating point values live in one long[] slot per column,
+     * doubles and floats as double bits, so only strings, blobs and temporals are objects.
+     * A number in a slot is formatted again by {@link #getString}, like Java does rather than the server.
+     */
+    public static abstract class Slotted extends ResultRow {
+
+        static final int SLOT_OBJECT = 0;
+
+        static final int SLOT_INTEGER = 1;
+
+        static final int SLOT_FLOATING = 2;
+
+        /**
+         * Columns of the header, shared by all rows of it
+         */
+        ResultColumn[] columns;
+
+        long[] slots;
+
+        /**
+         * Null only if every column has a slot
+         */
+        Object[] objects;
+
+        /**
+         * Bit set of NULL columns
+         */
+        long[] nulls;
+
+        Slotted() {
+            super();
+        }
+
+        int slotKind(@NotNull ResultColumn column) {
+            switch (column.type) {
+                case FieldTypes.TINY:
+                case FieldTypes.SHORT:
+                case FieldTypes.YEAR:
+                case FieldTypes.INT24:
+                case FieldTypes.LONG:
+                case FieldTypes.LONG_LONG:
+                    return SLOT_INTEGER;
+                case FieldTypes.FLOAT:
+                case FieldTypes.DOUBLE:
+                    return SLOT_FLOATING;
+                default:
+                    return SLOT_OBJECT;
+            }
+        }
+
+        /**
+         * Allocates the arrays for the columns of the current header
+         */
+        void allocate(@NotNull ResultColumn[] columns) {
+            final int columnCount = columns.length;
+            this.columns = columns;
+            slots = new long[columnCount];
+            nulls = new long[(columnCount + Long.SIZE - 1) >>> 6];
+            for (ResultColumn column : columns) {
+                if (slotKind(column) == SLOT_OBJECT) {
+                    objects = new Object[columnCount];
+                    break;
+                }
+            }
+        }
+
+        void setNull(int index) {
+            nulls[index >>> 6] |= 1L << index;
+        }
+
+        @Override
+        public boolean isMultithreadSafe() {
+            return true;
+        }
+
+        @Override
+        public boolean isNull(@NotNull ResultColumn column) {
+            return (nulls[column.index >>> 6] & (1L << column.index)) != 0;
+        }
+
+        @NotNull
+        private Object object(@NotNull ResultColumn column) throws NullPointerException {
+            final Object value = objects[column.index];
+            if (value == null) {
+                throw new NullPointerException();
+            }
+            return value;
+        }
+
+        private void checkNull(@NotNull ResultColumn column) throws NullPointerException {
+            if (isNull(column)) {
+                throw new NullPointerException();
+            }
+        }
+
+        @Override
+        public String getString(@NotNull ResultColumn column) {
+            if (isNull(column)) {
+                return null;
+            }
+            final long slot = slots[column.index];
+            switch (slotKind(column)) {
+                case SLOT_INTEGER:
+                    if (column.type == FieldTypes.LONG_LONG && column.hasFlag(ColumnFlags.UNSIGNED)) {
+                        return Long.toUnsignedString(slot);
+                    } else {
+                        return Long.toString(slot);
+                    }
+                case SLOT_FLOATING:
+                    if (column.type == FieldTypes.FLOAT) {
+                        return Float.toString((float) Double.longBitsToDouble(slot));
+                    } else {
+                        return Double.toString(Double.longBitsToDouble(slot));
+                    }
+                default: {
+                    final Object value = objects[column.index];
+                    if (value instanceof byte[]) {
+                        return ByteBufUtil.hexDump((byte[]) value); // like RawBinary
+                    } else {
+                        return value.toString();
+                    }
+                }
+            }
+        }
+
+        @Override
+        void writeBytes(@NotNull ResultColumn column, @NotNull ByteBuf out) throws MysqlException, NullPointerException {
+            checkNull(column);
+            if (slotKind(column) == SLOT_OBJECT && objects[column.index] instanceof byte[]) {
+                out.writeBytes((byte[]) objects[column.index]);
+            } else {
+                out.writeCharSequence(getString(column), StandardCharsets.UTF_8);
+            }
+        }
+
+        @Override
+        public int getInteger(@NotNull ResultColumn column) throws MysqlException, NullPointerException {
+            checkNull(column);
+            switch (slotKind(column)) {
+                case SLOT_INTEGER: {
+                    final long slot = slots[column.index];
+                    if (column.hasFlag(ColumnFlags.UNSIGNED) ? (slot >>> Integer.SIZE) != 0 : slot != (int) slot) {
+                        throw new NumberFormatException(getString(column));
+                    }
+                    return (int) slot;
+                }
+                case SLOT_FLOATING:
+                    return (int) Double.longBitsToDouble(slots[column.index]);
+                default: {
+                    final String string = object(column).toString();
+                    if (column.hasFlag(ColumnFlags.UNSIGNED)) {
+                        return Integer.parseUnsignedInt(string);
+                    } else {
+                        return Integer.parseInt(string);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public long getLong(@NotNull ResultColumn column) throws MysqlException, NullPointerException {
+            checkNull(column);
+            switch (slotKind(column)) {
+                case SLOT_INTEGER:
+                    return slots[column.index];
+                case SLOT_FLOATING:
+                    return (long) Double.longBitsToDouble(slots[column.index]);
+                default: {
+                    final String string = object(column).toString();
+                    if (column.hasFlag(ColumnFlags.UNSIGNED)) {
+                        return Long.parseUnsignedLong(string);
+                    } else {
+                        return Long.parseLong(string);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public float getFloat(@NotNull ResultColumn column) throws MysqlException, NullPointerException {
+            if (slotKind(column) == SLOT_OBJECT) {
+                return NumberParser.parseFloat(object(column).toString());
+            }
+            return (float) getDouble(column);
+        }
+
+        @Override
+        public double getDouble(@NotNull ResultColumn column) throws MysqlException, NullPointerException {
+            checkNull(column);
+            final long slot = slots[column.index];
+            switch (slotKind(column)) {
+                case SLOT_INTEGER:
+                    if (slot < 0 && column.type == FieldTypes.LONG_LONG && column.hasFlag(ColumnFlags.UNSIGNED)) {
+                        return (double) (slot >>> 1 | (slot & 1)) * 2.0; // rounds like an unsigned conversion
+                    }
+                    return slot;
+                case SLOT_FLOATING:
+                    return Double.longBitsToDouble(slot);
+                default:
+                    return NumberParser.parseDouble(object(column).toString());
+            }
+        }
+
+        @Override
+        public void getMysqlDateTime(@NotNull ResultColumn column, @NotNull MysqlDateTime value) throws MysqlException, NullPointerException {
+            final Object object = object(column);
+            if (object instanceof MysqlDateTime) {
+                value.set((MysqlDateTime) object);
+            } else if (object instanceof String) {
+                value.parse((String) object);
+            } else {
+                throw new MysqlException();
+            }
+        }
+
+        @Override
+        public void getMysqlTime(@NotNull ResultColumn column, @NotNull MysqlTime value) throws MysqlException, NullPointerException {
+            final Object object = object(column);
+            if (object instanceof MysqlTime) {
+                value.set((MysqlTime) object);
+            } else if (object instanceof String) {
+                value.parse((String) object);
+            } else {
+                throw new MysqlException();
+            }
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * Integers and floating point numbers are parsed in place, others are kept as strings like {@link DecodedText};
+     * zero filled integers keep their text.
+     */
+    public static class SlottedText extends Slotted {
+
+        SlottedText() {
+            super();
+        }
+
+        @Override
+        public boolean isBinary() {
+            return false;
+        }
+
+        @Override
+        public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+            final ResultColumn[] columns = context.resultHeader.columns;
+            allocate(columns);
+            final ByteBuf data = buf.content();
+            for (int index = 0; index < columns.length; index++) {
+                if (buf.getInt1() == TEXT_NULL) {
+                    buf.readInt1();
+                    setNull(index);
+                    continue;
+                }
+                final ResultColumn column = columns[index];
+                final int kind = slotKind(column);
+                if (kind == SLOT_OBJECT) {
+                    objects[index] = column.readValue(buf);
+                    continue;
+                }
+                final int length = buf.readLengthEncodedLength();
+                final int valueIndex = data.readerIndex();
+                if (kind == SLOT_INTEGER) {
+                    slots[index] = NumberParser.parseLong(data, valueIndex, length, column.hasFlag(ColumnFlags.UNSIGNED));
+                } else if (column.type == FieldTypes.FLOAT) {
+                    slots[index] = Double.doubleToRawLongBits(NumberParser.parseFloat(data, valueIndex, length));
+                } else {
+                    slots[index] = Double.doubleToRawLongBits(NumberParser.parseDouble(data, valueIndex, length));
+                }
+                data.skipBytes(length);
+            }
+            buf.assertEnd();
+        }
+
+        @Override
+        int slotKind(@NotNull ResultColumn column) {
+            if (column.hasFlag(ColumnFlags.ZERO_FILL)) {
+                return SLOT_OBJECT; // keeps the padding
+            }
+            return super.slotKind(column);
+        }
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * Like {@link DecodedBinary}, but numbers are stored in slots, extended by their signedness
+     */
+    public static class SlottedBinary extends Slotted {
+
+        SlottedBinary() {
+            super();
+        }
+
+        @Override
+        public boolean isBinary() {
+            return true;
+        }
+
+        @Override
+        public void read(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+            final ResultColumn[] columns = context.resultHeader.columns;
+            final int columnCount = columns.length;
+            allocate(columns);
+            buf.assertEquals(0x00, buf.readInt1()); // packet header
+            final ByteBuf data = buf.content();
+            int byteIndex = data.readerIndex();
+            int bitIndex = 2; // beginning two bits are reserved for future use
+            buf.skipFixedLength((columnCount + 9) / Byte.SIZE); // null map length
+            for (int index = 0; index < columnCount; index++) {
+                boolean isNull = (data.getByte(byteIndex) & (1 << bitIndex)) != 0;
+                if (++bitIndex == Byte.SIZE) {
+                    byteIndex++;
+                    bitIndex = 0;
+                }
+                ResultColumn column = columns[index];
+                if (isNull) {
+                    if (column.hasFlag(ColumnFlags.NOT_NULL)) { // contradiction
+                        throw new MysqlException();
+                    }
+                    setNull(index);
+                    continue;
+                }
+                final boolean unsigned = column.hasFlag(ColumnFlags.UNSIGNED);
+                switch (column.type) {
+                    case FieldTypes.TINY:
+                        slots[index] = unsigned ? buf.readInt1() : (byte) buf.readInt1();
+                        break;
+                    case FieldTypes.SHORT:
+                    case FieldTypes.YEAR:
+                        slots[index] = unsigned ? buf.readInt2() : (short) buf.readInt2();
+                        break;
+                    case FieldTypes.INT24:
+                    case FieldTypes.LONG:
+                        slots[index] = unsigned ? Integer.toUnsignedLong(buf.readInt4()) : buf.readInt4();
+                        break;
+                    case FieldTypes.LONG_LONG:
+                        slots[index] = buf.readInt8();
+                        break;
+                    case FieldTypes.FLOAT:
+                        slots[index] = Double.doubleToRawLongBits(Float.intBitsToFloat(buf.readInt4()));
+                        break;
+                    case FieldTypes.DOUBLE:
+                        slots[index] = buf.readInt8(); // already double bits
+                        break;
+                    case FieldTypes.VAR_CHAR:
+                    case FieldTypes.VAR_STRING:
+                    case FieldTypes.STRING:
+                    case FieldTypes.ENUM:
+                    case FieldTypes.SET:
+                    case FieldTypes.GEOMETRY:
+                    case FieldTypes.JSON:
+                    case FieldTypes.BIT:
+                    case FieldTypes.DECIMAL:
+                    case FieldTypes.NEW_DECIMAL:
+                        objects[index] = column.readValue(buf);
+                        break;
+                    case FieldTypes.TINY_BLOB:
+                    case FieldTypes.MEDIUM_BLOB:
+                    case FieldTypes.LONG_BLOB:
+                    case FieldTypes.BLOB:
+                        objects[index] = buf.readLengthEncodedBytes();
+                        break;
+                    case FieldTypes.DATE:
+                    case FieldTypes.DATE_TIME:
+                    case FieldTypes.TIMESTAMP: {
+                        MysqlDateTime value = new MysqlDateTime();
+                        value.read(buf);
+                        objects[index] = value;
+                        break;
+                    }
+                    case FieldTypes.TIME: {
+                        MysqlTime value = new MysqlTime();
+                        value.read(buf);
+                        objects[index] = value;
+                        break;
+                    }
+                    default:
+                        throw new MysqlException();
+                }
+            }
+            buf.assertEnd();
+        }
+    }
+
     /**
      * Created on 2024/5/22.
      */
@@ -876,10 +1369,11 @@ public abstract class ResultRow extends ResponsePacket {
                 case FieldTypes.ENUM:
                 case FieldTypes.SET:
                 case FieldTypes.GEOMETRY:
+                case FieldTypes.JSON:
                 case FieldTypes.BIT:
                 case FieldTypes.DECIMAL:
                 case FieldTypes.NEW_DECIMAL:
-                    return buf.readLengthEncodedString();
+                    return column.readValue(buf);
                 case FieldTypes.TINY_BLOB:
                 case FieldTypes.MEDIUM_BLOB:
                 case FieldTypes.LONG_BLOB:
@@ -890,6 +1384,61 @@ public abstract class ResultRow extends ResponsePacket {
             }
         }
 
+        /**
+         * Like {@link RawText#getCharSequence}, for string columns
+         */
+        @Override
+        public CharSequence getCharSequence(@NotNull ResultColumn column) throws MysqlException {
+            switch (column.type) {
+                case FieldTypes.VAR_CHAR:
+                case FieldTypes.VAR_STRING:
+                case FieldTypes.STRING:
+                case FieldTypes.ENUM:
+                case FieldTypes.SET:
+                case FieldTypes.JSON:
+                case FieldTypes.DECIMAL:
+                case FieldTypes.NEW_DECIMAL: {
+                    if (positions[column.index] == BINARY_NULL) {
+                        return null;
+                    }
+                    locate(column);
+                    final int length = buf.readLengthEncodedLength();
+                    final ByteBuf data = content();
+                    final int index = data.readerIndex();
+                    if (data.hasArray() && MysqlByteBuf.isAsciiCompatible(column.charset()) && MysqlByteBuf.isAscii(data, index, length)) {
+                        return new AsciiString(data.array(), data.arrayOffset() + index, length, false);
+                    }
+                    return column.decodeValue(data, index, length);
+                }
+                default:
+                    return getString(column);
+            }
+        }
+
+        /**
+         * Dictionary columns are all strings
+         */
+        @Override
+        public int getDictionaryCode(@NotNull ResultColumn column) throws NullPointerException {
+            locate(column);
+            if (column.dictionary == null) {
+                return -1;
+            }
+            final int length = buf.readLengthEncodedLength();
+            return column.dictionary.code(content(), content().readerIndex(), length);
+        }
+
+        @Override
+        void writeBytes(@NotNull ResultColumn column, @NotNull ByteBuf out) throws NullPointerException {
+            if (!column.hasVerbatimBytes()) {
+                super.writeBytes(column, out); // transcoded to UTF-8
+                return;
+            }
+            locate(column);
+            final int length = buf.readLengthEncodedLength();
+            out.writeBytes(content(), length);
+        }
+
         @Override
         public int getInteger(@NotNull ResultColumn column) throws MysqlException, NullPointerException {
             locate(column);
@@ -956,7 +1505,10 @@ public abstract class ResultRow extends ResponsePacket {
                     return (float) Double.longBitsToDouble(buf.readInt8());
                 case FieldTypes.DECIMAL:
                 case FieldTypes.NEW_DECIMAL:
-                    return Float.parseFloat(buf.readLengthEncodedString());
+                    final int length = buf.readLengthEncodedLength();
+                    final int start = buf.content().readerIndex();
+                    buf.content().skipBytes(length);
+                    return NumberParser.parseFloat(buf.content(), start, length);
                 default:
                     throw new MysqlException();
             }
@@ -972,7 +1524,10 @@ public abstract class ResultRow extends ResponsePacket {
                     return Double.longBitsToDouble(buf.readInt8());
                 case FieldTypes.DECIMAL:
                 case FieldTypes.NEW_DECIMAL:
-                    return Double.parseDouble(buf.readLengthEncodedString());
+                    final int length = buf.readLengthEncodedLength();
+                    final int start = buf.content().readerIndex();
+                    buf.content().skipBytes(length);
+                    return NumberParser.parseDouble(buf.content(), start, length);
                 default:
                     throw new MysqlException();
             }
@@ -1008,14 +1563,19 @@ public abstract class ResultRow extends ResponsePacket {
             final ResultColumn[] columns = context.resultHeader.columns;
             final int columnCount = columns.length;
             final int nullMapLength = (columnCount + 9) / Byte.SIZE;
+            buf.assertEquals(0x00, buf.readInt1()); // packet header
             final ByteBuf data = buf.content();
-            positions = new int[columnCount];
+            if (!flyweight || positions == null || positions.length != columnCount) {
+                positions = new int[columnCount];
+            }
             {
                 int byteIndex = data.readerIndex();
                 int bitIndex = 2; // beginning two bits are reserved for future use
                 for (int index = 0; index < columnCount; index++) {
                     if ((data.getByte(byteIndex) & (1 << bitIndex)) != 0) {
                         positions[index] = -1; // -1 means null
+                    } else {
+                        positions[index] = 0; // reused by a flyweight row
                     }
                     if (++bitIndex == Byte.SIZE) {
                         byteIndex++;
@@ -1056,6 +1616,7 @@ public abstract class ResultRow extends ResponsePacket {
                     case FieldTypes.ENUM:
                     case FieldTypes.SET:
                     case FieldTypes.GEOMETRY:
+                    case FieldTypes.JSON:
                     case FieldTypes.BIT:
                     case FieldTypes.DECIMAL:
                     case FieldTypes.NEW_DECIMAL:
@@ -1080,10 +1641,20 @@ public abstract class ResultRow extends ResponsePacket {
             buf.assertEnd();
         }
 
+        /**
+         * Positions are absolute, so the whole content is copied whatever the reader index
+         */
+        @Override
+        public RawBinary copy() {
+            final ByteBuf data = content();
+            return replace(new MysqlByteBuf(data.copy(0, data.writerIndex())));
+        }
+
         @Override
         public RawBinary replace(@NotNull MysqlByteBuf directContent) {
             final RawBinary replaced = new RawBinary();
             replaced.buf = directContent;
+            replaced.positions = flyweight ? positions.clone() : positions; // overwritten by the next row
             return replaced;
         }
     }
@@ -1091,21 +1662,4 @@ public abstract class ResultRow extends ResponsePacket {
     public static int parseInt(CharSequence string, int fromIndex, int toIndex) throws NumberFormatException {
         return Integer.parseInt(string, fromIndex, toIndex, 10); // always decimal
     }
-
-    private static final int[] TENS = {
-            1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000
-    };
-
-    public static int parseMantissaInt(CharSequence string, int fromIndex, int toIndex, int magnitude) throws NumberFormatException {
-        int value = 0;
-        for (int index = fromIndex; index < toIndex; index++) {
-            int digit = string.charAt(index) - '0';
-            if (0 < digit && digit < 10) {
-                value += digit * TENS[--magnitude];
-            } else if (digit != 0) {
-                throw new NumberFormatException();
-            }
-        }
-        return value;
-    }
 }
@@ -28,6 +28,14 @@ public class ResultSet implements MysqlImmediateCloseable {
         this(header, new ArrayList<>());
     }
 
+    /**
+     * Statement without result set
+     */
+    public ResultSet(@NotNull ResponsePacket.EOF end) {
+        this(ResultHeader.empty(), new ArrayList<>(0));
+        this.end = end;
+    }
+
     @Override
     public void close() {
         final int size = rows.size();
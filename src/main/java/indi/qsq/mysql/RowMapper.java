@@ -0,0 +1,619 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Created on 2026/10/17.
+ * Maps rows to objects of a public class with a public no-argument constructor.
+ * A property is a public non-static field, or a public setter setXxx taking one argument, which wins over a field of the same name.
+ * Columns are matched by virtual name, case-insensitive and ignoring underscores, so column user_id fills property userId;
+ * unmatched columns and properties are ignored.
+ * Setter methods are linked with {@link LambdaMetafactory} and fields are set through method handles adapted to the property type;
+ * the getter and conversion of each column are chosen once per header shape,
+ * so mapping a row neither looks up names nor switches on types; primitive values are not boxed.
+ * A NULL value leaves a primitive property unchanged.
+ */
+public class RowMapper<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RowMapper.class);
+
+    private static final ClassValue<RowMapper<?>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected RowMapper<?> computeValue(Class<?> type) {
+            return new RowMapper<>(type);
+        }
+    };
+
+    @NotNull
+    public static <T> RowMapper<T> of(@NotNull Class<T> type) throws MysqlException {
+        @SuppressWarnings("unchecked")
+        final RowMapper<T> mapper = (RowMapper<T>) MAPPERS.get(type);
+        return mapper;
+    }
+
+    @NotNull
+    final Class<T> type;
+
+    @NotNull
+    private final Supplier<T> constructor;
+
+    /**
+     * Keyed by {@link #normalize(String)}
+     */
+    private final HashMap<String, Property> properties = new HashMap<>();
+
+    private final ConcurrentHashMap<Shape, Step[]> plans = new ConcurrentHashMap<>();
+
+    private RowMapper(@NotNull Class<T> type) throws MysqlException {
+        super();
+        this.type = type;
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            final Constructor<T> constructor = type.getConstructor();
+            final MethodHandle handle = lookup.unreflectConstructor(constructor);
+            @SuppressWarnings("unchecked")
+            final Supplier<T> supplier = (Supplier<T>) link(lookup, handle, Supplier.class, "get", MethodType.methodType(Object.class), () -> {
+                final MethodHandle erased = handle.asType(MethodType.methodType(Object.class));
+                return (Supplier<Object>) () -> {
+                    try {
+                        return erased.invokeExact();
+                    } catch (Throwable e) {
+                        throw new MysqlException(e);
+                    }
+                };
+            });
+            this.constructor = supplier;
+            for (Field field : type.getFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                    final MethodHandle setter = lookup.unreflectSetter(field);
+                    properties.put(normalize(field.getName()), new Property(field.getType(), handleSetter(setter, field.getType())));
+                }
+            }
+            for (Method method : type.getMethods()) {
+                final String name = method.getName();
+                if (!Modifier.isStatic(method.getModifiers()) && name.length() > 3 && name.startsWith("set") && method.getParameterCount() == 1) {
+                    final Class<?> valueType = method.getParameterTypes()[0];
+                    properties.put(normalize(name.substring(3)), new Property(valueType, setter(lookup, lookup.unreflect(method), valueType)));
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new MysqlException(e);
+        }
+    }
+
+    /**
+     * Lower case without underscores
+     */
+    @NotNull
+    static String normalize(@NotNull String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    @NotNull
+    public T newInstance() throws MysqlException {
+        return constructor.get();
+    }
+
+    /**
+     * The plan is cached by column names, types and signedness, so binding headers of the same query again links nothing
+     */
+    @NotNull
+    public Bound<T> bind(@NotNull ResultHeader header) throws MysqlException {
+        final Shape shape = new Shape(header);
+        Step[] steps = plans.get(shape);
+        if (steps == null) {
+            steps = plans.computeIfAbsent(shape, key -> plan(header));
+        }
+        return new Bound<>(this, header, steps);
+    }
+
+    @NotNull
+    public ArrayList<T> map(@NotNull ResultSet resultSet) throws MysqlException {
+        final Bound<T> bound = bind(resultSet.header);
+        final ArrayList<T> list = new ArrayList<>(resultSet.rows.size());
+        for (ResultRow row : resultSet.rows) {
+            list.add(bound.map(row));
+        }
+        return list;
+    }
+
+    int planCount() {
+        return plans.size();
+    }
+
+    @Nullable
+    Object propertySetter(@NotNull String name) {
+        final Property property = properties.get(normalize(name));
+        return property != null ? property.setter : null;
+    }
+
+    @NotNull
+    private Step[] plan(@NotNull ResultHeader header) throws MysqlException {
+        final ArrayList<Step> steps = new ArrayList<>();
+        final int columnCount = header.columnCount();
+        for (int index = 0; index < columnCount; index++) {
+            final ResultColumn column = header.getByIndex(index);
+            final Property property = properties.get(normalize(column.virtualName));
+            if (property != null) {
+                steps.add(new Step(index, property.convert(column)));
+            }
+        }
+        return steps.toArray(new Step[0]);
+    }
+
+    /**
+     * Result columns of one header with their steps
+     */
+    public static class Bound<T> {
+
+        @NotNull
+        final RowMapper<T> mapper;
+
+        @NotNull
+        private final ResultColumn[] columns;
+
+        @NotNull
+        private final Step[] steps;
+
+        Bound(@NotNull RowMapper<T> mapper, @NotNull ResultHeader header, @NotNull Step[] steps) {
+            super();
+            this.mapper = mapper;
+            this.steps = steps;
+            this.columns = new ResultColumn[steps.length];
+            for (int index = 0; index < steps.length; index++) {
+                columns[index] = header.getByIndex(steps[index].columnIndex);
+            }
+        }
+
+        /**
+         * Reads the row during the call, so a flyweight row can be mapped
+         */
+        @NotNull
+        public T map(@NotNull ResultRow row) throws MysqlException {
+            return map(row, mapper.newInstance());
+        }
+
+        @NotNull
+        public T map(@NotNull ResultRow row, @NotNull T target) throws MysqlException {
+            final Step[] steps = this.steps;
+            for (int index = 0; index < steps.length; index++) {
+                steps[index].setter.set(target, row, columns[index]);
+            }
+            return target;
+        }
+    }
+
+    /**
+     * Sets a property from a column
+     */
+    interface Setter {
+
+        void set(@NotNull Object target, @NotNull ResultRow row, @NotNull ResultColumn column);
+    }
+
+    static class Step {
+
+        final int columnIndex;
+
+        @NotNull
+        final Setter setter;
+
+        Step(int columnIndex, @NotNull Setter setter) {
+            super();
+            this.columnIndex = columnIndex;
+            this.setter = setter;
+        }
+    }
+
+    interface IntSetter {
+
+        void set(Object target, int value);
+    }
+
+    interface LongSetter {
+
+        void set(Object target, long value);
+    }
+
+    interface FloatSetter {
+
+        void set(Object target, float value);
+    }
+
+    interface DoubleSetter {
+
+        void set(Object target, double value);
+    }
+
+    interface BooleanSetter {
+
+        void set(Object target, boolean value);
+    }
+
+    interface ObjectSetter {
+
+        void set(Object target, Object value);
+    }
+
+    @NotNull
+    private static Class<?> setterInterface(@NotNull Class<?> valueType) {
+        if (valueType == int.class) {
+            return IntSetter.class;
+        } else if (valueType == long.class) {
+            return LongSetter.class;
+        } else if (valueType == float.class) {
+            return FloatSetter.class;
+        } else if (valueType == double.class) {
+            return DoubleSetter.class;
+        } else if (valueType == boolean.class) {
+            return BooleanSetter.class;
+        } else {
+            return ObjectSetter.class;
+        }
+    }
+
+    /**
+     * (Object, value type) void, the value type kept if primitive
+     */
+    @NotNull
+    private static MethodType setterType(@NotNull Class<?> valueType) {
+        return MethodType.methodType(void.class, Object.class, valueType.isPrimitive() ? valueType : Object.class);
+    }
+
+    /**
+     * Links the method as an implementation of the setter interface; falls back to {@link #handleSetter} when it can not be linked
+     */
+    @NotNull
+    private static Object setter(@NotNull MethodHandles.Lookup lookup, @NotNull MethodHandle handle, @NotNull Class<?> valueType) {
+        return link(lookup, handle, setterInterface(valueType), "set", setterType(valueType), () -> handleSetter(handle, valueType));
+    }
+
+    @NotNull
+    private static Object link(
+            @NotNull MethodHandles.Lookup lookup, @NotNull MethodHandle handle, @NotNull Class<?> functionalInterface,
+            @NotNull String name, @NotNull MethodType samType, @NotNull Supplier<Object> fallback
+    ) {
+        try {
+            final CallSite site = LambdaMetafactory.metafactory(
+                    lookup, name, MethodType.methodType(functionalInterface), samType, handle,
+                    samType.returnType() == void.class ? handle.type().changeReturnType(void.class) : handle.type()
+            );
+            return site.getTarget().invoke();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            LOGGER.warn("link {} as {}, invoked through the method handle", handle, functionalInterface.getSimpleName(), e);
+            return fallback.get();
+        }
+    }
+
+    /**
+     * Invokes the setter or field setter handle, adapted to an erased receiver and the value type, without linking a class
+     */
+    @NotNull
+    private static Object handleSetter(@NotNull MethodHandle handle, @NotNull Class<?> valueType) {
+        return new HandleSetter(handle.asType(setterType(valueType)));
+    }
+
+    /**
+     * Created on 2026/10/17.
+     * Implements every setter interface, only the one of the value type is called, so primitive values are not boxed
+     */
+    static class HandleSetter implements IntSetter, LongSetter, FloatSetter, DoubleSetter, BooleanSetter, ObjectSetter {
+
+        /**
+         * (Object, value type) void, see {@link #setterType}
+         */
+        @NotNull
+        final MethodHandle handle;
+
+        HandleSetter(@NotNull MethodHandle handle) {
+            super();
+            this.handle = handle;
+        }
+
+        @Override
+        public void set(Object target, Object value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new MysqlException(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, int value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new MysqlException(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, long value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new MysqlException(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, float value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new MysqlException(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, double value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new MysqlException(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, boolean value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new MysqlException(e);
+            }
+        }
+    }
+
+    /**
+     * A property of the mapped class
+     */
+    static class Property {
+
+        @NotNull
+        final Class<?> valueType;
+
+        /**
+         * {@link IntSetter}, {@link LongSetter}, {@link FloatSetter}, {@link DoubleSetter}, {@link BooleanSetter} or {@link ObjectSetter}
+         */
+        @NotNull
+        final Object setter;
+
+        Property(@NotNull Class<?> valueType, @NotNull Object setter) {
+            super();
+            this.valueType = valueType;
+            this.setter = setter;
+        }
+
+        /**
+         * Chooses the getter of the column for the property type
+         */
+        @NotNull
+        Setter convert(@NotNull ResultColumn column) throws MysqlException {
+            if (valueType.isPrimitive()) {
+                return convertPrimitive(column);
+            }
+            final ObjectSetter setter = (ObjectSetter) this.setter;
+            final Getter getter = getter(column);
+            return (target, row, that) -> {
+                if (row.isNull(that)) {
+                    setter.set(target, null);
+                } else {
+                    setter.set(target, getter.get(row, that));
+                }
+            };
+        }
+
+        @NotNull
+        private Setter convertPrimitive(@NotNull ResultColumn column) throws MysqlException {
+            if (valueType == int.class) {
+                final IntSetter setter = (IntSetter) this.setter;
+                if (isWide(column)) {
+                    return (target, row, that) -> {
+                        if (!row.isNull(that)) {
+                            setter.set(target, Math.toIntExact(row.getLong(that)));
+                        }
+                    };
+                }
+                return (target, row, that) -> {
+                    if (!row.isNull(that)) {
+                        setter.set(target, row.getInteger(that));
+                    }
+                };
+            } else if (valueType == long.class) {
+                final LongSetter setter = (LongSetter) this.setter;
+                return (target, row, that) -> {
+                    if (!row.isNull(that)) {
+                        setter.set(target, row.getLong(that));
+                    }
+                };
+            } else if (valueType == float.class) {
+                final FloatSetter setter = (FloatSetter) this.setter;
+                return (target, row, that) -> {
+                    if (!row.isNull(that)) {
+                        setter.set(target, row.getFloat(that));
+                    }
+                };
+            } else if (valueType == double.class) {
+                final DoubleSetter setter = (DoubleSetter) this.setter;
+                return (target, row, that) -> {
+                    if (!row.isNull(that)) {
+                        setter.set(target, row.getDouble(that));
+                    }
+                };
+            } else if (valueType == boolean.class) {
+                final BooleanSetter setter = (BooleanSetter) this.setter;
+                return (target, row, that) -> {
+                    if (!row.isNull(that)) {
+                        setter.set(target, row.getLong(that) != 0);
+                    }
+                };
+            } else {
+                throw new MysqlException("Can not map " + valueType + " from " + column);
+            }
+        }
+
+        /**
+         * Reads a value known not NULL
+         */
+        @NotNull
+        private Getter getter(@NotNull ResultColumn column) throws MysqlException {
+            final Class<?> valueType = this.valueType;
+            if (valueType == String.class || valueType == Object.class || valueType == CharSequence.class) {
+                return ResultRow::getString;
+            } else if (valueType == Integer.class) {
+                if (isWide(column)) {
+                    return (row, that) -> Math.toIntExact(row.getLong(that));
+                }
+                return ResultRow::getInteger;
+            } else if (valueType == Long.class) {
+                return ResultRow::getLong;
+            } else if (valueType == Float.class) {
+                return ResultRow::getFloat;
+            } else if (valueType == Double.class) {
+                return ResultRow::getDouble;
+            } else if (valueType == Boolean.class) {
+                return (row, that) -> row.getLong(that) != 0;
+            } else if (valueType == BigDecimal.class) {
+                return (row, that) -> new BigDecimal(row.getString(that));
+            } else if (valueType == byte[].class) {
+                return (row, that) -> {
+                    final ByteBuf buf = Unpooled.buffer();
+                    row.writeBytes(that, buf);
+                    return ByteBufUtil.getBytes(buf, buf.readerIndex(), buf.readableBytes(), false);
+                };
+            } else if (valueType == MysqlDateTime.class) {
+                return ResultRow::getMysqlDateTime;
+            } else if (valueType == MysqlTime.class) {
+                return ResultRow::getMysqlTime;
+            } else if (valueType == LocalDateTime.class) {
+                return (row, that) -> {
+                    final MysqlDateTime value = row.getMysqlDateTime(that);
+                    if (value.month == 0) {
+                        return null; // zero date
+                    }
+                    return LocalDateTime.of(value.year, value.month, value.date, value.hour, value.minute, value.second, value.microsecond * 1000);
+                };
+            } else if (valueType == LocalDate.class) {
+                return (row, that) -> {
+                    final MysqlDateTime value = row.getMysqlDateTime(that);
+                    if (value.month == 0) {
+                        return null; // zero date
+                    }
+                    return LocalDate.of(value.year, value.month, value.date);
+                };
+            } else if (valueType == LocalTime.class) {
+                if (column.type == FieldTypes.TIME) {
+                    return (row, that) -> {
+                        final MysqlTime value = row.getMysqlTime(that);
+                        if (value.isNegative || value.days != 0) {
+                            throw new MysqlException("Out of LocalTime range " + value);
+                        }
+                        return LocalTime.of(value.hour, value.minute, value.second, value.microsecond * 1000);
+                    };
+                }
+                return (row, that) -> {
+                    final MysqlDateTime value = row.getMysqlDateTime(that);
+                    return LocalTime.of(value.hour, value.minute, value.second, value.microsecond * 1000);
+                };
+            } else if (valueType.isEnum()) {
+                final Object[] constants = valueType.getEnumConstants();
+                final HashMap<String, Object> byName = new HashMap<>();
+                for (Object constant : constants) {
+                    byName.put(((Enum<?>) constant).name(), constant);
+                }
+                return (row, that) -> {
+                    final String name = row.getString(that);
+                    final Object constant = byName.get(name);
+                    if (constant == null) {
+                        throw new MysqlException("No " + valueType.getSimpleName() + " named " + name);
+                    }
+                    return constant;
+                };
+            } else {
+                throw new MysqlException("Can not map " + valueType + " from " + column);
+            }
+        }
+
+        /**
+         * Integer values beyond signed 32 bits
+         */
+        private static boolean isWide(@NotNull ResultColumn column) {
+            return column.type == FieldTypes.LONG_LONG || (column.type == FieldTypes.LONG && column.hasFlag(ColumnFlags.UNSIGNED));
+        }
+    }
+
+    interface Getter {
+
+        @Nullable
+        Object get(@NotNull ResultRow row, @NotNull ResultColumn column);
+    }
+
+    /**
+     * Key of a plan
+     */
+    static class Shape {
+
+        @NotNull
+        private final String[] names;
+
+        /**
+         * {@link FieldTypes} with the {@link ColumnFlags#UNSIGNED} bit above
+         */
+        @NotNull
+        private final int[] types;
+
+        private final int hashCode;
+
+        Shape(@NotNull ResultHeader header) {
+            super();
+            final int columnCount = header.columnCount();
+            names = new String[columnCount];
+            types = new int[columnCount];
+            for (int index = 0; index < columnCount; index++) {
+                final ResultColumn column = header.getByIndex(index);
+                names[index] = column.virtualName;
+                types[index] = column.type | (column.hasFlag(ColumnFlags.UNSIGNED) ? 0x10000 : 0);
+            }
+            hashCode = 31 * Arrays.hashCode(names) + Arrays.hashCode(types);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Shape)) {
+                return false;
+            }
+            final Shape that = (Shape) obj;
+            return hashCode == that.hashCode && Arrays.equals(names, that.names) && Arrays.equals(types, that.types);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package indi.qsq.mysql;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Created on 2026/10/17.
+ * Read-only server side cursor opened by {@link PreparedStatement#openCursor}, rows are fetched in batches of {@link #fetchSize} with COM_STMT_FETCH.
+ * The batch after the one handed out by {@link #next()} is fetched as soon as it arrives, while it is processed,
+ * so at most two batches are held and the socket carries one, whatever the size of the result.
+ * Another execution or the close of the statement closes the cursor on the server, a fetch after it fails.
+ * The cursor leases its statement until closed or exhausted, so a cached statement evicted meanwhile is not closed under it.
+ */
+public class StatementCursor implements MysqlImmediateCloseable {
+
+    @NotNull
+    final PreparedStatement statement;
+
+    @NotNull
+    final ResultHeader header;
+
+    final int fetchSize;
+
+    /**
+     * False if the server sent the rows without a cursor, as for a statement without result set
+     */
+    final boolean opened;
+
+    /**
+     * Fetched ahead and not handed out yet, only accessed in event loop
+     */
+    private Future<ResultSet> prefetched;
+
+    /**
+     * Handed out by the last {@link #next()}
+     */
+    private volatile Future<ResultSet> current;
+
+    private volatile boolean closed;
+
+    /**
+     * Holds a lease of {@link #statement}, only accessed in event loop
+     */
+    private boolean leased;
+
+    /**
+     * Called in event loop with the response of the execution, the first batch is fetched at once
+     * @param leased the lease taken for the cursor is handed over
+     */
+    StatementCursor(@NotNull PreparedStatement statement, @NotNull ResultSet execution, int fetchSize, boolean leased) {
+        super();
+        this.statement = statement;
+        this.header = execution.header;
+        this.fetchSize = fetchSize;
+        this.opened = execution.end.hasStatus(ServerStatus.CURSOR_EXISTS);
+        this.leased = leased;
+        if (opened) {
+            prefetched = fetch();
+        } else {
+            prefetched = eventLoop().newSucceededFuture(execution); // the only batch
+            release();
+        }
+    }
+
+    /**
+     * Once no more fetch is written
+     */
+    private void release() {
+        if (leased) {
+            leased = false;
+            statement.release();
+        }
+    }
+
+    @NotNull
+    private EventLoop eventLoop() {
+        return statement.connection.channel.eventLoop();
+    }
+
+    @NotNull
+    public ResultHeader getHeader() {
+        return header;
+    }
+
+    @NotNull
+    private Future<ResultSet> fetch() {
+        final Promise<ResultSet> promise = eventLoop().newPromise();
+        final RequestPacket.StatementFetch packet = new RequestPacket.StatementFetch();
+        packet.statementId = statement.resolved.statementId;
+        packet.rowCount = fetchSize;
+        packet.header = header;
+        packet.responseHandler = new PacketCollector.ResultSetCollector(promise, new ResultSet(header));
+        statement.connection.writeAndFlush(packet, promise);
+        return promise;
+    }
+
+    /**
+     * A batch is followed by another if the cursor is still open and not exhausted
+     */
+    private static boolean hasMore(@NotNull Future<ResultSet> batch) {
+        if (!batch.isSuccess()) {
+            return false;
+        }
+        final ResponsePacket.EOF end = batch.getNow().end;
+        return end.hasStatus(ServerStatus.CURSOR_EXISTS) && !end.hasStatus(ServerStatus.LAST_ROW_SENT);
+    }
+
+    /**
+     * Exact once the future of the last {@link #next()} is done; the last batch may be empty
+     */
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        final Future<ResultSet> current = this.current;
+        return current == null || !current.isDone() || hasMore(current);
+    }
+
+    /**
+     * The next batch, in order even if called again before the previous one arrives.
+     * Rows are decoded as by {@link PreparedStatement#query}, close the result set to release raw rows.
+     */
+    @NotNull
+    public Future<ResultSet> next() {
+        final Promise<ResultSet> promise = eventLoop().newPromise();
+        if (eventLoop().inEventLoop()) {
+            next(promise);
+        } else {
+            eventLoop().execute(() -> next(promise));
+        }
+        return promise;
+    }
+
+    private void next(@NotNull Promise<ResultSet> promise) {
+        final Future<ResultSet> current = this.current;
+        if (current != null && !current.isDone()) {
+            current.addListener(future -> next(promise)); // after the listener which fetches ahead
+            return;
+        }
+        if (closed) {
+            promise.setFailure(new MysqlException("Cursor closed"));
+            return;
+        }
+        if (current != null && !hasMore(current)) {
+            promise.setFailure(new MysqlException("Cursor exhausted"));
+            return;
+        }
+        final Future<ResultSet> batch = prefetched != null ? prefetched : fetch();
+        prefetched = null;
+        this.current = batch;
+        batch.addListener(future -> {
+            if (closed) {
+                return;
+            }
+            if (hasMore(batch)) {
+                prefetched = fetch();
+            } else {
+                release();
+            }
+        });
+        batch.addListener(future -> {
+            if (future.isSuccess()) {
+                promise.trySuccess(batch.getNow());
+            } else {
+                promise.tryFailure(future.cause());
+            }
+        });
+    }
+
+    /**
+     * Releases a batch fetched ahead, and closes the cursor on the server with COM_STMT_RESET if it may be open
+     */
+    @Override
+    public void close() {
+        if (eventLoop().inEventLoop()) {
+            close0();
+        } else {
+            eventLoop().execute(this::close0);
+        }
+    }
+
+    private void close0() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        final Future<ResultSet> prefetched = this.prefetched;
+        this.prefetched = null;
+        if (prefetched != null) {
+            prefetched.addListener(future -> {
+                if (future.isSuccess()) {
+                    prefetched.getNow().close();
+                }
+            });
+        }
+        final Future<ResultSet> current = this.current;
+        if (opened && (current == null || !current.isDone() || hasMore(current)) && !statement.closed.get()) {
+            final RequestPacket.StatementReset packet = new RequestPacket.StatementReset();
+            packet.statementId = statement.resolved.statementId;
+            packet.responseHandler = new PacketCollector.OkCollector(eventLoop().newPromise());
+            statement.connection.channel.writeAndFlush(packet);
+        }
+        release(); // after the reset, which a close of the statement follows
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StatementCursor[statementId = %d, fetchSize = %d, opened = %b, closed = %b]",
+                statement.resolved.statementId, fetchSize, opened, closed);
+    }
+}
@@ -0,0 +1,240 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Created on 2026/10/17.
+ * Dictionary of the values of one low-cardinality column, keyed on the raw bytes, so a repeated value is one String instance and has an int code.
+ * Open addressing with linear probing; it stops growing at {@link #maxSize} entries, later new values are decoded as usual and have no code.
+ * The rows of one result set share it through their {@link ResultColumn}; lazy rows decode on the caller's thread, so it is synchronized.
+ */
+public class StringDictionary {
+
+    static final int DEFAULT_MAX_SIZE = 4096;
+
+    /**
+     * Longer values are not kept
+     */
+    static final int MAX_VALUE_LENGTH = 64;
+
+    /**
+     * Longest declared VARCHAR kept in a dictionary, in bytes
+     */
+    static final int MAX_COLUMN_LENGTH = 256;
+
+    @NotNull
+    final Charset charset;
+
+    final int maxSize;
+
+    /**
+     * Code plus one of each slot, zero if empty; half full at most
+     */
+    private int[] slots;
+
+    private int[] hashes;
+
+    private byte[][] keys;
+
+    private String[] values;
+
+    /**
+     * Code plus one of each slot, keyed on the kept instance, see {@link #code(String)}; as full as slots
+     */
+    private int[] instances;
+
+    private int size;
+
+    public StringDictionary(@NotNull Charset charset, int maxSize) {
+        super();
+        this.charset = charset;
+        this.maxSize = maxSize;
+    }
+
+    public StringDictionary(@NotNull Charset charset) {
+        this(charset, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * ENUM and SET columns, and short text VARCHAR and CHAR columns
+     */
+    static boolean isCandidate(@NotNull ResultColumn column) {
+        if (column.hasFlag(ColumnFlags.ENUM) || column.hasFlag(ColumnFlags.SET)) {
+            return true;
+        }
+        switch (column.type) {
+            case FieldTypes.ENUM:
+            case FieldTypes.SET:
+                return true;
+            case FieldTypes.VAR_CHAR:
+            case FieldTypes.VAR_STRING:
+            case FieldTypes.STRING:
+                return column.characterSet != CharacterSets.BINARY && 0 < column.columnLength && column.columnLength <= MAX_COLUMN_LENGTH;
+            default:
+                return false;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if no such code
+     */
+    @NotNull
+    public synchronized String get(int code) throws IndexOutOfBoundsException {
+        if (code >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return values[code];
+    }
+
+    private static int hash(@NotNull ByteBuf data, int index, int length) {
+        int hash = 0x811c9dc5; // FNV-1a
+        if (data.hasArray()) {
+            final byte[] array = data.array();
+            index += data.arrayOffset();
+            for (int end = index + length; index < end; index++) {
+                hash = (hash ^ array[index]) * 0x01000193;
+            }
+        } else {
+            for (int end = index + length; index < end; index++) {
+                hash = (hash ^ data.getByte(index)) * 0x01000193;
+            }
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(@NotNull byte[] key, @NotNull ByteBuf data, int index, int length) {
+        if (key.length != length) {
+            return false;
+        }
+        if (data.hasArray()) {
+            final int start = data.arrayOffset() + index;
+            return Arrays.equals(key, 0, length, data.array(), start, start + length);
+        }
+        for (int offset = 0; offset < length; offset++) {
+            if (key[offset] != data.getByte(index + offset)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds or adds the value
+     * @return the code, or -1 if the value is too long or the dictionary is full
+     */
+    public synchronized int code(@NotNull ByteBuf data, int index, int length) {
+        if (length > MAX_VALUE_LENGTH) {
+            return -1;
+        }
+        final int hash = hash(data, index, length);
+        if (slots == null) {
+            if (maxSize <= 0) {
+                return -1;
+            }
+            slots = new int[16];
+            instances = new int[16];
+            hashes = new int[8];
+            keys = new byte[8][];
+            values = new String[8];
+        }
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (true) {
+            final int entry = slots[slot];
+            if (entry == 0) {
+                break;
+            }
+            final int code = entry - 1;
+            if (hashes[code] == hash && equals(keys[code], data, index, length)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size >= maxSize) {
+            return -1;
+        }
+        final int code = size++;
+        if (code == values.length) {
+            final int capacity = code << 1;
+            hashes = Arrays.copyOf(hashes, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        final byte[] key = new byte[length];
+        data.getBytes(index, key);
+        hashes[code] = hash;
+        keys[code] = key;
+        values[code] = MysqlByteBuf.decodeString(data, index, length, charset);
+        if (size << 1 > slots.length) {
+            rehash(slots.length << 1);
+        } else {
+            slots[slot] = code + 1;
+            put(instances, values[code].hashCode(), code);
+        }
+        return code;
+    }
+
+    private static void put(@NotNull int[] slots, int hash, int code) {
+        final int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = code + 1;
+    }
+
+    private void rehash(int capacity) {
+        final int[] slots = new int[capacity];
+        final int[] instances = new int[capacity];
+        for (int code = 0; code < size; code++) {
+            put(slots, hashes[code], code);
+            put(instances, values[code].hashCode(), code);
+        }
+        this.slots = slots;
+        this.instances = instances;
+    }
+
+    /**
+     * Finds the code of an instance returned by {@link #intern}, for rows which keep decoded values instead of the raw bytes
+     * @return -1 if the instance is not kept, even if an equal value is
+     */
+    public synchronized int code(@NotNull String value) {
+        if (instances == null) {
+            return -1;
+        }
+        final int mask = instances.length - 1;
+        int slot = value.hashCode() & mask;
+        while (true) {
+            final int entry = instances[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (values[entry - 1] == value) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * The kept instance of the value, or a new String if it can not be kept
+     */
+    @NotNull
+    public String intern(@NotNull ByteBuf data, int index, int length) {
+        synchronized (this) {
+            final int code = code(data, index, length);
+            if (code >= 0) {
+                return values[code];
+            }
+        }
+        return MysqlByteBuf.decodeString(data, index, length, charset);
+    }
+}
@@ -0,0 +1,268 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class ArrowBatchWriterTest {
+
+    /**
+     * Two full batches of 40 rows and a partial one
+     */
+    private static final int ROWS = 100;
+
+    private static final int[] TYPES = {
+            FieldTypes.LONG, FieldTypes.LONG_LONG, FieldTypes.DOUBLE, FieldTypes.VAR_STRING, FieldTypes.DATE, FieldTypes.DATE_TIME, FieldTypes.TIME
+    };
+
+    @NotNull
+    private static PacketObject[] header(@NotNull EmbeddedServer server, @NotNull int[] types, @NotNull String... names) {
+        final PacketObject[] packets = server.header(FieldTypes.NULL, names);
+        for (int index = 0; index < types.length; index++) {
+            ((ResultColumn) packets[index + 1]).type = types[index];
+        }
+        return packets;
+    }
+
+    @NotNull
+    private static PacketObject[] header(@NotNull EmbeddedServer server) {
+        return header(server, TYPES, "id", "total", "ratio", "name", "day", "created", "elapsed");
+    }
+
+    /**
+     * Both signs, NULL name every seventh row, zero date at row 7, negative times
+     */
+    @NotNull
+    private static String[] values(int row) {
+        return new String[] {
+                Integer.toString(row - 50),
+                Long.toString((row - 50) * 10_000_000_000L),
+                row + ".25",
+                row % 7 == 3 ? null : "名字" + "x".repeat(row),
+                row == 7 ? "0000-00-00" : String.format("1969-12-%02d", row % 31 + 1),
+                String.format("2026-10-%02d 12:34:%02d.5", row % 28 + 1, row % 60),
+                String.format("-%d:00:01", row)
+        };
+    }
+
+    static class Batches implements ArrowBatchWriter.Listener {
+
+        final ArrayList<ArrowBatch> batches = new ArrayList<>();
+
+        ResponsePacket.EOF end;
+
+        boolean failed;
+
+        @Override
+        public void batch(@NotNull ArrowBatch batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void finish(@NotNull ResponsePacket.EOF end) {
+            this.end = end;
+        }
+
+        @Override
+        public void error(@Nullable ResponsePacket.Error error) {
+            failed = true;
+        }
+    }
+
+    private static boolean isValid(@NotNull ArrowBatch.Vector vector, int index) {
+        return (vector.getValidity().getByte(index >>> 3) & (1 << (index & 7))) != 0;
+    }
+
+    @NotNull
+    private static Batches query(@NotNull EmbeddedServer server, @NotNull PacketObject... packets) {
+        final Batches listener = new Batches();
+        server.connection.query(ArrowBatchWriter.consumer(ByteBufAllocator.DEFAULT, 40, Integer.MAX_VALUE, listener), "select * from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets);
+        assertFalse(listener.failed);
+        assertNotNull(listener.end);
+        return listener;
+    }
+
+    private static void run(@NotNull MysqlConnection.AfterConfig config) throws Exception {
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final PacketObject[] rows = new PacketObject[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            rows[row] = textRow(values(row));
+        }
+        final Batches listener = query(server, packets(header(server), rows, end(ServerStatus.AUTO_COMMIT)));
+        assertEquals(3, listener.batches.size());
+        int row = 0;
+        for (ArrowBatch batch : listener.batches) {
+            assertEquals(row < 80 ? 40 : 20, batch.rowCount());
+            final ResultHeader resultHeader = batch.getHeader();
+            final ArrowBatch.Vector ids = batch.getVector(resultHeader.getByIndex(0));
+            assertEquals(ArrowBatch.Types.INT, ids.getType());
+            assertEquals(32, ids.getBitWidth());
+            assertTrue(ids.isSigned());
+            final ArrowBatch.Vector totals = batch.getVector(resultHeader.getByIndex(1));
+            final ArrowBatch.Vector ratios = batch.getVector(resultHeader.getByIndex(2));
+            final ArrowBatch.Vector names = batch.getVector(resultHeader.getByIndex(3));
+            assertEquals(ArrowBatch.Types.UTF8, names.getType());
+            final ArrowBatch.Vector days = batch.getVector(resultHeader.getByIndex(4));
+            final ArrowBatch.Vector created = batch.getVector(resultHeader.getByIndex(5));
+            final ArrowBatch.Vector elapsed = batch.getVector(resultHeader.getByIndex(6));
+            for (ArrowBatch.Vector vector : new ArrowBatch.Vector[]{ids, totals, ratios, names, days, created, elapsed}) {
+                assertEquals(0, vector.getValidity().readableBytes() & 7);
+                assertEquals(0, vector.getData().readableBytes() & 7);
+            }
+            for (int index = 0; index < batch.rowCount(); index++, row++) {
+                final String[] values = values(row);
+                assertEquals(Integer.parseInt(values[0]), ids.getData().getIntLE(index << 2));
+                assertEquals(Long.parseLong(values[1]), totals.getData().getLongLE(index << 3));
+                assertEquals(Double.parseDouble(values[2]), ratios.getData().getDoubleLE(index << 3), 0.0);
+                final ByteBuf offsets = names.getOffsets();
+                assertEquals(values[3] != null, isValid(names, index));
+                if (values[3] != null) {
+                    final int start = offsets.getIntLE(index << 2);
+                    assertEquals(values[3], names.getData().toString(start, offsets.getIntLE((index + 1) << 2) - start, StandardCharsets.UTF_8));
+                } else {
+                    assertEquals(offsets.getIntLE(index << 2), offsets.getIntLE((index + 1) << 2));
+                }
+                if (row == 7) {
+                    assertFalse(isValid(days, index)); // zero date
+                } else {
+                    assertTrue(isValid(days, index));
+                    assertEquals(LocalDate.parse(values[4]).toEpochDay(), days.getData().getIntLE(index << 2));
+                }
+                final LocalDateTime dateTime = LocalDateTime.parse(values[5].replace(' ', 'T'));
+                assertEquals(dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + 500_000, created.getData().getLongLE(index << 3));
+                assertEquals(-(row * 3600L + 1) * 1_000_000, elapsed.getData().getLongLE(index << 3));
+            }
+            assertEquals(row == 40 ? 1 : 0, batch.getVector(resultHeader.getByIndex(4)).getNullCount());
+            batch.close();
+            assertNull(names.getData());
+        }
+        server.close();
+    }
+
+    @Test
+    public void decodedText() throws Exception {
+        run(new MysqlConnection.AfterConfig());
+    }
+
+    @Test
+    public void rawText() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.LAZY_DECODE_TEXT;
+        run(config);
+    }
+
+    @Test
+    public void empty() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Batches listener = query(server, packets(header(server), end(ServerStatus.AUTO_COMMIT)));
+        assertEquals(1, listener.batches.size()); // the schema without rows
+        final ArrowBatch batch = listener.batches.get(0);
+        assertEquals(0, batch.rowCount());
+        for (int column = 0; column < TYPES.length; column++) {
+            final ArrowBatch.Vector vector = batch.getVector(batch.getHeader().getByIndex(column));
+            assertEquals(0, vector.getNullCount());
+            assertEquals(0, vector.getValidity().readableBytes());
+            assertEquals(0, vector.getData().readableBytes());
+        }
+        final ArrowBatch.Vector names = batch.getVector(batch.getHeader().getByIndex(3));
+        assertEquals(ArrowBatch.Types.UTF8, names.getType());
+        assertEquals(0, names.getOffsets().getIntLE(0));
+        batch.close();
+        server.close();
+    }
+
+    @Test
+    public void maxBytes() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Batches listener = new Batches();
+        server.connection.query(ArrowBatchWriter.consumer(ByteBufAllocator.DEFAULT, Integer.MAX_VALUE, 16, listener), "select name from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final PacketObject[] rows = new PacketObject[6];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = textRow((String) null);
+        }
+        server.send(1, packets(server.header(FieldTypes.VAR_STRING, "name"), rows, end(ServerStatus.AUTO_COMMIT)));
+        assertNotNull(listener.end);
+        assertEquals(2, listener.batches.size()); // no data, but 1 byte of validity and 16 of offsets after 3 rows
+        for (ArrowBatch batch : listener.batches) {
+            assertEquals(3, batch.rowCount());
+            batch.close();
+        }
+        server.close();
+    }
+
+    @Test
+    public void allNull() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final String[] nulls = new String[TYPES.length];
+        final Batches listener = query(server, packets(header(server), textRow(nulls), textRow(nulls), textRow(nulls), end(ServerStatus.AUTO_COMMIT)));
+        assertEquals(1, listener.batches.size());
+        final ArrowBatch batch = listener.batches.get(0);
+        assertEquals(3, batch.rowCount());
+        for (int column = 0; column < TYPES.length; column++) {
+            final ArrowBatch.Vector vector = batch.getVector(batch.getHeader().getByIndex(column));
+            assertEquals(3, vector.getNullCount());
+            for (int index = 0; index < 3; index++) {
+                assertFalse(isValid(vector, index));
+            }
+        }
+        final ByteBuf offsets = batch.getVector(batch.getHeader().getByIndex(3)).getOffsets();
+        assertEquals(0, offsets.getIntLE(3 << 2));
+        batch.close();
+        server.close();
+    }
+
+    @Test
+    public void boundaries() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final int[] types = {FieldTypes.TINY, FieldTypes.TINY, FieldTypes.LONG, FieldTypes.LONG_LONG, FieldTypes.LONG_LONG, FieldTypes.DATE};
+        final PacketObject[] header = header(server, types, "ut", "t", "ul", "ll", "ull", "d");
+        ((ResultColumn) header[1]).flags |= ColumnFlags.UNSIGNED;
+        ((ResultColumn) header[3]).flags |= ColumnFlags.UNSIGNED;
+        ((ResultColumn) header[5]).flags |= ColumnFlags.UNSIGNED;
+        final Batches listener = query(server, packets(header,
+                textRow("255", "-128", "4294967295", "-9223372036854775808", "18446744073709551615", "0001-01-01"),
+                textRow("0", "127", "0", "9223372036854775807", "0", "9999-12-31"),
+                end(ServerStatus.AUTO_COMMIT)));
+        final ArrowBatch batch = listener.batches.get(0);
+        final ResultHeader resultHeader = batch.getHeader();
+        final ArrowBatch.Vector unsignedTiny = batch.getVector(resultHeader.getByIndex(0));
+        assertFalse(unsignedTiny.isSigned());
+        assertEquals(255, unsignedTiny.getData().getUnsignedByte(0));
+        assertEquals(-128, batch.getVector(resultHeader.getByIndex(1)).getData().getByte(0));
+        assertEquals(127, batch.getVector(resultHeader.getByIndex(1)).getData().getByte(1));
+        assertEquals(4294967295L, batch.getVector(resultHeader.getByIndex(2)).getData().getUnsignedIntLE(0));
+        final ArrowBatch.Vector longs = batch.getVector(resultHeader.getByIndex(3));
+        assertEquals(Long.MIN_VALUE, longs.getData().getLongLE(0));
+        assertEquals(Long.MAX_VALUE, longs.getData().getLongLE(8));
+        assertEquals(-1L, batch.getVector(resultHeader.getByIndex(4)).getData().getLongLE(0)); // same bits
+        final ArrowBatch.Vector days = batch.getVector(resultHeader.getByIndex(5));
+        assertEquals(LocalDate.of(1, 1, 1).toEpochDay(), days.getData().getIntLE(0));
+        assertEquals(LocalDate.of(9999, 12, 31).toEpochDay(), days.getData().getIntLE(4));
+        batch.close();
+        server.close();
+    }
+
+    @Test
+    public void epochDay() {
+        for (LocalDate date = LocalDate.of(1, 1, 1); date.getYear() < 10000; date = date.plusDays(13)) {
+            assertEquals(date.toString(), date.toEpochDay(), ArrowBatchWriter.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package indi.qsq.mysql;
+
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class ColumnarResultSetTest {
+
+    /**
+     * More than a byte of null bitmap, and names longer than 250 bytes
+     */
+    private static final int ROWS = 100;
+
+    private static final int[] TYPES = {
+            FieldTypes.LONG, FieldTypes.LONG_LONG, FieldTypes.DOUBLE, FieldTypes.VAR_STRING, FieldTypes.DATE, FieldTypes.DATE_TIME, FieldTypes.TIME
+    };
+
+    @NotNull
+    private static PacketObject[] header(@NotNull EmbeddedServer server, @NotNull int[] types, @NotNull String... names) {
+        final PacketObject[] packets = server.header(FieldTypes.NULL, names);
+        for (int index = 0; index < types.length; index++) {
+            ((ResultColumn) packets[index + 1]).type = types[index];
+        }
+        return packets;
+    }
+
+    @NotNull
+    private static PacketObject[] header(@NotNull EmbeddedServer server) {
+        return header(server, TYPES, "id", "total", "ratio", "name", "day", "created", "elapsed");
+    }
+
+    /**
+     * Both signs, NULL name every seventh row, zero date at row 7, negative times
+     */
+    @NotNull
+    private static String[] values(int row) {
+        return new String[] {
+                Integer.toString(row - 50),
+                Long.toString((row - 50) * 10_000_000_000L),
+                row + ".25",
+                row % 7 == 3 ? null : "名字" + "x".repeat(row),
+                row == 7 ? "0000-00-00" : String.format("1969-12-%02d", row % 31 + 1),
+                String.format("2026-10-%02d 12:34:%02d.5", row % 28 + 1, row % 60),
+                String.format("-%d:00:01", row)
+        };
+    }
+
+    /**
+     * Values as sent in the binary protocol, for the types of the columns
+     */
+    @NotNull
+    private static PacketObject binaryRow(@NotNull EmbeddedServer server, @NotNull int[] types, @NotNull String... values) {
+        return raw(buf -> {
+            buf.writeInt1(0x00); // packet header
+            final byte[] bitmap = new byte[(values.length + 7 + 2) >>> 3]; // offset 2
+            for (int index = 0; index < values.length; index++) {
+                if (values[index] == null) {
+                    bitmap[(index + 2) >>> 3] |= 1 << ((index + 2) & 7);
+                }
+            }
+            buf.content().writeBytes(bitmap);
+            for (int index = 0; index < values.length; index++) {
+                final String value = values[index];
+                if (value == null) {
+                    continue;
+                }
+                switch (types[index]) {
+                    case FieldTypes.LONG:
+                        buf.writeInt4(Integer.parseInt(value));
+                        break;
+                    case FieldTypes.LONG_LONG:
+                        buf.writeInt8(Long.parseLong(value));
+                        break;
+                    case FieldTypes.DOUBLE:
+                        buf.content().writeDoubleLE(Double.parseDouble(value));
+                        break;
+                    case FieldTypes.DATE:
+                    case FieldTypes.DATE_TIME: {
+                        final MysqlDateTime dateTime = new MysqlDateTime();
+                        dateTime.parse(value);
+                        dateTime.write(buf, server.connection);
+                        break;
+                    }
+                    case FieldTypes.TIME: {
+                        final MysqlTime time = new MysqlTime();
+                        time.parse(value);
+                        time.write(buf, server.connection);
+                        break;
+                    }
+                    default:
+                        buf.writeLengthEncodedString(value);
+                }
+            }
+        });
+    }
+
+    private static void check(@NotNull ColumnarResultSet resultSet) {
+        assertEquals(ROWS, resultSet.rowCount());
+        final ResultHeader header = resultSet.getHeader();
+        final int[] ids = ((ColumnarResultSet.IntVector) resultSet.getVector(header.getByIndex(0))).values();
+        assertEquals(ROWS, ids.length);
+        final long[] totals = ((ColumnarResultSet.LongVector) resultSet.getVector(header.getByIndex(1))).values();
+        final double[] ratios = ((ColumnarResultSet.DoubleVector) resultSet.getVector(header.getByIndex(2))).values();
+        final ColumnarResultSet.BytesVector names = (ColumnarResultSet.BytesVector) resultSet.getVector(header.getByIndex(3));
+        final ColumnarResultSet.DateTimeVector days = (ColumnarResultSet.DateTimeVector) resultSet.getVector(header.getByIndex(4));
+        final ColumnarResultSet.DateTimeVector created = (ColumnarResultSet.DateTimeVector) resultSet.getVector(header.getByIndex(5));
+        final ColumnarResultSet.TimeVector elapsed = (ColumnarResultSet.TimeVector) resultSet.getVector(header.getByIndex(6));
+        assertEquals(ROWS + 1, names.offsets().length);
+        assertEquals(names.offsets()[ROWS], names.arena().length);
+        final MysqlDateTime dateTime = new MysqlDateTime();
+        final MysqlTime time = new MysqlTime();
+        for (int row = 0; row < ROWS; row++) {
+            final String[] values = values(row);
+            assertEquals(Integer.parseInt(values[0]), ids[row]);
+            assertEquals(Long.parseLong(values[1]), totals[row]);
+            assertEquals(Double.parseDouble(values[2]), ratios[row], 0.0);
+            assertEquals(values[3] == null, names.isNull(row));
+            assertEquals(values[3], names.getString(row));
+            days.getMysqlDateTime(row, dateTime);
+            assertEquals(row == 7 ? 0 : 1969, dateTime.year); // zero date kept as zero
+            assertFalse(created.isNull(row));
+            created.getMysqlDateTime(row, dateTime);
+            assertEquals(values[5] + "00000", dateTime.toString());
+            elapsed.getMysqlTime(row, time);
+            assertTrue(time.isNegative);
+            assertEquals(row, time.days * 24 + time.hour);
+            assertEquals(1, time.second);
+        }
+        assertTrue(created.values()[1] < created.values()[2]);
+    }
+
+    private static void text(@NotNull MysqlConnection.AfterConfig config) throws Exception {
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ColumnarResultSet> future = server.connection.queryColumnar("select * from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final PacketObject[] rows = new PacketObject[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            rows[row] = textRow(values(row));
+        }
+        server.send(1, packets(header(server), rows, end(ServerStatus.AUTO_COMMIT)));
+        check(future.get());
+        server.close();
+    }
+
+    @Test
+    public void decodedText() throws Exception {
+        text(new MysqlConnection.AfterConfig());
+    }
+
+    @Test
+    public void rawText() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.LAZY_DECODE_TEXT;
+        text(config);
+    }
+
+    @Test
+    public void slottedText() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.SLOTTED_DECODE;
+        text(config);
+    }
+
+    @Test
+    public void rawBinary() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.LAZY_DECODE_BINARY;
+        binary(config);
+    }
+
+    @Test
+    public void slottedBinary() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.SLOTTED_DECODE;
+        binary(config);
+    }
+
+    private static void binary(@NotNull MysqlConnection.AfterConfig config) throws Exception {
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<PreparedStatement> prepared = server.connection.prepare("select * from t");
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        final PacketObject[] columns = header(server);
+        final PacketObject[] definitions = new PacketObject[columns.length - 1];
+        System.arraycopy(columns, 1, definitions, 0, definitions.length);
+        server.send(1, packets(PreparedStatementTest.prepareOk(1, TYPES.length, 0), definitions));
+        final Future<ColumnarResultSet> future = prepared.get().queryColumnar();
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        final PacketObject[] rows = new PacketObject[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            rows[row] = binaryRow(server, TYPES, values(row));
+        }
+        server.send(1, packets(header(server), rows, end(ServerStatus.AUTO_COMMIT)));
+        check(future.get());
+        server.close();
+    }
+
+    @Test
+    public void empty() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Future<ColumnarResultSet> future = server.connection.queryColumnar("select * from t where false");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(header(server), end(ServerStatus.AUTO_COMMIT)));
+        final ColumnarResultSet resultSet = future.get();
+        assertEquals(0, resultSet.rowCount());
+        final ResultHeader header = resultSet.getHeader();
+        assertEquals(0, ((ColumnarResultSet.IntVector) resultSet.getVector(header.getByIndex(0))).values().length);
+        final ColumnarResultSet.BytesVector names = (ColumnarResultSet.BytesVector) resultSet.getVector(header.getByIndex(3));
+        assertEquals(1, names.offsets().length);
+        assertEquals(0, names.arena().length);
+        server.close();
+    }
+
+    @Test
+    public void allNull() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.SLOTTED_DECODE;
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ColumnarResultSet> future = server.connection.queryColumnar("select * from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final String[] nulls = new String[TYPES.length];
+        server.send(1, packets(header(server), textRow(nulls), textRow(nulls), end(ServerStatus.AUTO_COMMIT)));
+        final ColumnarResultSet resultSet = future.get();
+        assertEquals(2, resultSet.rowCount());
+        for (int index = 0; index < TYPES.length; index++) {
+            final ColumnarResultSet.ColumnVector vector = resultSet.getVector(resultSet.getHeader().getByIndex(index));
+            assertTrue(vector.isNull(0));
+            assertTrue(vector.isNull(1));
+        }
+        assertEquals(0L, ((ColumnarResultSet.LongVector) resultSet.getVector(resultSet.getHeader().getByIndex(1))).getLong(1));
+        assertEquals(0, ((ColumnarResultSet.BytesVector) resultSet.getVector(resultSet.getHeader().getByIndex(3))).getLength(1));
+        server.close();
+    }
+
+    @Test
+    public void boundaries() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Future<ColumnarResultSet> future = server.connection.queryColumnar("select * from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final int[] types = {FieldTypes.LONG, FieldTypes.LONG, FieldTypes.LONG_LONG, FieldTypes.LONG_LONG, FieldTypes.TIME, FieldTypes.DATE_TIME};
+        final PacketObject[] header = header(server, types, "i", "u", "l", "ul", "t", "dt");
+        ((ResultColumn) header[2]).flags |= ColumnFlags.UNSIGNED;
+        ((ResultColumn) header[4]).flags |= ColumnFlags.UNSIGNED;
+        server.send(1, packets(header,
+                textRow("-2147483648", "4294967295", "-9223372036854775808", "18446744073709551615", "-838:59:59", "9999-12-31 23:59:59.999999"),
+                textRow("2147483647", "0", "9223372036854775807", "0", "838:59:59", "1000-01-01 00:00:00"),
+                end(ServerStatus.AUTO_COMMIT)));
+        final ColumnarResultSet resultSet = future.get();
+        final ResultHeader resultHeader = resultSet.getHeader();
+        final int[] ints = ((ColumnarResultSet.IntVector) resultSet.getVector(resultHeader.getByIndex(0))).values();
+        assertEquals(Integer.MIN_VALUE, ints[0]);
+        assertEquals(Integer.MAX_VALUE, ints[1]);
+        assertEquals(4294967295L, ((ColumnarResultSet.LongVector) resultSet.getVector(resultHeader.getByIndex(1))).getLong(0)); // widened
+        final long[] longs = ((ColumnarResultSet.LongVector) resultSet.getVector(resultHeader.getByIndex(2))).values();
+        assertEquals(Long.MIN_VALUE, longs[0]);
+        assertEquals(Long.MAX_VALUE, longs[1]);
+        assertEquals(-1L, ((ColumnarResultSet.LongVector) resultSet.getVector(resultHeader.getByIndex(3))).getLong(0)); // same bits
+        final ColumnarResultSet.TimeVector times = (ColumnarResultSet.TimeVector) resultSet.getVector(resultHeader.getByIndex(4));
+        final MysqlTime time = new MysqlTime();
+        times.getMysqlTime(0, time);
+        assertTrue(time.isNegative);
+        assertEquals(838, time.days * 24 + time.hour);
+        assertEquals(59, time.second);
+        assertEquals(-times.values()[1], times.values()[0]);
+        final ColumnarResultSet.DateTimeVector dateTimes = (ColumnarResultSet.DateTimeVector) resultSet.getVector(resultHeader.getByIndex(5));
+        final MysqlDateTime dateTime = new MysqlDateTime();
+        dateTimes.getMysqlDateTime(0, dateTime);
+        assertEquals("9999-12-31 23:59:59.999999", dateTime.toString());
+        assertTrue(dateTimes.values()[1] < dateTimes.values()[0]);
+        server.close();
+    }
+
+    @Test
+    public void noResultSet() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Future<ColumnarResultSet> future = server.connection.queryColumnar("delete from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, ok(3));
+        assertEquals(0, future.get().rowCount());
+        assertEquals(3, ((ResponsePacket.OK) future.get().getEnd()).affectedRows);
+        server.close();
+    }
+}
@@ -0,0 +1,97 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Created on 2026/10/17.
+ * CPU cost of compressing and decompressing a text result set chunk, per algorithm and level.
+ * The compressed size of each level is printed on setup, ratio = payloadLength / compressedLength.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionCodecBenchmark {
+
+    @Param({"deflate", "zstd"})
+    String algorithm;
+
+    @Param({"1", "6", "9"})
+    int level;
+
+    @Param({"1024", "65536", "1048576"})
+    int payloadLength;
+
+    private EmbeddedChannel channel;
+
+    private ByteBuf packet;
+
+    private ByteBuf compressed;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel("zstd".equals(algorithm) ? new CompressionCodec.Zstd(50, level) : new CompressionCodec.Deflate(50, level));
+        packet = Unpooled.directBuffer(payloadLength + 4);
+        packet.writeMediumLE(payloadLength);
+        packet.writeByte(1);
+        int index = 0;
+        while (packet.writableBytes() > 0) {
+            // text protocol rows: lenenc strings of ids, names and datetimes
+            byte[] row = String.format("%c%d\u0008user%04d\u00132026-10-17 12:%02d:%02d", (char) Integer.toString(index).length(), index, index % 5000, index % 60, index * 7 % 60)
+                    .getBytes(StandardCharsets.ISO_8859_1);
+            packet.writeBytes(row, 0, Math.min(row.length, packet.writableBytes()));
+            index++;
+        }
+        compressed = compressOnce();
+        System.out.printf("%nalgorithm = %s, level = %d, payloadLength = %d, compressedLength = %d, ratio = %.2f%n",
+                algorithm, level, payloadLength, compressed.readableBytes(), (double) packet.readableBytes() / compressed.readableBytes());
+    }
+
+    @TearDown
+    public void tearDown() {
+        packet.release();
+        compressed.release();
+        channel.finishAndReleaseAll();
+    }
+
+    private ByteBuf compressOnce() {
+        channel.writeOutbound(packet.retainedDuplicate());
+        return channel.readOutbound();
+    }
+
+    @Benchmark
+    public int compress() {
+        final ByteBuf buf = compressOnce();
+        try {
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public int decompress() {
+        channel.writeInbound(compressed.retainedDuplicate());
+        final ByteBuf buf = channel.readInbound();
+        try {
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(CompressionCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
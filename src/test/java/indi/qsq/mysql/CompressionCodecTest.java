@@ -0,0 +1,94 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class CompressionCodecTest {
+
+    private static ByteBuf packet(int sequence, String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        final ByteBuf buf = Unpooled.buffer();
+        buf.writeMediumLE(bytes.length);
+        buf.writeByte(sequence);
+        buf.writeBytes(bytes);
+        return buf;
+    }
+
+    @Test
+    public void belowThreshold() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new CompressionCodec.Deflate(50, Deflater.DEFAULT_COMPRESSION));
+        final ByteBuf expected = packet(0, "select 1");
+        assertTrue(channel.writeOutbound(expected.retainedDuplicate()));
+        final ByteBuf compressed = channel.readOutbound();
+        assertEquals(expected.readableBytes(), compressed.getUnsignedMediumLE(0));
+        assertEquals(0, compressed.getUnsignedByte(3));
+        assertEquals(0, compressed.getUnsignedMediumLE(4));
+        compressed.release();
+        expected.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void deflate() {
+        roundTrip(new CompressionCodec.Deflate(50, Deflater.DEFAULT_COMPRESSION));
+    }
+
+    @Test
+    public void zstd() {
+        roundTrip(new CompressionCodec.Zstd(50, 3));
+    }
+
+    private static void roundTrip(CompressionCodec codec) {
+        final EmbeddedChannel channel = new EmbeddedChannel(codec);
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("row ").append(i).append(", 2026-10-17 12:00:00, hello mysql\n");
+        }
+        final ByteBuf expected = packet(0, sb.toString());
+        assertTrue(channel.writeOutbound(expected.retainedDuplicate()));
+        final ByteBuf compressed = channel.readOutbound();
+        assertTrue(compressed.readableBytes() * 5 < expected.readableBytes());
+        assertEquals(expected.readableBytes(), compressed.getUnsignedMediumLE(4));
+        assertTrue(channel.writeInbound(compressed));
+        final ByteBuf actual = channel.readInbound();
+        assertEquals(expected, actual);
+        actual.release();
+        expected.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void sequence() {
+        final CompressionCodec codec = new CompressionCodec.Deflate(50, Deflater.DEFAULT_COMPRESSION);
+        final EmbeddedChannel channel = new EmbeddedChannel(codec);
+        final ByteBuf received = packet(5, "ok");
+        final ByteBuf header = Unpooled.buffer(7);
+        header.writeMediumLE(received.readableBytes());
+        header.writeByte(5);
+        header.writeMediumLE(0);
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(header, received)));
+        ByteBuf buf = channel.readInbound();
+        assertEquals(5, buf.getUnsignedByte(3));
+        buf.release();
+        assertTrue(channel.writeOutbound(packet(6, "next")));
+        buf = channel.readOutbound();
+        assertEquals(6, buf.getUnsignedByte(3)); // follows the received compressed sequence
+        buf.release();
+        codec.resetSequence();
+        assertTrue(channel.writeOutbound(packet(0, "select 2")));
+        buf = channel.readOutbound();
+        assertEquals(0, buf.getUnsignedByte(3));
+        buf.release();
+        assertFalse(channel.finish());
+    }
+}
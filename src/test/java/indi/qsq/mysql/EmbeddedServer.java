@@ -0,0 +1,231 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ * Scripted server side of a {@link MysqlConnection} over an {@link EmbeddedChannel}, no MySQL needed
+ */
+public class EmbeddedServer {
+
+    final EmbeddedChannel channel = new EmbeddedChannel();
+
+    final MysqlConnection connection;
+
+    public EmbeddedServer(@NotNull MysqlConnection.AfterConfig config) {
+        super();
+        if (config.userName == null) {
+            config.userName = "connector-test-embedded";
+            config.password = "";
+        }
+        if (config.streamReader == null) {
+            config.setStreamReader(Runnable::run); // chunks are read by the tasks run by the embedded event loop
+        }
+        connection = new MysqlConnection(config, channel);
+    }
+
+    public EmbeddedServer() {
+        this(new MysqlConnection.AfterConfig());
+    }
+
+    @NotNull
+    public EmbeddedServer open(@NotNull String serverVersion) {
+        final ResponsePacket.HandshakeV10 handshake = new ResponsePacket.HandshakeV10();
+        handshake.serverVersion = serverVersion;
+        handshake.threadId = 1;
+        handshake.scramble = new byte[21];
+        handshake.serverCapabilitiesFlags = ~(CapabilitiesFlags.SSL | CapabilitiesFlags.COMPRESS | CapabilitiesFlags.ZSTD_COMPRESSION_ALGORITHM);
+        handshake.characterSet = CharacterSets.UTF8_GENERAL_CI;
+        handshake.statusFlags = ServerStatus.AUTO_COMMIT;
+        handshake.authPluginName = "mysql_native_password";
+        send(0, handshake);
+        read().release(); // handshake response
+        send(2, ok(0));
+        assertTrue(connection.openFuture().isSuccess());
+        return this;
+    }
+
+    @NotNull
+    public static ResponsePacket.OK ok(long affectedRows) {
+        return ok(affectedRows, ServerStatus.AUTO_COMMIT);
+    }
+
+    @NotNull
+    public static ResponsePacket.OK ok(long affectedRows, int statusFlags) {
+        final ResponsePacket.OK ok = new ResponsePacket.OK();
+        ok.affectedRows = affectedRows;
+        ok.statusFlags = statusFlags;
+        ok.statusInfo = "";
+        return ok;
+    }
+
+    @NotNull
+    public static ResponsePacket.Error error(int errorCode, @NotNull String errorMessage) {
+        final ResponsePacket.Error error = new ResponsePacket.Error();
+        error.errorCode = errorCode;
+        error.sqlState = "HY000";
+        error.errorMessage = errorMessage;
+        return error;
+    }
+
+    /**
+     * Column count followed by column definitions, as {@link ResultHeader#write} does not write the columns
+     */
+    @NotNull
+    public PacketObject[] header(int type, @NotNull String... names) {
+        final PacketObject[] packets = new PacketObject[names.length + 1];
+        packets[0] = raw(buf -> buf.writeLengthEncodedInteger(names.length));
+        for (int index = 0; index < names.length; index++) {
+            final ResultColumn column = new ResultColumn(connection, index);
+            column.schema = "connectortest";
+            column.virtualTable = column.physicalTable = "t";
+            column.virtualName = column.physicalName = names[index];
+            column.characterSet = CharacterSets.UTF8_GENERAL_CI;
+            column.type = type;
+            packets[index + 1] = column;
+        }
+        return packets;
+    }
+
+    @NotNull
+    public static PacketObject textRow(@NotNull String... values) {
+        final ResultRow.DecodedText row = new ResultRow.DecodedText();
+        row.values = values;
+        return row;
+    }
+
+    /**
+     * OK packet with EOF header, ends rows when EOF is deprecated
+     */
+    @NotNull
+    public static PacketObject end(int statusFlags) {
+        return raw(buf -> {
+            buf.writeInt1(ResponsePacket.EOF.PACKET_HEADER);
+            buf.writeLengthEncodedInteger(0);
+            buf.writeLengthEncodedInteger(0);
+            buf.writeInt2(statusFlags);
+            buf.writeInt2(0);
+        });
+    }
+
+    @NotNull
+    public static PacketObject raw(@NotNull Consumer<MysqlByteBuf> writer) {
+        return new PacketObject() {
+            @Override
+            public void write(@NotNull MysqlByteBuf buf, @NotNull MysqlConnection context) {
+                writer.accept(buf);
+            }
+        };
+    }
+
+    /**
+     * Concatenates packets and arrays of packets
+     */
+    @NotNull
+    public static PacketObject[] packets(@NotNull Object... items) {
+        final ArrayList<PacketObject> list = new ArrayList<>();
+        for (Object item : items) {
+            if (item instanceof PacketObject[]) {
+                list.addAll(Arrays.asList((PacketObject[]) item));
+            } else {
+                list.add((PacketObject) item);
+            }
+        }
+        return list.toArray(new PacketObject[0]);
+    }
+
+    @NotNull
+    public EmbeddedServer open() {
+        return open("8.0.36");
+    }
+
+    /**
+     * Frames the packets in one buffer, sequence incremented for each
+     */
+    @NotNull
+    public ByteBuf frame(int sequence, @NotNull PacketObject... packets) {
+        final ByteBuf buf = Unpooled.buffer();
+        for (PacketObject packet : packets) {
+            final int start = buf.writerIndex();
+            buf.writeZero(4); // header, set below
+            packet.write(new MysqlByteBuf(buf), connection);
+            buf.setMediumLE(start, buf.writerIndex() - start - 4);
+            buf.setByte(start + 3, sequence++);
+        }
+        return buf;
+    }
+
+    /**
+     * Delivers a buffer of frames, released by the client
+     */
+    public void send(@NotNull ByteBuf buf) {
+        channel.writeInbound(buf);
+        channel.runPendingTasks();
+    }
+
+    /**
+     * Frames and delivers the packets in one inbound buffer, sequence incremented for each
+     */
+    public void send(int sequence, @NotNull PacketObject... packets) {
+        send(frame(sequence, packets));
+    }
+
+    /**
+     * Delivers one packet as frames of {@link MysqlConnection.Codec#MAX_PAYLOAD_LENGTH} bytes and a shorter last frame, which may be empty
+     * @return sequence of the next packet
+     */
+    public int sendFrames(int sequence, @NotNull PacketObject packet) {
+        final ByteBuf payload = Unpooled.buffer();
+        packet.write(new MysqlByteBuf(payload), connection);
+        while (true) {
+            final int length = Math.min(payload.readableBytes(), MysqlConnection.Codec.MAX_PAYLOAD_LENGTH);
+            final ByteBuf frame = Unpooled.buffer(4 + length);
+            frame.writeMediumLE(length);
+            frame.writeByte(sequence++);
+            frame.writeBytes(payload, length);
+            channel.writeInbound(frame);
+            if (length < MysqlConnection.Codec.MAX_PAYLOAD_LENGTH) {
+                break;
+            }
+        }
+        payload.release();
+        channel.runPendingTasks();
+        return sequence;
+    }
+
+    /**
+     * @return the next packet written by the client with its 4 bytes header, null if nothing is written
+     */
+    public ByteBuf read() {
+        channel.runPendingTasks();
+        return channel.readOutbound();
+    }
+
+    /**
+     * @return command byte of the next packet written by the client, -1 if nothing is written
+     */
+    public int readCommand() {
+        final ByteBuf buf = read();
+        if (buf == null) {
+            return -1;
+        }
+        try {
+            return buf.getUnsignedByte(4);
+        } finally {
+            buf.release();
+        }
+    }
+
+    public void close() {
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,138 @@
+package indi.qsq.mysql;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class FlowControlTest {
+
+    static class ReadCounter extends ChannelOutboundHandlerAdapter {
+
+        int reads;
+
+        @Override
+        public void read(ChannelHandlerContext context) {
+            reads++;
+            context.read();
+        }
+    }
+
+    static class Slow implements PacketCollector.ResultHeaderConsumer, PacketCollector.ResultContentConsumer {
+
+        final ArrayList<String> values = new ArrayList<>();
+
+        final boolean flyweight;
+
+        PacketCollector.RowDemand demand;
+
+        ResultColumn column;
+
+        boolean finished;
+
+        Slow(boolean flyweight) {
+            super();
+            this.flyweight = flyweight;
+        }
+
+        @Override
+        public boolean subscribe(@NotNull PacketCollector.RowDemand demand) {
+            this.demand = demand;
+            return true;
+        }
+
+        @Override
+        public boolean acceptsFlyweightRow() {
+            return flyweight;
+        }
+
+        @Override
+        public void error(@Nullable ResponsePacket.Error error) {
+            fail();
+        }
+
+        @Override
+        public PacketCollector.ResultContentConsumer accept(@NotNull ResultHeader header) {
+            column = header.getByIndex(0);
+            return this;
+        }
+
+        @Override
+        public void next(@NotNull ResultRow row) {
+            values.add(row.getString(column));
+            if (row instanceof ResultRow.Raw) {
+                ((ResultRow.Raw) row).release();
+            }
+        }
+
+        @Override
+        public void finish(@NotNull ResponsePacket.EOF end) {
+            finished = true;
+        }
+    }
+
+    private static void demand(boolean flyweight) {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final ReadCounter counter = new ReadCounter();
+        server.channel.config().setAutoRead(false); // like MysqlConnection.create
+        server.channel.pipeline().addFirst(counter);
+        final Slow slow = new Slow(flyweight);
+        server.connection.query(slow, "select v from t");
+        slow.demand.request(2); // before the response
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final PacketObject[] header = server.header(FieldTypes.VAR_STRING, "v");
+        server.send(1, packets(header, textRow("a"), textRow("b"), textRow("c"), textRow("d"), textRow("e")));
+        assertEquals(2, slow.values.size());
+        final int reads = counter.reads;
+        server.send(8, textRow("f")); // already in flight
+        assertEquals(reads, counter.reads); // paused
+        assertEquals(2, slow.values.size());
+        slow.demand.request(2);
+        assertEquals(4, slow.values.size());
+        assertEquals(reads, counter.reads); // satisfied by pending rows
+        slow.demand.request(3);
+        assertEquals(6, slow.values.size());
+        assertEquals(reads + 1, counter.reads); // resumed
+        server.send(9, textRow("g"), end(ServerStatus.AUTO_COMMIT));
+        assertEquals("[a, b, c, d, e, f, g]", slow.values.toString());
+        assertTrue(slow.finished);
+        server.close();
+    }
+
+    @Test
+    public void demand() {
+        demand(false);
+    }
+
+    @Test
+    public void flyweight() {
+        demand(true);
+    }
+
+    @Test
+    public void pendingEnd() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Slow slow = new Slow(false);
+        server.connection.query(slow, "select v from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(server.header(FieldTypes.VAR_STRING, "v"), textRow("a"), textRow("b"), end(ServerStatus.AUTO_COMMIT)));
+        assertTrue(slow.values.isEmpty());
+        assertFalse(slow.finished);
+        server.connection.query("select 1"); // takes the pipeline, the complete result stays pending
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        slow.demand.request(Long.MAX_VALUE);
+        server.channel.runPendingTasks();
+        assertEquals("[a, b]", slow.values.toString());
+        assertTrue(slow.finished);
+        server.close();
+    }
+}
@@ -0,0 +1,203 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class FlyweightRowTest {
+
+    static class Streaming implements PacketCollector.ResultHeaderConsumer, PacketCollector.ResultContentConsumer {
+
+        final ArrayList<ResultRow> copies = new ArrayList<>();
+
+        ResultRow first;
+
+        ResultColumn id;
+
+        ResultColumn name;
+
+        long sum;
+
+        int count;
+
+        boolean finished;
+
+        boolean keep = true;
+
+        @Override
+        public boolean acceptsFlyweightRow() {
+            return true;
+        }
+
+        @Override
+        public void error(@Nullable ResponsePacket.Error error) {
+            fail();
+        }
+
+        @Override
+        public PacketCollector.ResultContentConsumer accept(@NotNull ResultHeader header) {
+            id = header.getByIndex(0);
+            name = header.getByIndex(1);
+            return this;
+        }
+
+        @Override
+        public void next(@NotNull ResultRow row) {
+            if (first == null) {
+                first = row;
+            }
+            assertSame(first, row);
+            sum += row.getLong(id);
+            count++;
+            if (keep) {
+                copies.add(((ResultRow.Raw) row).copy());
+            }
+            ((ResultRow.Raw) row).release(); // does nothing
+        }
+
+        @Override
+        public void finish(@NotNull ResponsePacket.EOF end) {
+            finished = true;
+        }
+    }
+
+    @NotNull
+    private static PacketObject binaryRow(int id, @NotNull String name) {
+        return raw(buf -> {
+            buf.writeInt1(0x00); // packet header
+            buf.writeInt1(0x00); // null bitmap, offset 2
+            buf.writeInt4(id);
+            buf.writeLengthEncodedString(name);
+        });
+    }
+
+    @Test
+    public void text() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Streaming streaming = new Streaming();
+        server.connection.query(streaming, "select id, name from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final PacketObject[] header = server.header(FieldTypes.LONG, "id", "name");
+        ((ResultColumn) header[2]).type = FieldTypes.VAR_STRING;
+        server.send(1, packets(header, textRow("1", "a"), textRow("2", null), textRow("3", "ccc"), end(ServerStatus.AUTO_COMMIT)));
+        assertTrue(streaming.finished);
+        assertEquals(3, streaming.count);
+        assertEquals(6, streaming.sum);
+        final ResultRow.Raw flyweight = (ResultRow.Raw) streaming.first;
+        assertTrue(flyweight.isFlyweight());
+        try {
+            flyweight.retain();
+            fail();
+        } catch (IllegalStateException e) {
+            // pass
+        }
+        assertEquals("a", streaming.copies.get(0).getString(streaming.name));
+        assertTrue(streaming.copies.get(1).isNull(streaming.name));
+        assertEquals("ccc", streaming.copies.get(2).getString(streaming.name));
+        for (ResultRow copy : streaming.copies) {
+            assertFalse(((ResultRow.Raw) copy).isFlyweight());
+            assertTrue(((ResultRow.Raw) copy).release());
+        }
+        // the next command without a flyweight consumer gets new rows
+        server.connection.query("select 1");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.close();
+    }
+
+    @Test
+    public void binary() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final PreparedStatement statement = prepare(server);
+        final Streaming streaming = new Streaming();
+        statement.query(streaming);
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        server.send(1, packets(columns(server), binaryRow(5, "e"), binaryRow(6, "ff"), end(ServerStatus.AUTO_COMMIT)));
+        assertTrue(streaming.finished);
+        assertEquals(11, streaming.sum);
+        assertTrue(streaming.first instanceof ResultRow.RawBinary);
+        assertEquals(5, streaming.copies.get(0).getInteger(streaming.id));
+        assertEquals("e", streaming.copies.get(0).getString(streaming.name));
+        assertEquals("ff", streaming.copies.get(1).getString(streaming.name));
+        server.close();
+    }
+
+    @NotNull
+    private static PacketObject[] columns(@NotNull EmbeddedServer server) {
+        final PacketObject[] packets = server.header(FieldTypes.LONG, "id", "name");
+        ((ResultColumn) packets[2]).type = FieldTypes.VAR_STRING;
+        return packets;
+    }
+
+    @NotNull
+    private static PreparedStatement prepare(@NotNull EmbeddedServer server) throws Exception {
+        final io.netty.util.concurrent.Future<PreparedStatement> future = server.connection.prepare("select id, name from t");
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        final PacketObject[] columns = columns(server);
+        server.send(1, packets(PreparedStatementTest.prepareOk(1, 2, 0), columns[1], columns[2]));
+        return future.get();
+    }
+
+    /**
+     * Rows are framed from one inbound buffer, the allocation should not grow with the row count
+     */
+    @Test
+    public void allocation() {
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final long[] allocated = new long[2];
+        for (int round = 0; round < 2; round++) {
+            final int rows = round == 0 ? 1000 : 101000; // the difference is the cost of 100000 rows
+            final Streaming streaming = new Streaming();
+            streaming.keep = false;
+            server.connection.query(streaming, "select id, name from t");
+            assertEquals(ServerCommands.QUERY, server.readCommand());
+            final PacketObject[] header = server.header(FieldTypes.LONG, "id", "name");
+            ((ResultColumn) header[2]).type = FieldTypes.VAR_STRING;
+            final PacketObject row = textRow("7", "name");
+            final PacketObject[] packets = new PacketObject[header.length + rows + 1];
+            System.arraycopy(header, 0, packets, 0, header.length);
+            for (int index = 0; index < rows; index++) {
+                packets[header.length + index] = row;
+            }
+            packets[packets.length - 1] = end(ServerStatus.AUTO_COMMIT);
+            final ByteBuf buf = frame(server, packets);
+            final long before = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            server.channel.writeInbound(buf);
+            server.channel.runPendingTasks();
+            allocated[round] = bean.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+            assertTrue(streaming.finished);
+            assertEquals(rows, streaming.count);
+        }
+        final long perRow = (allocated[1] - allocated[0]) / 100000;
+        assertTrue("allocated " + perRow + " bytes per row", perRow < 8);
+        server.close();
+    }
+
+    /**
+     * Like {@link EmbeddedServer#send} without delivering, sequence wraps
+     */
+    @NotNull
+    private static ByteBuf frame(@NotNull EmbeddedServer server, @NotNull PacketObject[] packets) {
+        final ByteBuf buf = Unpooled.buffer();
+        int sequence = 1;
+        for (PacketObject packet : packets) {
+            final int start = buf.writerIndex();
+            buf.writeZero(4);
+            packet.write(new MysqlByteBuf(buf), server.connection);
+            buf.setMediumLE(start, buf.writerIndex() - start - 4);
+            buf.setByte(start + 3, sequence++);
+        }
+        return buf;
+    }
+}
@@ -0,0 +1,86 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ * Payloads of {@link MysqlConnection.Codec#MAX_PAYLOAD_LENGTH} bytes or more, split into frames both ways
+ */
+public class FrameTest {
+
+    private static final int MAX = MysqlConnection.Codec.MAX_PAYLOAD_LENGTH;
+
+    /**
+     * A row of one value, whose payload is the length encoded value
+     */
+    private static void decode(int valueLength) throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Future<ResultSet> future = server.connection.query("select v from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, server.header(FieldTypes.LONG_BLOB, "v"));
+        final String value = "x".repeat(valueLength);
+        final int sequence = server.sendFrames(3, textRow(value));
+        server.send(sequence, end(ServerStatus.AUTO_COMMIT));
+        final ResultSet resultSet = future.get();
+        assertEquals(1, resultSet.rows.size());
+        assertEquals(value, resultSet.rows.get(0).getString(resultSet.header.getByIndex(0)));
+        resultSet.close();
+        server.close();
+    }
+
+    @Test
+    public void decodeExactFrame() throws Exception {
+        decode(MAX - 4); // 3 bytes length after 0xfd, then an empty frame
+    }
+
+    @Test
+    public void decodeTail() throws Exception {
+        decode(MAX);
+    }
+
+    /**
+     * @return payload length of the query, checking its frames; the response takes the next sequence
+     */
+    private static int encode(@NotNull EmbeddedServer server, @NotNull String sql) throws Exception {
+        final Future<ResponsePacket.EOF> future = server.connection.execute(sql);
+        final ByteBuf buf = server.read();
+        assertNotNull(buf);
+        int payloadLength = 0;
+        int sequence = 0;
+        try {
+            while (true) {
+                final int length = buf.readUnsignedMediumLE();
+                assertEquals(sequence++, buf.readUnsignedByte());
+                assertTrue(buf.readableBytes() >= length);
+                buf.skipBytes(length);
+                payloadLength += length;
+                if (length < MAX) {
+                    break;
+                }
+            }
+            assertFalse(buf.isReadable());
+        } finally {
+            buf.release();
+        }
+        assertNull(server.read());
+        server.send(sequence, ok(0));
+        assertTrue(future.get() instanceof ResponsePacket.OK);
+        return payloadLength;
+    }
+
+    @Test
+    public void encode() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final int overhead = encode(server, ""); // command byte and query attributes
+        assertEquals(overhead + MAX - 1, encode(server, "x".repeat(MAX - 1)));
+        assertEquals(MAX, encode(server, "x".repeat(MAX - overhead))); // an empty frame after the full one
+        assertEquals(2 * MAX + 7, encode(server, "x".repeat(2 * MAX + 7 - overhead)));
+        server.close();
+    }
+}
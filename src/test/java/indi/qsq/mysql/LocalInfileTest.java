@@ -0,0 +1,237 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class LocalInfileTest {
+
+    @NotNull
+    private static PacketObject request(@NotNull String fileName) {
+        return raw(buf -> {
+            buf.writeInt1(ResponsePacket.LocalInfileRequest.PACKET_HEADER);
+            buf.writeFixedLengthString(fileName);
+        });
+    }
+
+    /**
+     * @return payload of the next packet written by the client, checking its sequence
+     */
+    @NotNull
+    private static String readContent(@NotNull EmbeddedServer server, int sequence) {
+        final ByteBuf buf = server.read();
+        assertNotNull(buf);
+        try {
+            assertEquals(buf.readableBytes() - 4, buf.getMediumLE(0));
+            assertEquals(sequence, buf.getUnsignedByte(3));
+            return buf.toString(4, buf.readableBytes() - 4, StandardCharsets.UTF_8);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void rows() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.enableLocalInfile();
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ResponsePacket.OK> future = server.connection.loadLocalInfile(
+                "LOAD DATA LOCAL INFILE 'rows' INTO TABLE t CHARACTER SET utf8mb4",
+                ChunkSource.ofRows(Arrays.asList(
+                        new Object[] {1, "a\tb", true},
+                        new Object[] {2, null, false},
+                        new Object[] {3L, "c\\d\ne", null}
+                ).iterator())
+        );
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, request("rows"));
+        assertEquals("1\ta\\tb\t1\n2\t\\N\t0\n3\tc\\\\d\\ne\t\\N\n", readContent(server, 2));
+        assertEquals("", readContent(server, 3));
+        assertFalse(future.isDone());
+        server.send(4, ok(3));
+        assertEquals(3, future.get().affectedRows);
+        server.close();
+    }
+
+    @Test
+    public void file() throws Exception {
+        final Path path = Files.createTempFile("local-infile", ".tsv");
+        try {
+            Files.write(path, "0123456789".getBytes(StandardCharsets.US_ASCII));
+            final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+            config.enableLocalInfile(4);
+            config.enablePipelining(4);
+            final EmbeddedServer server = new EmbeddedServer(config).open();
+            final Future<ResponsePacket.OK> future = server.connection.loadLocalInfile("LOAD DATA LOCAL INFILE 'f' INTO TABLE t", ChunkSource.of(path));
+            final Future<ResponsePacket.OK> ping = server.connection.ping();
+            assertEquals(ServerCommands.QUERY, server.readCommand());
+            assertNull(server.read()); // not pipelined after the load
+            server.send(1, request("f"));
+            assertEquals("0123", readContent(server, 2));
+            assertEquals("4567", readContent(server, 3));
+            assertEquals("89", readContent(server, 4));
+            assertEquals("", readContent(server, 5));
+            server.send(6, ok(1));
+            assertTrue(future.isSuccess());
+            assertEquals(ServerCommands.PING, server.readCommand());
+            server.send(1, ok(0));
+            assertTrue(ping.isSuccess());
+            server.close();
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void channel() throws Exception {
+        final Iterator<String> reads = Arrays.asList("", "ab", "", "cde").iterator();
+        final ReadableByteChannel channel = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) {
+                if (!reads.hasNext()) {
+                    return -1;
+                }
+                final byte[] bytes = reads.next().getBytes(StandardCharsets.US_ASCII);
+                dst.put(bytes);
+                return bytes.length;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+                // pass
+            }
+        };
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.enableLocalInfile();
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ResponsePacket.OK> future = server.connection.loadLocalInfile("LOAD DATA LOCAL INFILE 'c' INTO TABLE t", ChunkSource.of(channel));
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, request("c"));
+        assertEquals("ab", readContent(server, 2)); // a read which gives nothing sends nothing
+        assertEquals("cde", readContent(server, 3));
+        assertEquals("", readContent(server, 4));
+        server.send(5, ok(2));
+        assertTrue(future.isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void nonBlocking() throws Exception {
+        final Pipe pipe = Pipe.open();
+        try {
+            pipe.source().configureBlocking(false);
+            try {
+                ChunkSource.of(pipe.source());
+                fail();
+            } catch (IllegalArgumentException e) {
+                // pass
+            }
+            pipe.source().configureBlocking(true);
+            ChunkSource.of(pipe.source()).closeQuietly();
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    @Test
+    public void closeWhileReading() throws Exception {
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch resume = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        final boolean[] closedInRead = new boolean[1];
+        final ChunkSource source = new ChunkSource() {
+
+            volatile boolean inRead;
+
+            @Override
+            int read(@NotNull ByteBuf buf, int maxLength) throws IOException {
+                inRead = true;
+                reading.countDown();
+                try {
+                    resume.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                inRead = false;
+                return -1;
+            }
+
+            @Override
+            public void close() {
+                closedInRead[0] = inRead;
+                closed.countDown();
+            }
+        };
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.enableLocalInfile();
+        config.setStreamReader(command -> new Thread(command).start());
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ResponsePacket.OK> future = server.connection.loadLocalInfile("LOAD DATA LOCAL INFILE 'f' INTO TABLE t", source);
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, request("f"));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        server.send(2, error(1290, "The MySQL server is running with the --secure-file-priv option"));
+        assertFalse(future.isSuccess());
+        assertEquals(1, closed.getCount()); // by the reader, once the read returns
+        resume.countDown();
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertFalse(closedInRead[0]);
+        server.close();
+    }
+
+    @Test
+    public void noContent() {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.enableLocalInfile();
+        config.enablePipelining(4);
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ResponsePacket.EOF> future = server.connection.execute("LOAD DATA LOCAL INFILE '/etc/passwd' INTO TABLE t");
+        final Future<ResponsePacket.OK> ping = server.connection.ping();
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        assertNull(server.read()); // not pipelined after a query which may ask for content
+        server.send(1, request("/etc/passwd"));
+        assertEquals("", readContent(server, 2)); // only attached content is sent
+        server.send(3, ok(0));
+        assertTrue(future.isSuccess());
+        assertEquals(ServerCommands.PING, server.readCommand());
+        server.send(1, ok(0));
+        assertTrue(ping.isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void notEnabled() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Future<ResponsePacket.OK> future = server.connection.loadLocalInfile("LOAD DATA LOCAL INFILE 'f' INTO TABLE t",
+                ChunkSource.ofRows(Arrays.<Object[]>asList(new Object[] {1}).iterator()));
+        assertFalse(future.isSuccess());
+        assertNull(server.read());
+        server.close();
+    }
+}
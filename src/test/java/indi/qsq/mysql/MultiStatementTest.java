@@ -0,0 +1,152 @@
+package indi.qsq.mysql;
+
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class MultiStatementTest {
+
+    private static final int MORE = ServerStatus.AUTO_COMMIT | ServerStatus.MORE_RESULTS_EXISTS;
+
+    @NotNull
+    private static EmbeddedServer open() {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.enableMultiStatements();
+        return new EmbeddedServer(config).open();
+    }
+
+    @Test
+    public void negotiate() {
+        EmbeddedServer server = new EmbeddedServer().open();
+        assertFalse(server.connection.hasCapability(CapabilitiesFlags.MULTI_STATEMENTS));
+        server.close();
+        server = open();
+        assertTrue(server.connection.hasCapability(CapabilitiesFlags.MULTI_STATEMENTS));
+        assertTrue(server.connection.hasCapability(CapabilitiesFlags.MULTI_RESULTS));
+        server.close();
+    }
+
+    @Test
+    public void multiple() throws Exception {
+        final EmbeddedServer server = open();
+        final Future<List<ResultSet>> future = server.connection.queryMultiple("select 1; update t set v = 0; select 'a', 'b' union select 'c', 'd'");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(
+                server.header(FieldTypes.LONG, "1"), textRow("1"), end(MORE),
+                ok(2, MORE),
+                server.header(FieldTypes.VAR_STRING, "a", "b"), textRow("a", "b"), textRow("c", "d"), end(ServerStatus.AUTO_COMMIT)
+        ));
+        final List<ResultSet> resultSets = future.get();
+        assertEquals(3, resultSets.size());
+        assertEquals(1, resultSets.get(0).rows.size());
+        assertEquals(0, resultSets.get(1).header.columnCount());
+        assertEquals(2, ((ResponsePacket.OK) resultSets.get(1).end).affectedRows);
+        final ResultSet last = resultSets.get(2);
+        assertEquals(2, last.header.columnCount());
+        assertEquals("d", last.rows.get(1).getString(last.header.getByIndex(1)));
+        assertFalse(last.end.hasStatus(ServerStatus.MORE_RESULTS_EXISTS));
+        for (ResultSet resultSet : resultSets) {
+            resultSet.close();
+        }
+        // back to idle
+        final Future<ResponsePacket.OK> ping = server.connection.ping();
+        assertEquals(ServerCommands.PING, server.readCommand());
+        server.send(1, ok(0));
+        assertTrue(ping.isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void errorInBatch() {
+        final EmbeddedServer server = open();
+        final Future<List<ResultSet>> future = server.connection.queryMultiple("update t set v = 0; select * from missing");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, ok(2, MORE), error(1146, "Table 'missing' doesn't exist"));
+        assertTrue(future.isDone());
+        assertFalse(future.isSuccess());
+        final Future<ResponsePacket.EOF> execute = server.connection.execute("update t set v = 1; update t set v = 2");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, ok(3, MORE));
+        assertFalse(execute.isDone());
+        server.send(3, ok(4));
+        assertTrue(execute.isSuccess());
+        assertEquals(4, ((ResponsePacket.OK) execute.getNow()).affectedRows);
+        server.close();
+    }
+
+    @Test
+    public void noRows() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Future<ResultSet> future = server.connection.query("select v from t where false");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(server.header(FieldTypes.LONG, "v"), end(ServerStatus.AUTO_COMMIT)));
+        try (ResultSet resultSet = future.get()) {
+            assertEquals(1, resultSet.header.columnCount());
+            assertTrue(resultSet.rows.isEmpty());
+        }
+        server.close();
+    }
+
+    @Test
+    public void consumer() {
+        final EmbeddedServer server = open();
+        final ArrayList<String> events = new ArrayList<>();
+        server.connection.query(new PacketCollector.ResultHeaderConsumer() {
+
+            @Override
+            public void error(@Nullable ResponsePacket.Error error) {
+                events.add("error");
+            }
+
+            @Override
+            public PacketCollector.ResultContentConsumer accept(@NotNull ResultHeader header) {
+                events.add("header " + header.columnCount());
+                return new PacketCollector.ResultContentConsumer() {
+
+                    @Override
+                    public void error(@Nullable ResponsePacket.Error error) {
+                        events.add("content error");
+                    }
+
+                    @Override
+                    public void next(@NotNull ResultRow row) {
+                        events.add("row");
+                    }
+
+                    @Override
+                    public void finish(@NotNull ResponsePacket.EOF end) {
+                        events.add("finish " + end.hasStatus(ServerStatus.MORE_RESULTS_EXISTS));
+                    }
+                };
+            }
+
+            @Override
+            public void finish(@NotNull ResponsePacket.EOF end) {
+                events.add("ok " + end.hasStatus(ServerStatus.MORE_RESULTS_EXISTS));
+            }
+        }, "select 1; update t set v = 0; select 2, 3");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(
+                server.header(FieldTypes.LONG, "1"), textRow("1"), end(MORE),
+                ok(2, MORE),
+                server.header(FieldTypes.LONG, "2", "3"), textRow("2", "3"), end(ServerStatus.AUTO_COMMIT)
+        ));
+        assertEquals(List.of("header 1", "row", "finish true", "ok true", "header 2", "row", "finish false"), events);
+        // the next command removes the collector without error
+        server.connection.ping();
+        assertEquals(ServerCommands.PING, server.readCommand());
+        server.send(1, ok(0));
+        assertEquals(7, events.size());
+        server.close();
+    }
+}
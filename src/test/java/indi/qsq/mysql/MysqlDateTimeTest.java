@@ -0,0 +1,114 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ * Text forms of DATE, DATETIME, TIMESTAMP and TIME, and the binary form of TIME.
+ */
+public class MysqlDateTimeTest {
+
+    private static final String[] INVALID_DATE_TIMES = {
+            "", " ", "2026", "2026-10", "2026-10-", "2026-10-17  12:34:56", "2026-10-17T12:34:56", "2026-10-17 12:34",
+            "2026-10-17 12:34:56.", "2026-10-17 12:34:56.1x", "-2026-10-17", "2026-10-17 12:34:56 x", "99999999999-1-1"
+    };
+
+    private static final String[] INVALID_TIMES = {
+            "", "12", "12:34", "12:34:", " 12:34:56", "12:34:56.", "+12:34:56", "--12:34:56", "12:34:56.123abc", "１2:34:56"
+    };
+
+    @Test
+    public void dateTime() {
+        final MysqlDateTime value = new MysqlDateTime();
+        value.parse("2026-10-17 12:34:56.789");
+        assertEquals("2026-10-17 12:34:56.789000", value.toString());
+        value.parse("  1000-01-01\t");
+        assertEquals("1000-01-01 00:00:00.000000", value.toString());
+        value.parse("9999-12-31 23:59:59.9999994");
+        assertEquals("9999-12-31 23:59:59.999999", value.toString());
+        value.parse("0000-00-00 00:00:00");
+        assertEquals(new MysqlDateTime(), value);
+        value.parse("2026-10-17 12:34:56.000001");
+        assertEquals(1, value.microsecond);
+        for (String string : INVALID_DATE_TIMES) {
+            try {
+                value.parse(string);
+                fail(string);
+            } catch (NumberFormatException e) {
+                // pass
+            }
+        }
+        assertEquals("2026-10-17 12:34:56.000001", value.toString()); // unchanged
+        try {
+            value.parse(null);
+            fail();
+        } catch (NullPointerException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void time() {
+        final MysqlTime value = new MysqlTime();
+        value.parse("12:34:56");
+        assertFalse(value.isNegative);
+        assertEquals(0, value.days);
+        assertEquals(12, value.hour);
+        assertEquals(34, value.minute);
+        assertEquals(56, value.second);
+        assertEquals(0, value.microsecond);
+        value.parse("-838:59:59.5");
+        assertTrue(value.isNegative);
+        assertEquals(34, value.days);
+        assertEquals(22, value.hour);
+        assertEquals(59, value.minute);
+        assertEquals(59, value.second);
+        assertEquals(500000, value.microsecond);
+        for (String string : INVALID_TIMES) {
+            try {
+                value.parse(string);
+                fail(string);
+            } catch (NumberFormatException e) {
+                // pass
+            }
+        }
+        assertTrue(value.isNegative); // unchanged
+        final MysqlTime copy = new MysqlTime();
+        copy.set(value);
+        assertTrue(copy.isNegative);
+        assertEquals(34, copy.days);
+    }
+
+    @Test
+    public void timeBinary() throws MysqlException {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final String[] strings = {"00:00:00", "-838:59:59", "-1:02:03.999999"};
+        final int[] lengths = {1, 9, 13};
+        final MysqlTime value = new MysqlTime();
+        final MysqlTime copy = new MysqlTime();
+        final ByteBuf buf = Unpooled.buffer();
+        try {
+            for (int index = 0; index < strings.length; index++) {
+                buf.clear();
+                value.parse(strings[index]);
+                value.write(new MysqlByteBuf(buf), server.connection);
+                assertEquals(strings[index], lengths[index], buf.readableBytes());
+                copy.read(new MysqlByteBuf(buf));
+                assertFalse(buf.isReadable());
+                assertEquals(value.isNegative, copy.isNegative);
+                assertEquals(value.days, copy.days);
+                assertEquals(value.hour, copy.hour);
+                assertEquals(value.minute, copy.minute);
+                assertEquals(value.second, copy.second);
+                assertEquals(value.microsecond, copy.microsecond); // all 4 bytes
+            }
+        } finally {
+            buf.release();
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created on 2026/10/17.
+ * Numeric getters of {@link ResultRow.RawText}: parsing the value bytes against building a String for the JDK parsers.
+ * Run with -prof gc to compare allocation, the bytes path should allocate nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberParserBenchmark {
+
+    private static final int COUNT = 1024;
+
+    @Param({"long", "double", "scientific"})
+    String type;
+
+    private ByteBuf data;
+
+    /**
+     * Offset and length of each value
+     */
+    private int[] bounds;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0x2026_1017);
+        data = Unpooled.directBuffer();
+        bounds = new int[COUNT << 1];
+        for (int index = 0; index < COUNT; index++) {
+            final String value;
+            if ("long".equals(type)) {
+                value = Long.toString(random.nextLong() >> random.nextInt(64));
+            } else if ("scientific".equals(type)) {
+                value = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(200) - 100)); // 17 digits, beyond the fast path
+            } else {
+                value = String.format("%.4f", (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(10)));
+            }
+            bounds[index << 1] = data.writerIndex();
+            bounds[(index << 1) + 1] = data.writeCharSequence(value, StandardCharsets.US_ASCII);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        data.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void bytes(Blackhole blackhole) {
+        if ("long".equals(type)) {
+            for (int index = 0; index < COUNT; index++) {
+                blackhole.consume(NumberParser.parseLong(data, bounds[index << 1], bounds[(index << 1) + 1], false));
+            }
+        } else {
+            for (int index = 0; index < COUNT; index++) {
+                blackhole.consume(NumberParser.parseDouble(data, bounds[index << 1], bounds[(index << 1) + 1]));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void string(Blackhole blackhole) {
+        if ("long".equals(type)) {
+            for (int index = 0; index < COUNT; index++) {
+                blackhole.consume(Long.parseLong(data.toString(bounds[index << 1], bounds[(index << 1) + 1], StandardCharsets.UTF_8)));
+            }
+        } else {
+            for (int index = 0; index < COUNT; index++) {
+                blackhole.consume(Double.parseDouble(data.toString(bounds[index << 1], bounds[(index << 1) + 1], StandardCharsets.UTF_8)));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(NumberParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,144 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ * Results and failures agree with the JDK parsers.
+ */
+public class NumberParserTest {
+
+    private static final String[] INTEGERS = {
+            "0", "-0", "+7", "1", "-1", "42", "2147483647", "2147483648", "-2147483648", "-2147483649", "4294967295", "4294967296",
+            "9223372036854775807", "9223372036854775808", "-9223372036854775808", "-9223372036854775809",
+            "18446744073709551615", "18446744073709551616", "99999999999999999999", "00000000000000000000001",
+            "", "-", "+", "1a", "a1", " 1", "1.0", "--1"
+    };
+
+    private static final String[] DECIMALS = {
+            "0", "-0", "0.0", "-0.0", "1", "-1", "1.5", ".5", "5.", "3.14159", "0.1", "0.2", "0.3", "123456.789",
+            "1e10", "1E-10", "1e+22", "1e23", "1e-22", "1e-23", "9007199254740992", "9007199254740993",
+            "1.7976931348623157e308", "1.8e308", "4.9e-324", "2.4e-324", "1e-400", "1e400",
+            "3.4028235e38", "3.5e38", "1.4e-45", "16777216", "16777217", "0.000001", "-1234.5678e-3",
+            "12345678901234567890123", "0.12345678901234567890123", "00000000000000000000000.5",
+            "123.4567", "99999999999.99", "-99999999999.99",
+            "7.3177701707893310e+15", "2.2250738585072011e-308", "2.2250738585072012e-308", "9007199254740993.0000000001",
+            "1.00000000000000011102230246251565404236316680908203125", "1.00000000000000011102230246251565404236316680908203124",
+            "1.00000000000000011102230246251565404236316680908203126", "8.98846567431158e307", "1.7976931348623158e308",
+            "3.4028236e38", "1.17549435e-38", "1.1754942e-38", "0.10000000149011612", "1.0000000596046448", "33554431e10",
+            "123456789012345678901234567890e-30", "9999999999999999999", "-9999999999999999999e-5", "18446744073709551615.5", "4.4501477170144023e-308", "2.9802322387695312e-8",
+            "", "-", ".", "e5", "1e", "1e+", "1.2.3", "1x", "NaN"
+    };
+
+    @NotNull
+    private static ByteBuf buffer(@NotNull String string) {
+        final ByteBuf data = Unpooled.buffer();
+        data.writeBytes("xyz".getBytes(StandardCharsets.US_ASCII)); // not at index 0
+        data.writeBytes(string.getBytes(StandardCharsets.US_ASCII));
+        data.writeByte('9'); // not at the end
+        return data;
+    }
+
+    private static <T> void assertSame(@NotNull String input, @NotNull Supplier<T> expected, @NotNull Supplier<T> actual) {
+        T expectedValue;
+        try {
+            expectedValue = expected.get();
+        } catch (NumberFormatException e) {
+            try {
+                fail(input + " parsed to " + actual.get());
+            } catch (NumberFormatException ignored) {
+                // pass
+            }
+            return;
+        }
+        assertEquals(input, expectedValue, actual.get());
+    }
+
+    @Test
+    public void integers() {
+        for (String string : INTEGERS) {
+            final ByteBuf data = buffer(string);
+            final int length = string.length();
+            assertSame(string, () -> Integer.parseInt(string), () -> NumberParser.parseInt(data, 3, length, false));
+            assertSame(string, () -> Long.parseLong(string), () -> NumberParser.parseLong(data, 3, length, false));
+            if (!string.startsWith("-")) {
+                assertSame(string, () -> Integer.parseUnsignedInt(string), () -> NumberParser.parseInt(data, 3, length, true));
+                assertSame(string, () -> Long.parseUnsignedLong(string), () -> NumberParser.parseLong(data, 3, length, true));
+            } else {
+                // any sign rejected, as by the JDK, even "-0"
+                assertSame(string, () -> {
+                    throw new NumberFormatException();
+                }, () -> NumberParser.parseInt(data, 3, length, true));
+                assertSame(string, () -> {
+                    throw new NumberFormatException();
+                }, () -> NumberParser.parseLong(data, 3, length, true));
+            }
+            data.release();
+        }
+    }
+
+    @Test
+    public void decimals() {
+        for (String string : DECIMALS) {
+            final ByteBuf data = buffer(string);
+            final int length = string.length();
+            assertSame(string, () -> Double.parseDouble(string), () -> NumberParser.parseDouble(data, 3, length));
+            assertSame(string, () -> Float.parseFloat(string), () -> NumberParser.parseFloat(data, 3, length));
+            data.release();
+        }
+    }
+
+    @Test
+    public void chars() {
+        for (String string : DECIMALS) {
+            final StringBuilder builder = new StringBuilder(string);
+            assertSame(string, () -> Double.parseDouble(string), () -> NumberParser.parseDouble(builder));
+            assertSame(string, () -> Float.parseFloat(string), () -> NumberParser.parseFloat(builder));
+        }
+    }
+
+    @Test
+    public void random() {
+        final Random random = new Random(0x2026_1017);
+        for (int round = 0; round < 100000; round++) {
+            final String string;
+            switch (round % 6) {
+                case 0:
+                    string = Long.toString(random.nextLong());
+                    break;
+                case 1:
+                    string = Double.toString(Double.longBitsToDouble(random.nextLong()));
+                    break;
+                case 2:
+                    string = String.format("%.4f", random.nextDouble() * Math.pow(10, random.nextInt(12)));
+                    break;
+                case 3:
+                    string = String.format("%.17e", random.nextDouble() * Math.pow(10, random.nextInt(600) - 300));
+                    break;
+                case 4:
+                    string = random.nextLong() + "" + Math.abs(random.nextLong()) + "e" + (random.nextInt(700) - 350);
+                    break;
+                default:
+                    string = Float.toString(random.nextFloat() * random.nextInt(100000));
+                    break;
+            }
+            final ByteBuf data = buffer(string);
+            final int length = string.length();
+            if (round % 6 == 0) {
+                assertEquals(string, Long.parseLong(string), NumberParser.parseLong(data, 3, length, false));
+            }
+            assertSame(string, () -> Double.parseDouble(string), () -> NumberParser.parseDouble(data, 3, length));
+            assertSame(string, () -> Float.parseFloat(string), () -> NumberParser.parseFloat(data, 3, length));
+            data.release();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package indi.qsq.mysql;
+
+import io.netty.util.concurrent.Future;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static indi.qsq.mysql.EmbeddedServer.error;
+import static indi.qsq.mysql.EmbeddedServer.ok;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class PipelineTest {
+
+    @Test
+    public void serial() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Future<ResponsePacket.OK> first = server.connection.ping();
+        final Future<ResponsePacket.OK> second = server.connection.ping();
+        assertEquals(ServerCommands.PING, server.readCommand());
+        assertEquals(-1, server.readCommand());
+        server.send(1, ok(0));
+        assertTrue(first.isSuccess());
+        assertEquals(ServerCommands.PING, server.readCommand());
+        server.send(1, ok(0));
+        assertTrue(second.isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void pipelined() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.enablePipelining(3);
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final ArrayList<Future<ResponsePacket.EOF>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(server.connection.execute("update t set v = " + i));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ServerCommands.QUERY, server.readCommand());
+        }
+        assertEquals(-1, server.readCommand()); // depth reached
+        // responses of three commands in one read
+        server.send(1, ok(10), error(1146, "Table doesn't exist"), ok(12));
+        assertEquals(10, ((ResponsePacket.OK) futures.get(0).get()).affectedRows);
+        assertFalse(futures.get(1).isSuccess());
+        assertEquals(12, ((ResponsePacket.OK) futures.get(2).get()).affectedRows);
+        assertFalse(futures.get(3).isDone());
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, ok(13));
+        assertEquals(13, ((ResponsePacket.OK) futures.get(3).get()).affectedRows);
+        server.close();
+    }
+
+    @Test
+    public void noResponse() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final RequestPacket.StatementClose close = new RequestPacket.StatementClose();
+        close.statementId = 1;
+        server.channel.writeAndFlush(close);
+        assertEquals(ServerCommands.STATEMENT_CLOSE, server.readCommand());
+        final Future<ResponsePacket.OK> ping = server.connection.ping();
+        assertEquals(ServerCommands.PING, server.readCommand());
+        server.send(1, ok(0));
+        assertTrue(ping.isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void inactive() {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.enablePipelining(2);
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ResponsePacket.OK> first = server.connection.ping();
+        final Future<ResponsePacket.OK> second = server.connection.ping();
+        final Future<ResponsePacket.OK> third = server.connection.ping();
+        server.channel.close();
+        assertFalse(first.isSuccess() || !first.isDone());
+        assertFalse(second.isSuccess() || !second.isDone());
+        assertFalse(third.isSuccess() || !third.isDone());
+        server.close();
+    }
+}
@@ -0,0 +1,506 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class PreparedStatementTest {
+
+    /**
+     * Offset of the null bitmap in a COM_STMT_EXECUTE packet with its 4 bytes header
+     */
+    private static final int NULL_BITMAP = 4 + 1 + 4 + 1 + 4;
+
+    @NotNull
+    static PacketObject prepareOk(int statementId, int columnCount, int parameterCount) {
+        return raw(buf -> {
+            buf.writeInt1(ResultHeader.StatementPrepareOK.PACKET_HEADER);
+            buf.writeInt4(statementId);
+            buf.writeInt2(columnCount);
+            buf.writeInt2(parameterCount);
+            buf.writeInt1(0x00); // filler
+            buf.writeInt2(0); // warning count
+        });
+    }
+
+    /**
+     * id int, name varchar
+     */
+    @NotNull
+    private static PacketObject[] columns(@NotNull EmbeddedServer server) {
+        final PacketObject[] packets = server.header(FieldTypes.LONG, "id", "name");
+        ((ResultColumn) packets[2]).type = FieldTypes.VAR_STRING;
+        return packets;
+    }
+
+    @NotNull
+    private static PacketObject binaryRow(int id, @NotNull String name) {
+        return raw(buf -> {
+            buf.writeInt1(0x00); // packet header
+            buf.writeInt1(0x00); // null bitmap, offset 2
+            buf.writeInt4(id);
+            buf.writeLengthEncodedString(name);
+        });
+    }
+
+    @NotNull
+    private static PreparedStatement prepare(@NotNull EmbeddedServer server) throws Exception {
+        final Future<PreparedStatement> future = server.connection.prepare("select id, name from t where id = ? and name = ?");
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        final PacketObject[] columns = columns(server);
+        server.send(1, packets(prepareOk(1, 2, 2), columns[1], columns[2], columns[1], columns[2]));
+        assertTrue(future.isSuccess());
+        final PreparedStatement statement = future.get();
+        assertEquals(2, statement.parameterCount());
+        return statement;
+    }
+
+    @Test
+    public void execute() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final PreparedStatement statement = prepare(server);
+        // first execution sends types
+        Future<ResponsePacket.EOF> future = statement.execute(7, "a");
+        ByteBuf buf = server.read();
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, buf.getUnsignedByte(4));
+        assertEquals(1, buf.getIntLE(5));
+        buf.readerIndex(NULL_BITMAP);
+        assertEquals(0x00, buf.readByte()); // null bitmap
+        assertEquals(1, buf.readByte()); // new params bound
+        assertEquals(FieldTypes.LONG, buf.readUnsignedByte());
+        assertEquals(0x00, buf.readByte());
+        assertEquals(FieldTypes.VAR_STRING, buf.readUnsignedByte());
+        assertEquals(0x00, buf.readByte());
+        assertEquals(7, buf.readIntLE());
+        assertEquals(1, buf.readByte());
+        assertEquals('a', buf.readByte());
+        assertFalse(buf.isReadable());
+        buf.release();
+        server.send(1, ok(1));
+        assertTrue(future.isSuccess());
+        // same types, null keeps the previous type
+        future = statement.execute(null, "bc");
+        buf = server.read();
+        buf.readerIndex(NULL_BITMAP);
+        assertEquals(0x01, buf.readByte());
+        assertEquals(0, buf.readByte());
+        assertEquals("bc", buf.readCharSequence(buf.readByte(), StandardCharsets.UTF_8));
+        assertFalse(buf.isReadable());
+        buf.release();
+        server.send(1, ok(0));
+        assertTrue(future.isSuccess());
+        // type changes
+        future = statement.execute(8L, "d");
+        buf = server.read();
+        buf.readerIndex(NULL_BITMAP + 1);
+        assertEquals(1, buf.readByte());
+        assertEquals(FieldTypes.LONG_LONG, buf.readUnsignedByte());
+        buf.release();
+        server.send(1, ok(1));
+        assertTrue(future.isSuccess());
+        // wrong parameter count is not sent
+        future = statement.execute(1);
+        assertFalse(future.isSuccess());
+        assertNull(server.read());
+        statement.close();
+        assertEquals(ServerCommands.STATEMENT_CLOSE, server.readCommand());
+        assertFalse(statement.execute(1, "e").isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void typesAfterFailure() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final PreparedStatement statement = prepare(server);
+        Future<ResponsePacket.EOF> future = statement.execute(7, "a");
+        server.read().release();
+        server.send(1, ok(1));
+        assertTrue(future.isSuccess());
+        // binds a BLOB type and fails to encode the value
+        final ByteBuf released = Unpooled.buffer().writeByte(1);
+        released.release();
+        future = statement.execute(7, released);
+        assertFalse(future.isSuccess());
+        assertNull(server.read());
+        // same types as the failed execution, never sent
+        future = statement.execute(7, new byte[] {'b'});
+        final ByteBuf buf = server.read();
+        buf.readerIndex(NULL_BITMAP + 1);
+        assertEquals(1, buf.readByte()); // new params bound
+        assertEquals(FieldTypes.LONG, buf.readUnsignedByte());
+        assertEquals(0x00, buf.readByte());
+        assertEquals(FieldTypes.BLOB, buf.readUnsignedByte());
+        buf.release();
+        server.send(1, ok(1));
+        assertTrue(future.isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void noDefinitions() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Future<PreparedStatement> future = server.connection.prepare("commit");
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        server.send(1, prepareOk(3, 0, 0));
+        assertEquals(0, future.get().parameterCount());
+        final Future<ResponsePacket.EOF> execute = future.get().execute();
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        server.send(1, ok(0));
+        assertTrue(execute.isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void query() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final PreparedStatement statement = prepare(server);
+        final Future<ResultSet> future = statement.query(1, "a");
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        server.send(1, packets(columns(server), binaryRow(1, "a"), binaryRow(2, "bc"), end(ServerStatus.AUTO_COMMIT)));
+        final ResultSet resultSet = future.get();
+        assertEquals(2, resultSet.rows.size());
+        final ResultColumn name = resultSet.header.getByIndex(1);
+        assertTrue(resultSet.rows.get(1) instanceof ResultRow.DecodedBinary);
+        assertEquals(2, resultSet.rows.get(1).getInteger(resultSet.header.getByIndex(0)));
+        assertEquals("bc", resultSet.rows.get(1).getString(name));
+        resultSet.close();
+        server.close();
+    }
+
+    @Test
+    public void cache() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.enablePreparedStatementCache(16, 0.01);
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        // capacity capped by max_prepared_stmt_count
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(server.header(FieldTypes.LONG_LONG, "@@max_prepared_stmt_count"), textRow("200"), end(ServerStatus.AUTO_COMMIT)));
+        final PreparedStatementCache cache = server.connection.getStatementCache();
+        assertNotNull(cache);
+        assertEquals(2, cache.getCapacity());
+        // same SQL shares the pending prepare
+        final Future<PreparedStatement> a1 = server.connection.prepare("select 'a'");
+        final Future<PreparedStatement> a2 = server.connection.prepare("select 'a'");
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        assertNull(server.read());
+        server.send(1, prepareOk(1, 0, 0));
+        assertSame(a1.get(), a2.get());
+        a1.get().close(); // stays prepared
+        a2.get().close();
+        assertNull(server.read());
+        final Future<PreparedStatement> b = server.connection.prepare("select 'b'");
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        server.send(1, prepareOk(2, 0, 0));
+        b.get().close();
+        assertSame(a1.get(), server.connection.prepare("select 'a'").get());
+        // b is least recently used and no longer leased
+        final Future<PreparedStatement> c = server.connection.prepare("select 'c'");
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        server.send(1, prepareOk(3, 0, 0));
+        assertTrue(c.isSuccess());
+        final ByteBuf buf = server.read();
+        assertEquals(ServerCommands.STATEMENT_CLOSE, buf.getUnsignedByte(4));
+        assertEquals(2, buf.getIntLE(5));
+        buf.release();
+        assertFalse(b.get().execute().isSuccess());
+        // failed prepares are not cached
+        final Future<PreparedStatement> d = server.connection.prepare("select d");
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        server.send(1, error(1054, "Unknown column 'd' in 'field list'"));
+        assertFalse(d.isSuccess());
+        assertNotSame(d, server.connection.prepare("select d"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(5, cache.getMissCount());
+        assertEquals(2, cache.getEvictionCount()); // b, then a by the pending d
+        server.close();
+    }
+
+    @Test
+    public void evictLeased() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.enablePreparedStatementCache(1, 0.0);
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final PreparedStatement a = prepare(server);
+        final Future<StatementCursor> opening = a.openCursor(10, 1, "a");
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        server.send(1, packets(columns(server), fetchEnd(0)));
+        final StatementCursor cursor = opening.get();
+        assertEquals(10, readFetch(server));
+        final Future<ResponsePacket.EOF> pending = a.execute(2, "b");
+        // evicts a, which is leased by its prepare, the cursor and the pending execution
+        final Future<PreparedStatement> b = server.connection.prepare("select 'b'");
+        assertEquals(1, server.connection.getStatementCache().getEvictionCount());
+        server.send(1, packets(binaryRow(1, "a"), fetchEnd(0)));
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        server.send(1, ok(1));
+        assertTrue(pending.isSuccess());
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        server.send(1, prepareOk(2, 0, 0));
+        assertTrue(b.isSuccess());
+        assertNull(server.read());
+        // still usable while leased
+        assertEquals(1, cursor.next().get().rows.size());
+        assertEquals(10, readFetch(server));
+        final Future<ResponsePacket.EOF> execute = a.execute(3, "c");
+        server.send(1, packets(binaryRow(2, "bc"), fetchEnd(ServerStatus.LAST_ROW_SENT)));
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        server.send(1, ok(1));
+        assertTrue(execute.isSuccess());
+        a.close();
+        assertNull(server.read());
+        // closed with the last lease, once the cursor is exhausted
+        assertEquals(2, cursor.next().get().rows.get(0).getInteger(cursor.getHeader().getByIndex(0)));
+        final ByteBuf buf = server.read();
+        assertEquals(ServerCommands.STATEMENT_CLOSE, buf.getUnsignedByte(4));
+        assertEquals(1, buf.getIntLE(5));
+        buf.release();
+        assertFalse(a.execute(4, "d").isSuccess());
+        assertNull(server.read());
+        server.close();
+    }
+
+    @NotNull
+    private static PacketObject fetchEnd(int statusFlags) {
+        return end(ServerStatus.AUTO_COMMIT | ServerStatus.CURSOR_EXISTS | statusFlags);
+    }
+
+    /**
+     * @return row count of the COM_STMT_FETCH written by the client
+     */
+    private static int readFetch(@NotNull EmbeddedServer server) {
+        final ByteBuf buf = server.read();
+        try {
+            assertEquals(ServerCommands.STMT_FETCH, buf.getUnsignedByte(4));
+            assertEquals(1, buf.getIntLE(5));
+            return buf.getIntLE(9);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void cursor() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final PreparedStatement statement = prepare(server);
+        final Future<StatementCursor> future = statement.openCursor(2, 1, "a");
+        final ByteBuf buf = server.read();
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, buf.getUnsignedByte(4));
+        assertEquals(RequestPacket.StatementExecute.CURSOR_TYPE_READ_ONLY, buf.getByte(9));
+        buf.release();
+        server.send(1, packets(columns(server), fetchEnd(0)));
+        final StatementCursor cursor = future.get();
+        assertEquals(2, readFetch(server)); // first batch fetched at once
+        assertTrue(cursor.hasNext());
+        final Future<ResultSet> first = cursor.next();
+        assertFalse(first.isDone());
+        server.send(1, packets(binaryRow(1, "a"), binaryRow(2, "bc"), fetchEnd(0)));
+        assertEquals(2, first.get().rows.size());
+        assertEquals("bc", first.get().rows.get(1).getString(cursor.getHeader().getByIndex(1)));
+        assertEquals(2, readFetch(server)); // fetched ahead while the first is processed
+        assertTrue(cursor.hasNext());
+        server.send(1, packets(binaryRow(3, "d"), fetchEnd(ServerStatus.LAST_ROW_SENT)));
+        final Future<ResultSet> second = cursor.next();
+        assertEquals(3, second.get().rows.get(0).getInteger(cursor.getHeader().getByIndex(0)));
+        assertFalse(cursor.hasNext());
+        assertNull(server.read());
+        assertFalse(cursor.next().isSuccess());
+        cursor.close(); // exhausted, nothing to reset
+        assertNull(server.read());
+        server.close();
+    }
+
+    @Test
+    public void cursorClose() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final PreparedStatement statement = prepare(server);
+        server.connection.config.capabilitiesFlags &= ~CapabilitiesFlags.DEPRECATE_EOF;
+        final Future<StatementCursor> future = statement.openCursor(100, 1, "a");
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        final ResponsePacket.EOF eof = new ResponsePacket.EOF();
+        eof.statusFlags = ServerStatus.AUTO_COMMIT | ServerStatus.CURSOR_EXISTS;
+        server.send(1, packets(columns(server), eof)); // the end of the definitions tells the cursor is open
+        final StatementCursor cursor = future.get();
+        assertEquals(100, readFetch(server));
+        cursor.close();
+        assertFalse(cursor.hasNext());
+        assertFalse(cursor.next().isSuccess());
+        server.send(1, packets(binaryRow(1, "a"), eof)); // released
+        assertEquals(ServerCommands.STATEMENT_RESET, server.readCommand());
+        server.send(1, ok(0));
+        final Future<ResponsePacket.OK> ping = server.connection.ping();
+        assertEquals(ServerCommands.PING, server.readCommand());
+        server.send(1, ok(0));
+        assertTrue(ping.isSuccess());
+        server.close();
+    }
+
+    /**
+     * @return data of the COM_STMT_SEND_LONG_DATA written by the client, checking it is a command of its own for the parameter
+     */
+    @NotNull
+    private static String readLongData(@NotNull EmbeddedServer server, int parameterId) {
+        final ByteBuf buf = server.read();
+        try {
+            assertEquals(0, buf.getUnsignedByte(3)); // sequence
+            assertEquals(ServerCommands.STATEMENT_SEND_LONG_DATA, buf.getUnsignedByte(4));
+            assertEquals(1, buf.getIntLE(5));
+            assertEquals(parameterId, buf.getUnsignedShortLE(9));
+            return buf.toString(11, buf.readableBytes() - 11, StandardCharsets.UTF_8);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void longData() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.setStreamChunkSize(4);
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final PreparedStatement statement = prepare(server);
+        final Future<ResponsePacket.EOF> future = statement.execute(7, ChunkSource.of(
+                new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.US_ASCII))));
+        assertEquals("0123", readLongData(server, 1));
+        assertEquals("4567", readLongData(server, 1));
+        assertEquals("89", readLongData(server, 1));
+        final ByteBuf buf = server.read();
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, buf.getUnsignedByte(4));
+        buf.readerIndex(NULL_BITMAP);
+        assertEquals(0x00, buf.readByte()); // not null
+        assertEquals(1, buf.readByte());
+        assertEquals(FieldTypes.LONG, buf.readUnsignedByte());
+        assertEquals(0x00, buf.readByte());
+        assertEquals(FieldTypes.BLOB, buf.readUnsignedByte());
+        assertEquals(0x00, buf.readByte());
+        assertEquals(7, buf.readIntLE());
+        assertFalse(buf.isReadable()); // the long data value is not inlined
+        buf.release();
+        server.send(1, ok(1));
+        assertTrue(future.isSuccess());
+        // empty data is still sent once
+        final Future<ResponsePacket.EOF> empty = statement.execute(8, ChunkSource.of(Unpooled.EMPTY_BUFFER));
+        assertEquals("", readLongData(server, 1));
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        server.send(1, ok(1));
+        assertTrue(empty.isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void longDataFailure() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final PreparedStatement statement = prepare(server);
+        final InputStream in = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Unreadable");
+            }
+        };
+        final Future<ResponsePacket.EOF> future = statement.execute(7, ChunkSource.of(in));
+        assertEquals(ServerCommands.STATEMENT_RESET, server.readCommand()); // instead of the execution
+        assertTrue(future.isDone());
+        assertFalse(future.isSuccess());
+        server.send(1, ok(0));
+        final Future<ResponsePacket.OK> ping = server.connection.ping();
+        assertEquals(ServerCommands.PING, server.readCommand());
+        server.send(1, ok(0));
+        assertTrue(ping.isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void parseVersion() {
+        final ResponsePacket.HandshakeV10 handshake = new ResponsePacket.HandshakeV10();
+        handshake.serverVersion = "8.0.36-log";
+        assertArrayEquals(new int[] {8, 0, 36}, handshake.parseVersion());
+        assertFalse(handshake.isMariaDB());
+        handshake.serverVersion = "5.5.5-10.6.12-MariaDB-1:10.6.12+maria~ubu2004";
+        assertArrayEquals(new int[] {10, 6, 12}, handshake.parseVersion());
+        assertTrue(handshake.isMariaDB());
+    }
+
+    @Test
+    public void lastStatementId() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open("5.5.5-10.6.12-MariaDB");
+        final Future<ResultSet> future = server.connection.prepareAndQuery("select id, name from t where id = ? and name = ?", 4, "w");
+        // written before any response
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        ByteBuf buf = server.read();
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, buf.getUnsignedByte(4));
+        assertEquals(0xffffffff, buf.getIntLE(5));
+        assertEquals(1, buf.getByte(NULL_BITMAP + 1)); // new params bound
+        buf.release();
+        buf = server.read();
+        assertEquals(ServerCommands.STATEMENT_CLOSE, buf.getUnsignedByte(4));
+        assertEquals(0xffffffff, buf.getIntLE(5));
+        buf.release();
+        final PacketObject[] columns = columns(server);
+        server.send(1, packets(prepareOk(5, 2, 2), columns[1], columns[2], columns[1], columns[2]));
+        assertFalse(future.isDone());
+        server.send(1, packets(columns, binaryRow(4, "w"), end(ServerStatus.AUTO_COMMIT)));
+        assertEquals("w", future.get().rows.get(0).getString(future.get().header.getByIndex(1)));
+        future.get().close();
+        // failed prepare is reported instead of the failed execution
+        final Future<ResponsePacket.EOF> failed = server.connection.prepareAndExecute("update t set v = ?", 1);
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        assertEquals(ServerCommands.STATEMENT_CLOSE, server.readCommand());
+        server.send(1, error(1146, "Table 't' doesn't exist"));
+        assertFalse(failed.isSuccess());
+        assertEquals(1146, ((MysqlProtocolException) failed.cause()).getCode());
+        server.send(1, error(1243, "Unknown prepared statement handler (4294967295) given to mysqld_stmt_execute"));
+        final Future<ResponsePacket.OK> ping = server.connection.ping();
+        assertEquals(ServerCommands.PING, server.readCommand());
+        server.send(1, ok(0));
+        assertTrue(ping.isSuccess());
+        server.close();
+    }
+
+    @Test
+    public void chained() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Future<ResponsePacket.EOF> future = server.connection.prepareAndExecute("update t set v = ?", 1);
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        assertNull(server.read());
+        server.send(1, packets(prepareOk(6, 0, 1), server.header(FieldTypes.LONG, "?")[1]));
+        // close follows execute without waiting
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        assertEquals(ServerCommands.STATEMENT_CLOSE, server.readCommand());
+        server.send(1, ok(3));
+        assertEquals(3, ((ResponsePacket.OK) future.get()).affectedRows);
+        server.close();
+    }
+
+    @Test
+    public void lazy() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.LAZY_DECODE_BINARY;
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ResultSet> future = server.connection.prepareAndQuery("select id, name from t where id = ? and name = ?", 1, null);
+        assertEquals(ServerCommands.STATEMENT_PREPARE, server.readCommand());
+        final PacketObject[] columns = columns(server);
+        server.send(1, packets(prepareOk(2, 2, 2), columns[1], columns[2], columns[1], columns[2]));
+        assertEquals(ServerCommands.STATEMENT_EXECUTE, server.readCommand());
+        server.send(1, packets(columns, binaryRow(3, "xyz"), end(ServerStatus.AUTO_COMMIT)));
+        final ResultSet resultSet = future.get();
+        assertEquals(ServerCommands.STATEMENT_CLOSE, server.readCommand());
+        final ResultRow row = resultSet.rows.get(0);
+        assertTrue(row instanceof ResultRow.RawBinary);
+        assertEquals(3, row.getInteger(resultSet.header.getByIndex(0)));
+        assertEquals("xyz", row.getString(resultSet.header.getByIndex(1)));
+        resultSet.close();
+        server.close();
+    }
+}
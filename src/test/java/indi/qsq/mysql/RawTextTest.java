@@ -0,0 +1,191 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class RawTextTest {
+
+    /**
+     * One row of {@link ResultRow.RawText}, null values are sent as NULL
+     */
+    @NotNull
+    private static ResultSet query(int type, @NotNull String... values) throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.LAZY_DECODE_TEXT;
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final String[] names = new String[values.length];
+        for (int index = 0; index < values.length; index++) {
+            names[index] = "c" + index;
+        }
+        final Future<ResultSet> future = server.connection.query("select * from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(server.header(type, names), textRow(values), end(ServerStatus.AUTO_COMMIT)));
+        final ResultSet resultSet = future.get();
+        assertTrue(resultSet.rows.get(0) instanceof ResultRow.RawText);
+        server.close();
+        return resultSet;
+    }
+
+    @Test
+    public void bounds() throws Exception {
+        final String[] values = new String[60];
+        for (int index = 0; index < values.length; index++) {
+            if (index % 7 != 3) {
+                values[index] = "v".repeat(index * 5); // lengths up to 295, some of them length encoded in 3 bytes
+            }
+        }
+        final ResultSet resultSet = query(FieldTypes.VAR_STRING, values);
+        final ResultRow row = resultSet.rows.get(0);
+        final ResultRow copy = ((ResultRow.RawText) row).copy();
+        for (int index = values.length - 1; index >= 0; index--) {
+            final ResultColumn column = resultSet.header.getByIndex(index);
+            assertEquals(values[index] == null, row.isNull(column));
+            assertEquals(values[index], row.getString(column));
+            assertEquals(values[index], copy.getString(column));
+        }
+        ((ResultRow.RawText) copy).release();
+        resultSet.close();
+    }
+
+    @Test
+    public void numbers() throws Exception {
+        final ResultSet resultSet = query(FieldTypes.LONG_LONG, "-42", "18446744073709551615", null, "2.5", "-1e-3");
+        final ResultRow row = resultSet.rows.get(0);
+        final ResultColumn unsigned = resultSet.header.getByIndex(1);
+        unsigned.flags |= ColumnFlags.UNSIGNED;
+        assertEquals(-42, row.getInteger(resultSet.header.getByIndex(0)));
+        assertEquals(-42L, row.getLong(resultSet.header.getByIndex(0)));
+        assertEquals(-1L, row.getLong(unsigned));
+        try {
+            row.getInteger(unsigned);
+            fail();
+        } catch (NumberFormatException e) {
+            // pass
+        }
+        try {
+            row.getLong(resultSet.header.getByIndex(2));
+            fail();
+        } catch (NullPointerException e) {
+            // pass
+        }
+        assertNull(row.getBoxedDouble(resultSet.header.getByIndex(2)));
+        assertEquals(2.5, row.getDouble(resultSet.header.getByIndex(3)), 0.0);
+        assertEquals(2.5f, row.getFloat(resultSet.header.getByIndex(3)), 0.0f);
+        assertEquals(-0.001, row.getDouble(resultSet.header.getByIndex(4)), 0.0);
+        resultSet.close();
+    }
+
+    @Test
+    public void temporal() throws Exception {
+        final ResultSet resultSet = query(FieldTypes.DATE_TIME, "2026-10-17 12:34:56.123456", "2026-10-17", null, "-01:02:03");
+        final ResultRow row = resultSet.rows.get(0);
+        final MysqlDateTime dateTime = row.getMysqlDateTime(resultSet.header.getByIndex(0));
+        assertEquals("2026-10-17 12:34:56.123456", dateTime.toString());
+        row.getMysqlDateTime(resultSet.header.getByIndex(1), dateTime);
+        assertEquals("2026-10-17 00:00:00.000000", dateTime.toString());
+        assertNull(row.getMysqlDateTime(resultSet.header.getByIndex(2)));
+        final MysqlTime time = row.getMysqlTime(resultSet.header.getByIndex(3));
+        assertTrue(time.isNegative);
+        assertEquals(3723, (time.hour * 60 + time.minute) * 60 + time.second);
+        resultSet.close();
+    }
+
+    @Test
+    public void charsets() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.LAZY_DECODE_TEXT;
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ResultSet> future = server.connection.query("select * from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final PacketObject[] header = server.header(FieldTypes.VAR_STRING, "ascii", "latin1", "utf8", "utf16");
+        ((ResultColumn) header[2]).characterSet = CharacterSets.LATIN1_SWEDISH_CI;
+        ((ResultColumn) header[3]).characterSet = CharacterSets.UTF8MB4_0900_AI_CI;
+        ((ResultColumn) header[4]).characterSet = CharacterSets.UTF16_GENERAL_CI;
+        final String ascii = "plain ascii value, longer than eight bytes";
+        server.send(1, packets(header, raw(buf -> {
+            buf.writeLengthEncodedBytes(ascii.getBytes(StandardCharsets.US_ASCII));
+            buf.writeLengthEncodedBytes(new byte[] {'c', 'a', 'f', (byte) 0xe9, (byte) 0x80}); // windows-1252
+            buf.writeLengthEncodedBytes("naïve 名字".getBytes(StandardCharsets.UTF_8));
+            buf.writeLengthEncodedBytes("名字".getBytes(StandardCharsets.UTF_16BE));
+        }), end(ServerStatus.AUTO_COMMIT)));
+        final ResultSet resultSet = future.get();
+        final ResultRow row = resultSet.rows.get(0);
+        final ResultHeader resultHeader = resultSet.header;
+        assertEquals(ascii, row.getString(resultHeader.getByIndex(0)));
+        final CharSequence view = row.getCharSequence(resultHeader.getByIndex(0));
+        assertTrue(view instanceof AsciiString);
+        assertEquals(ascii, view.toString());
+        assertEquals("café€", row.getString(resultHeader.getByIndex(1)));
+        assertEquals("café€", row.getCharSequence(resultHeader.getByIndex(1)).toString());
+        assertEquals("naïve 名字", row.getString(resultHeader.getByIndex(2)));
+        assertEquals("名字", row.getString(resultHeader.getByIndex(3)));
+        final ByteBuf out = Unpooled.buffer();
+        row.writeBytes(resultHeader.getByIndex(1), out);
+        assertEquals("café€", out.toString(StandardCharsets.UTF_8)); // transcoded
+        resultSet.close();
+        server.close();
+    }
+
+    @Test
+    public void ascii() {
+        final byte[] bytes = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+        for (int index = 0; index < bytes.length; index++) {
+            assertTrue(MysqlByteBuf.isAscii(bytes, 0, bytes.length));
+            bytes[index] |= (byte) 0x80;
+            assertFalse(MysqlByteBuf.isAscii(bytes, 0, bytes.length));
+            assertFalse(MysqlByteBuf.isAscii(Unpooled.directBuffer().writeBytes(bytes), 0, bytes.length));
+            assertTrue(MysqlByteBuf.isAscii(bytes, 0, index));
+            assertTrue(MysqlByteBuf.isAscii(bytes, index + 1, bytes.length - index - 1));
+            bytes[index] &= 0x7f;
+        }
+    }
+
+    /**
+     * Rows sliced from the inbound buffer stay valid after the decoder drops it and decodes the next one, until they are closed
+     */
+    @Test
+    public void slicePayload() throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.LAZY_DECODE_TEXT | PreferenceFlags.SLICE_PAYLOAD;
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ResultSet> first = server.connection.query("select v from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final ByteBuf inbound = server.frame(1, packets(server.header(FieldTypes.VAR_STRING, "v"),
+                textRow("a"), textRow("bc"), textRow((String) null), end(ServerStatus.AUTO_COMMIT)));
+        server.send(inbound);
+        final ResultSet resultSet = first.get();
+        assertTrue(inbound.refCnt() > 0); // held by the rows only
+        final Future<ResultSet> second = server.connection.query("select v from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(server.header(FieldTypes.VAR_STRING, "v"), textRow("zz"), end(ServerStatus.AUTO_COMMIT)));
+        assertEquals("zz", second.get().rows.get(0).getString(second.get().header.getByIndex(0)));
+        second.get().close();
+        final ResultColumn column = resultSet.header.getByIndex(0);
+        assertEquals("a", resultSet.rows.get(0).getString(column));
+        assertEquals("bc", resultSet.rows.get(1).getString(column));
+        assertTrue(resultSet.rows.get(2).isNull(column));
+        final ArrayList<ResultRow> rows = new ArrayList<>(resultSet.rows);
+        for (ResultRow row : rows) {
+            assertSame(inbound, ((ResultRow.Raw) row).content().unwrap());
+        }
+        resultSet.close();
+        for (ResultRow row : rows) {
+            assertEquals(0, ((ResultRow.Raw) row).refCnt());
+        }
+        assertEquals(0, inbound.refCnt());
+        server.close();
+    }
+}
@@ -0,0 +1,174 @@
+package indi.qsq.mysql;
+
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Flow;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class ResultPublisherTest {
+
+    static class Subscriber implements Flow.Subscriber<ResultRow> {
+
+        final ResultPublisher publisher;
+
+        final ArrayList<String> values = new ArrayList<>();
+
+        Flow.Subscription subscription;
+
+        Throwable error;
+
+        boolean complete;
+
+        Subscriber(@NotNull ResultPublisher publisher) {
+            super();
+            this.publisher = publisher;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            assertNull(this.subscription);
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ResultRow row) {
+            values.add(row.getString(publisher.getHeader().getByIndex(0)));
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+            complete = true;
+        }
+    }
+
+    @NotNull
+    private static PacketObject[] rows(int from, int to) {
+        final PacketObject[] rows = new PacketObject[to - from];
+        for (int index = from; index < to; index++) {
+            rows[index - from] = textRow(Integer.toString(index));
+        }
+        return rows;
+    }
+
+    @Test
+    public void request() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        server.channel.config().setAutoRead(false);
+        final ResultPublisher publisher = server.connection.queryPublisher("select v from t");
+        assertNull(server.read()); // not sent before subscribed
+        final Subscriber subscriber = new Subscriber(publisher);
+        publisher.subscribe(subscriber);
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        subscriber.subscription.request(3);
+        server.send(1, packets(server.header(FieldTypes.VAR_STRING, "v"), rows(0, 5)));
+        assertEquals("[0, 1, 2]", subscriber.values.toString());
+        subscriber.subscription.request(10);
+        server.send(7, packets(rows(5, 8), end(ServerStatus.AUTO_COMMIT)));
+        assertEquals("[0, 1, 2, 3, 4, 5, 6, 7]", subscriber.values.toString());
+        assertTrue(subscriber.complete);
+        final Subscriber second = new Subscriber(publisher);
+        publisher.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+        server.close();
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        server.channel.config().setAutoRead(false);
+        final ResultPublisher publisher = server.connection.queryPublisher("select v from t");
+        final Subscriber subscriber = new Subscriber(publisher);
+        publisher.subscribe(subscriber);
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        subscriber.subscription.request(2);
+        server.send(1, packets(server.header(FieldTypes.VAR_STRING, "v"), rows(0, 4)));
+        subscriber.subscription.cancel();
+        server.send(7, packets(rows(4, 1000), end(ServerStatus.AUTO_COMMIT))); // the rest is read and dropped
+        assertEquals("[0, 1]", subscriber.values.toString());
+        assertFalse(subscriber.complete);
+        assertNull(subscriber.error);
+        final Future<ResultSet> future = server.connection.query("select 1");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(server.header(FieldTypes.LONG, "1"), textRow("1"), end(ServerStatus.AUTO_COMMIT)));
+        assertEquals(1, future.get().rows.size());
+        server.close();
+    }
+
+    @Test
+    public void multipleResults() {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.enableMultiStatements();
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final ResultPublisher publisher = server.connection.queryPublisher("select v from t; select w, x from u where false; select y from v");
+        final ArrayList<ResultHeader> headers = new ArrayList<>();
+        final ArrayList<String> events = new ArrayList<>();
+        final ArrayList<String> values = new ArrayList<>();
+        final boolean[] complete = new boolean[1];
+        publisher.subscribe(new ResultPublisher.HeaderSubscriber() {
+            @Override
+            public void onHeader(@NotNull ResultHeader header) {
+                headers.add(header);
+                events.add("header " + header.columnCount());
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ResultRow row) {
+                events.add("row");
+                values.add(row.getString(headers.get(headers.size() - 1).getByIndex(0)));
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail(error.toString());
+            }
+
+            @Override
+            public void onComplete() {
+                complete[0] = true;
+            }
+        });
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final int more = ServerStatus.AUTO_COMMIT | ServerStatus.MORE_RESULTS_EXISTS;
+        server.send(1, packets(
+                server.header(FieldTypes.VAR_STRING, "v"), rows(0, 2), end(more),
+                server.header(FieldTypes.LONG, "w", "x"), end(more),
+                server.header(FieldTypes.VAR_STRING, "y"), rows(2, 3), end(ServerStatus.AUTO_COMMIT)
+        ));
+        assertTrue(complete[0]);
+        assertEquals("[header 1, row, row, header 2, header 1, row]", events.toString());
+        assertEquals("[0, 1, 2]", values.toString());
+        assertSame(headers.get(2), publisher.getHeader()); // the last one only
+        server.close();
+    }
+
+    @Test
+    public void serverError() {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final ResultPublisher publisher = server.connection.queryPublisher("select v from nowhere");
+        final Subscriber subscriber = new Subscriber(publisher);
+        publisher.subscribe(subscriber);
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, error(1146, "Table 'nowhere' doesn't exist"));
+        assertTrue(subscriber.error instanceof MysqlProtocolException);
+        subscriber.subscription.request(1); // no effect after the error
+        server.close();
+    }
+}
@@ -0,0 +1,239 @@
+package indi.qsq.mysql;
+
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.lang.invoke.MethodType;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class RowMapperTest {
+
+    public enum Level {
+        LOW, HIGH
+    }
+
+    public static class User {
+
+        public int id;
+
+        private String name;
+
+        public Long score;
+
+        public LocalDate birthday;
+
+        public Level level;
+
+        public boolean active;
+
+        public double ratio = -1.0;
+
+        public void setName(String name) {
+            this.name = "name:" + name;
+        }
+    }
+
+    private static final int[] TYPES = {
+            FieldTypes.LONG, FieldTypes.VAR_STRING, FieldTypes.LONG_LONG, FieldTypes.DATE, FieldTypes.STRING, FieldTypes.TINY, FieldTypes.DOUBLE, FieldTypes.VAR_STRING
+    };
+
+    @NotNull
+    private static PacketObject[] header(@NotNull EmbeddedServer server) {
+        final PacketObject[] header = server.header(FieldTypes.LONG, "id", "name", "score", "birthday", "level", "active", "ratio", "unused");
+        for (int index = 0; index < TYPES.length; index++) {
+            ((ResultColumn) header[index + 1]).type = TYPES[index];
+        }
+        return header;
+    }
+
+    @NotNull
+    private static ArrayList<User> map(@NotNull EmbeddedServer server, @NotNull PacketObject... packets) throws Exception {
+        final Future<ResultSet> future = server.connection.query("select * from user");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets);
+        final ResultSet resultSet = future.get();
+        try {
+            return RowMapper.of(User.class).map(resultSet);
+        } finally {
+            resultSet.close();
+        }
+    }
+
+    @Test
+    public void resultSet() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final RowMapper<User> mapper = RowMapper.of(User.class);
+        assertSame(mapper, RowMapper.of(User.class));
+        for (int round = 0; round < 2; round++) {
+            final Future<ResultSet> future = server.connection.query("select * from user");
+            assertEquals(ServerCommands.QUERY, server.readCommand());
+            server.send(1, packets(
+                    header(server),
+                    textRow("1", "ann", "12345678901", "2000-02-29", "HIGH", "1", "0.5", "x"),
+                    textRow("2", null, null, null, null, "0", null, null),
+                    end(ServerStatus.AUTO_COMMIT)
+            ));
+            final ResultSet resultSet = future.get();
+            final ArrayList<User> users = mapper.map(resultSet);
+            resultSet.close();
+            assertEquals(2, users.size());
+            final User first = users.get(0);
+            assertEquals(1, first.id);
+            assertEquals("name:ann", first.name);
+            assertEquals(Long.valueOf(12345678901L), first.score);
+            assertEquals(LocalDate.of(2000, 2, 29), first.birthday);
+            assertEquals(Level.HIGH, first.level);
+            assertTrue(first.active);
+            assertEquals(0.5, first.ratio, 0.0);
+            final User second = users.get(1);
+            assertEquals("name:null", second.name);
+            assertNull(second.score);
+            assertNull(second.birthday);
+            assertFalse(second.active);
+            assertEquals(-1.0, second.ratio, 0.0); // unchanged
+        }
+        assertEquals(1, mapper.planCount());
+        server.close();
+    }
+
+    @Test
+    public void flyweight() {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final List<User> users = new ArrayList<>();
+        server.connection.query(new PacketCollector.ResultHeaderConsumer() {
+
+            @Override
+            public boolean acceptsFlyweightRow() {
+                return true;
+            }
+
+            @Override
+            public void error(ResponsePacket.Error error) {
+                fail();
+            }
+
+            @Override
+            public PacketCollector.ResultContentConsumer accept(@NotNull ResultHeader header) {
+                final RowMapper.Bound<User> bound = RowMapper.of(User.class).bind(header);
+                return new PacketCollector.ResultContentConsumer() {
+
+                    @Override
+                    public void error(ResponsePacket.Error error) {
+                        fail();
+                    }
+
+                    @Override
+                    public void next(@NotNull ResultRow row) {
+                        users.add(bound.map(row));
+                    }
+
+                    @Override
+                    public void finish(@NotNull ResponsePacket.EOF end) {
+                        // pass
+                    }
+                };
+            }
+        }, "select * from user");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(
+                header(server),
+                textRow("3", "bob", "7", "2026-10-17", "LOW", "1", "2", null),
+                textRow("4", "cat", "8", "2026-10-18", "HIGH", "0", "3", null),
+                end(ServerStatus.AUTO_COMMIT)
+        ));
+        assertEquals(2, users.size());
+        assertEquals("name:bob", users.get(0).name);
+        assertEquals(LocalDate.of(2026, 10, 18), users.get(1).birthday);
+        assertEquals(Level.HIGH, users.get(1).level);
+        server.close();
+    }
+
+    @Test
+    public void empty() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        assertTrue(map(server, packets(header(server), end(ServerStatus.AUTO_COMMIT))).isEmpty());
+        server.close();
+    }
+
+    @Test
+    public void allNull() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final ArrayList<User> users = map(server, packets(header(server), textRow(new String[TYPES.length]), end(ServerStatus.AUTO_COMMIT)));
+        final User user = users.get(0);
+        assertEquals(0, user.id); // primitives unchanged
+        assertFalse(user.active);
+        assertEquals(-1.0, user.ratio, 0.0);
+        assertEquals("name:null", user.name);
+        assertNull(user.score);
+        assertNull(user.birthday);
+        assertNull(user.level);
+        server.close();
+    }
+
+    @Test
+    public void boundaries() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final ArrayList<User> users = map(server, packets(
+                header(server),
+                textRow("-2147483648", "", "-9223372036854775808", "0000-00-00", "LOW", "127", "-1e308", null),
+                textRow("2147483647", "名", "9223372036854775807", "9999-12-31", "HIGH", "-1", "4.9e-324", null),
+                end(ServerStatus.AUTO_COMMIT)
+        ));
+        final User min = users.get(0);
+        assertEquals(Integer.MIN_VALUE, min.id);
+        assertEquals("name:", min.name);
+        assertEquals(Long.valueOf(Long.MIN_VALUE), min.score);
+        assertNull(min.birthday); // zero date
+        assertEquals(-1e308, min.ratio, 0.0);
+        final User max = users.get(1);
+        assertEquals(Integer.MAX_VALUE, max.id);
+        assertEquals(Long.valueOf(Long.MAX_VALUE), max.score);
+        assertEquals(LocalDate.of(9999, 12, 31), max.birthday);
+        assertTrue(max.active);
+        assertEquals(Double.MIN_VALUE, max.ratio, 0.0);
+        server.close();
+    }
+
+    public static class Wrong {
+
+        public MysqlConnection connection;
+    }
+
+    @Test
+    public void setters() {
+        final RowMapper<User> mapper = RowMapper.of(User.class);
+        // fields are set through handles of the field type, so primitive values are not boxed
+        assertEquals(MethodType.methodType(void.class, Object.class, int.class), ((RowMapper.HandleSetter) mapper.propertySetter("id")).handle.type());
+        assertEquals(MethodType.methodType(void.class, Object.class, double.class), ((RowMapper.HandleSetter) mapper.propertySetter("ratio")).handle.type());
+        assertEquals(MethodType.methodType(void.class, Object.class, Object.class), ((RowMapper.HandleSetter) mapper.propertySetter("score")).handle.type());
+        // setter methods are linked
+        assertTrue(mapper.propertySetter("name") instanceof RowMapper.ObjectSetter);
+        assertFalse(mapper.propertySetter("name") instanceof RowMapper.HandleSetter);
+    }
+
+    @Test
+    public void unsupported() throws Exception {
+        final EmbeddedServer server = new EmbeddedServer().open();
+        final Future<ResultSet> future = server.connection.query("select 1 as connection");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        server.send(1, packets(server.header(FieldTypes.LONG, "connection"), end(ServerStatus.AUTO_COMMIT)));
+        final ResultSet resultSet = future.get();
+        try {
+            RowMapper.of(Wrong.class).map(resultSet);
+            fail();
+        } catch (MysqlException e) {
+            // pass
+        }
+        server.close();
+    }
+}
@@ -0,0 +1,86 @@
+package indi.qsq.mysql;
+
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class SlottedRowTest {
+
+    @NotNull
+    private static ResultSet query(@NotNull int[] types, @NotNull int[] flags, @NotNull String... values) throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.SLOTTED_DECODE;
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final String[] names = new String[values.length];
+        for (int index = 0; index < values.length; index++) {
+            names[index] = "c" + index;
+        }
+        final Future<ResultSet> future = server.connection.query("select * from t");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final PacketObject[] header = server.header(FieldTypes.LONG, names);
+        for (int index = 0; index < values.length; index++) {
+            ((ResultColumn) header[index + 1]).type = types[index];
+            ((ResultColumn) header[index + 1]).flags = flags[index];
+        }
+        server.send(1, packets(header, textRow(values), end(ServerStatus.AUTO_COMMIT)));
+        final ResultSet resultSet = future.get();
+        assertTrue(resultSet.rows.get(0) instanceof ResultRow.SlottedText);
+        server.close();
+        return resultSet;
+    }
+
+    @Test
+    public void numbers() throws Exception {
+        final ResultSet resultSet = query(
+                new int[] {FieldTypes.LONG_LONG, FieldTypes.LONG_LONG, FieldTypes.LONG, FieldTypes.INT24, FieldTypes.FLOAT, FieldTypes.DOUBLE, FieldTypes.NEW_DECIMAL},
+                new int[] {0, ColumnFlags.UNSIGNED, ColumnFlags.UNSIGNED, ColumnFlags.ZERO_FILL, 0, 0, 0},
+                "-42", "18446744073709551615", "4294967295", "00042", "0.1", null, "12.50"
+        );
+        final ResultRow row = resultSet.rows.get(0);
+        final ResultHeader header = resultSet.header;
+        assertEquals(-42, row.getInteger(header.getByIndex(0)));
+        assertEquals("-42", row.getString(header.getByIndex(0)));
+        assertEquals(-1L, row.getLong(header.getByIndex(1)));
+        assertEquals("18446744073709551615", row.getString(header.getByIndex(1)));
+        assertEquals(1.8446744073709552E19, row.getDouble(header.getByIndex(1)), 0.0);
+        try {
+            row.getInteger(header.getByIndex(1));
+            fail();
+        } catch (NumberFormatException e) {
+            // pass
+        }
+        assertEquals(-1, row.getInteger(header.getByIndex(2))); // same bits, like Integer.parseUnsignedInt
+        assertEquals(4294967295L, row.getLong(header.getByIndex(2)));
+        assertEquals("00042", row.getString(header.getByIndex(3)));
+        assertEquals(42, row.getInteger(header.getByIndex(3)));
+        assertEquals(0.1f, row.getFloat(header.getByIndex(4)), 0.0f);
+        assertEquals("0.1", row.getString(header.getByIndex(4)));
+        assertTrue(row.isNull(header.getByIndex(5)));
+        assertNull(row.getString(header.getByIndex(5)));
+        assertNull(row.getBoxedDouble(header.getByIndex(5)));
+        try {
+            row.getDouble(header.getByIndex(5));
+            fail();
+        } catch (NullPointerException e) {
+            // pass
+        }
+        assertEquals("12.50", row.getString(header.getByIndex(6)));
+        assertEquals(12.5, row.getDouble(header.getByIndex(6)), 0.0);
+        assertFalse(row.isNull(header.getByIndex(6)));
+    }
+
+    @Test
+    public void onlySlots() throws Exception {
+        final ResultSet resultSet = query(new int[] {FieldTypes.TINY, FieldTypes.DOUBLE}, new int[2], "-7", "2.5");
+        final ResultRow.Slotted row = (ResultRow.Slotted) resultSet.rows.get(0);
+        assertNull(row.objects);
+        assertEquals(-7, row.getInteger(resultSet.header.getByIndex(0)));
+        assertEquals(2.5, row.getDouble(resultSet.header.getByIndex(1)), 0.0);
+    }
+}
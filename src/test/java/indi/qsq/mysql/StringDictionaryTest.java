@@ -0,0 +1,141 @@
+package indi.qsq.mysql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static indi.qsq.mysql.EmbeddedServer.*;
+import static org.junit.Assert.*;
+
+/**
+ * Created on 2026/10/17.
+ */
+public class StringDictionaryTest {
+
+    private static int code(@NotNull StringDictionary dictionary, @NotNull ByteBuf data, @NotNull String value) {
+        data.clear();
+        data.writeZero(3); // values not at index zero
+        final int index = data.writerIndex();
+        data.writeCharSequence(value, StandardCharsets.UTF_8);
+        return dictionary.code(data, index, data.writerIndex() - index);
+    }
+
+    @Test
+    public void codes() {
+        final StringDictionary dictionary = new StringDictionary(StandardCharsets.UTF_8, 1000);
+        for (ByteBuf data : new ByteBuf[] {Unpooled.buffer(), Unpooled.directBuffer()}) {
+            for (int round = 0; round < 3; round++) {
+                for (int value = 0; value < 1200; value++) {
+                    final int code = code(dictionary, data, "状态" + value);
+                    if (value < 1000) {
+                        assertEquals(value, code); // the same codes from heap and direct buffers
+                        assertEquals("状态" + value, dictionary.get(code));
+                    } else {
+                        assertEquals(-1, code); // full
+                    }
+                }
+            }
+        }
+        assertEquals(1000, dictionary.size());
+        assertEquals(-1, code(dictionary, Unpooled.buffer(), "x".repeat(StringDictionary.MAX_VALUE_LENGTH + 1)));
+        final ByteBuf data = Unpooled.copiedBuffer("状态7", StandardCharsets.UTF_8);
+        assertSame(dictionary.get(7), dictionary.intern(data, 0, data.readableBytes()));
+        assertEquals(7, dictionary.code(dictionary.get(7)));
+        assertEquals(999, dictionary.code(dictionary.get(999)));
+        assertEquals(-1, dictionary.code(new String("状态7"))); // by instance only
+        final ByteBuf other = Unpooled.copiedBuffer("other", StandardCharsets.UTF_8);
+        assertEquals("other", dictionary.intern(other, 0, other.readableBytes()));
+    }
+
+    /**
+     * Lazy rows intern on the threads reading them
+     */
+    @Test
+    public void concurrent() throws Exception {
+        final StringDictionary dictionary = new StringDictionary(StandardCharsets.UTF_8);
+        final Thread[] threads = new Thread[4];
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    final ByteBuf data = Unpooled.buffer();
+                    for (int value = 0; value < 2000; value++) {
+                        final int code = code(dictionary, data, "v" + value);
+                        assertEquals("v" + value, dictionary.get(code));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(2000, dictionary.size());
+    }
+
+    @NotNull
+    private static ResultSet query(int preferenceFlags) throws Exception {
+        final MysqlConnection.AfterConfig config = new MysqlConnection.AfterConfig();
+        config.preferenceFlags |= PreferenceFlags.DICTIONARY_ENCODE | preferenceFlags;
+        final EmbeddedServer server = new EmbeddedServer(config).open();
+        final Future<ResultSet> future = server.connection.query("select status, note from event");
+        assertEquals(ServerCommands.QUERY, server.readCommand());
+        final PacketObject[] header = server.header(FieldTypes.VAR_STRING, "status", "note");
+        ((ResultColumn) header[1]).columnLength = 80;
+        ((ResultColumn) header[2]).columnLength = 4000;
+        final PacketObject[] rows = new PacketObject[100];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = textRow(row % 3 == 0 ? "DONE" : row % 3 == 1 ? "PENDING" : null, "note");
+        }
+        server.send(1, packets(header, rows, end(ServerStatus.AUTO_COMMIT)));
+        final ResultSet resultSet = future.get();
+        server.close();
+        return resultSet;
+    }
+
+    private static void check(@NotNull ResultSet resultSet) {
+        final ResultColumn status = resultSet.header.getByIndex(0);
+        final ResultColumn note = resultSet.header.getByIndex(1);
+        assertNotNull(status.getDictionary());
+        assertNull(note.getDictionary()); // long column
+        final String done = resultSet.rows.get(0).getString(status);
+        for (int row = 0; row < resultSet.rows.size(); row++) {
+            final ResultRow resultRow = resultSet.rows.get(row);
+            if (row % 3 == 0) {
+                assertSame(done, resultRow.getString(status));
+                assertEquals(0, resultRow.getDictionaryCode(status));
+            } else if (row % 3 == 1) {
+                assertEquals("PENDING", resultRow.getString(status));
+                assertEquals(1, resultRow.getDictionaryCode(status));
+            } else {
+                assertTrue(resultRow.isNull(status));
+            }
+            assertEquals(-1, resultRow.getDictionaryCode(note));
+        }
+        assertEquals(2, status.getDictionary().size());
+        resultSet.close();
+    }
+
+    @Test
+    public void decodedText() throws Exception {
+        check(query(0));
+    }
+
+    @Test
+    public void rawText() throws Exception {
+        check(query(PreferenceFlags.LAZY_DECODE_TEXT));
+    }
+
+    @Test
+    public void slottedText() throws Exception {
+        check(query(PreferenceFlags.SLOTTED_DECODE));
+    }
+}